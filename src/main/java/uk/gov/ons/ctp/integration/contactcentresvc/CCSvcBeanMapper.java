@@ -63,10 +63,21 @@ public class CCSvcBeanMapper extends ConfigurableMapper {
     factory.registerObjectFactory(
         new PermissionTypeFactory(), new TypeBuilder<PermissionType>() {}.build());
 
+    // the sample maps of inbound case updates are passed to the case as they are, not copied
     factory
         .classMap(CaseUpdate.class, Case.class)
         .field("collectionExerciseId", "collectionExercise.id")
         .field("caseId", "id")
+        .fieldBToA("sample", "sample")
+        .fieldBToA("sampleSensitive", "sampleSensitive")
+        .customize(
+            new CustomMapper<CaseUpdate, Case>() {
+              @Override
+              public void mapAtoB(CaseUpdate a, Case b, MappingContext mappingContext) {
+                b.setSample(a.getSample());
+                b.setSampleSensitive(a.getSampleSensitive());
+              }
+            })
         .byDefault()
         .register();
 
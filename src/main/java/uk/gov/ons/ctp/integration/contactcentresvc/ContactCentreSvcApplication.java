@@ -21,6 +21,7 @@ import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.cloud.circuitbreaker.resilience4j.Resilience4JCircuitBreakerFactory;
 import org.springframework.cloud.client.circuitbreaker.CircuitBreaker;
 import org.springframework.cloud.client.circuitbreaker.Customizer;
+import org.springframework.context.ConfigurableApplicationContext;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Primary;
@@ -33,11 +34,14 @@ import uk.gov.ons.ctp.common.error.CTPException;
 import uk.gov.ons.ctp.common.event.EventPublisher;
 import uk.gov.ons.ctp.common.event.EventSender;
 import uk.gov.ons.ctp.common.event.PubSubEventSender;
+import uk.gov.ons.ctp.common.event.model.CaseUpdate;
 import uk.gov.ons.ctp.common.jackson.CustomObjectMapper;
 import uk.gov.ons.ctp.common.rest.RestClient;
 import uk.gov.ons.ctp.common.rest.RestClientConfig;
 import uk.gov.ons.ctp.integration.caseapiclient.caseservice.CaseServiceClientService;
 import uk.gov.ons.ctp.integration.contactcentresvc.config.AppConfig;
+import uk.gov.ons.ctp.integration.contactcentresvc.event.CaseBulkLoadRunner;
+import uk.gov.ons.ctp.integration.contactcentresvc.event.CaseUpdateMixIn;
 import uk.gov.ons.ctp.integration.eqlaunch.service.EqLaunchService;
 
 /** The 'main' entry point for the ContactCentre Svc SpringBoot Application. */
@@ -110,7 +114,12 @@ public class ContactCentreSvcApplication {
    * @param args runtime command line args
    */
   public static void main(final String[] args) {
-    SpringApplication.run(ContactCentreSvcApplication.class, args);
+    ConfigurableApplicationContext context =
+        SpringApplication.run(ContactCentreSvcApplication.class, args);
+    // a bulk load has finished by the time the application is running, so exit with its result
+    if (context.getBeanProvider(CaseBulkLoadRunner.class).getIfAvailable() != null) {
+      System.exit(SpringApplication.exit(context));
+    }
   }
 
   /**
@@ -149,9 +158,17 @@ public class ContactCentreSvcApplication {
     return pubSubTemplate;
   }
 
+  /**
+   * The Pub/Sub message converter. Inbound case updates keep their sample attributes as JSON text,
+   * see {@link CaseUpdateMixIn}.
+   *
+   * @return the message converter
+   */
   @Bean
   public JacksonPubSubMessageConverter messageConverter() {
-    return new JacksonPubSubMessageConverter(customObjectMapper());
+    CustomObjectMapper mapper = new CustomObjectMapper();
+    mapper.addMixIn(CaseUpdate.class, CaseUpdateMixIn.class);
+    return new JacksonPubSubMessageConverter(mapper);
   }
 
   @Bean
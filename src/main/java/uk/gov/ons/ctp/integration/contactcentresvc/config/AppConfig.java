@@ -5,12 +5,10 @@ import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.io.Resource;
-import org.springframework.retry.annotation.EnableRetry;
 import uk.gov.ons.ctp.common.config.CustomCircuitBreakerConfig;
 import uk.gov.ons.ctp.integration.eqlaunch.crypto.KeyStore;
 
 /** Application Config bean */
-@EnableRetry
 @Configuration
 @ConfigurationProperties
 @Data
@@ -28,6 +26,7 @@ public class AppConfig {
   private CustomCircuitBreakerConfig circuitBreaker;
   private QueueConfig queueConfig;
   private MessagingConfig messaging;
+  private SchedulerConfig scheduler;
   private Set<String> surveys;
   private DummyUserConfig dummyUserConfig;
 }
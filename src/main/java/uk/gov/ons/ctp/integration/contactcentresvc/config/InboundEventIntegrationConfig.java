@@ -1,54 +1,165 @@
 package uk.gov.ons.ctp.integration.contactcentresvc.config;
 
+import com.google.api.gax.batching.FlowControlSettings;
+import com.google.api.gax.batching.FlowController.LimitExceededBehavior;
+import com.google.api.gax.core.CredentialsProvider;
+import com.google.api.gax.core.InstantiatingExecutorProvider;
+import com.google.api.gax.core.NoCredentialsProvider;
+import com.google.api.gax.rpc.TransportChannelProvider;
+import com.google.cloud.spring.core.GcpProjectIdProvider;
 import com.google.cloud.spring.pubsub.core.PubSubTemplate;
+import com.google.cloud.spring.pubsub.core.subscriber.PubSubSubscriberOperations;
+import com.google.cloud.spring.pubsub.core.subscriber.PubSubSubscriberTemplate;
 import com.google.cloud.spring.pubsub.integration.AckMode;
 import com.google.cloud.spring.pubsub.integration.inbound.PubSubInboundChannelAdapter;
+import com.google.cloud.spring.pubsub.support.DefaultSubscriberFactory;
+import com.google.cloud.spring.pubsub.support.converter.PubSubMessageConverter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.ArrayList;
+import java.util.List;
+import javax.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
 import org.springframework.integration.channel.DirectChannel;
 import org.springframework.messaging.MessageChannel;
+import org.springframework.util.StringUtils;
 import uk.gov.ons.ctp.common.event.model.CaseEvent;
 import uk.gov.ons.ctp.common.event.model.CollectionExerciseUpdateEvent;
 import uk.gov.ons.ctp.common.event.model.SurveyUpdateEvent;
 import uk.gov.ons.ctp.common.event.model.UacEvent;
+import uk.gov.ons.ctp.integration.contactcentresvc.config.QueueConfig.SubscriberConfig;
+import uk.gov.ons.ctp.integration.contactcentresvc.event.OrderedLaneChannel;
 
-/** Integration configuration for inbound events. */
+/**
+ * Integration configuration for inbound events.
+ *
+ * <p>Each subscription can be given its own subscriber, with its own executor threads and flow
+ * control limits, in <code>queueconfig</code>. Flow control blocks the subscriber once the limits
+ * are reached, so a slow database pushes back on Pub/Sub rather than letting messages sit in memory
+ * until their ack deadlines expire.
+ *
+ * <p>Messages are delivered on the subscriber's threads through synchronous channels, so with
+ * {@link AckMode#AUTO} a message is only acked once the receiver's transaction has committed, and
+ * is NAKed if it fails. The batching receivers ack manually once each batch has committed, and the
+ * {@link OrderedLaneChannel} acks each message once its lane has processed it.
+ *
+ * <p>There are no subscriptions while running a bulk load, with the <code>bulk-load</code> profile.
+ */
+@Slf4j
 @Configuration
+@Profile("!bulk-load")
 public class InboundEventIntegrationConfig {
+  // Pub/Sub client flow control defaults, for limits a subscription leaves unset
+  private static final long DEFAULT_MAX_OUTSTANDING_MESSAGES = 1000L;
+  private static final long DEFAULT_MAX_OUTSTANDING_BYTES = 100L * 1024L * 1024L;
 
   private AppConfig appConfig;
+  private ObjectProvider<GcpProjectIdProvider> projectIdProvider;
+  private ObjectProvider<CredentialsProvider> credentialsProvider;
+  private ObjectProvider<TransportChannelProvider> channelProvider;
+  private ObjectProvider<PubSubMessageConverter> messageConverter;
+  private String emulatorHost;
+  private final List<PubSubSubscriberTemplate> subscribers = new ArrayList<>();
 
   /**
    * Constructor for InboundEventIntegrationConfig
    *
    * @param appConfig centralised configuration
+   * @param projectIdProvider GCP project ID, for subscription specific subscribers
+   * @param credentialsProvider GCP credentials, for subscription specific subscribers
+   * @param channelProvider Pub/Sub subscriber channel, for subscription specific subscribers
+   * @param messageConverter converter for subscription specific subscribers
+   * @param emulatorHost the Pub/Sub emulator host, if the emulator is being used
    */
-  public InboundEventIntegrationConfig(final AppConfig appConfig) {
+  public InboundEventIntegrationConfig(
+      final AppConfig appConfig,
+      ObjectProvider<GcpProjectIdProvider> projectIdProvider,
+      ObjectProvider<CredentialsProvider> credentialsProvider,
+      @Qualifier("subscriberTransportChannelProvider")
+          ObjectProvider<TransportChannelProvider> channelProvider,
+      ObjectProvider<PubSubMessageConverter> messageConverter,
+      @Value("${spring.cloud.gcp.pubsub.emulator-host:}") String emulatorHost) {
     this.appConfig = appConfig;
+    this.projectIdProvider = projectIdProvider;
+    this.credentialsProvider = credentialsProvider;
+    this.channelProvider = channelProvider;
+    this.messageConverter = messageConverter;
+    this.emulatorHost = emulatorHost;
   }
 
+  /**
+   * Case events go to the batching receiver, with manual acknowledgement after each batch commits,
+   * if batching is enabled, or else through the ordered lanes, if enabled, with manual
+   * acknowledgement after each event is processed.
+   */
   @Bean
   public PubSubInboundChannelAdapter caseEventInbound(
-      @Qualifier("acceptCaseEvent") MessageChannel channel, PubSubTemplate pubSubTemplate) {
-    return makeAdapter(
-        channel, pubSubTemplate, appConfig.getQueueConfig().getCaseSubscription(), CaseEvent.class);
+      @Qualifier("acceptCaseEvent") MessageChannel channel,
+      @Qualifier("acceptCaseEventBatch") MessageChannel batchChannel,
+      @Qualifier("acceptCaseEventLanes") MessageChannel lanesChannel,
+      PubSubTemplate pubSubTemplate) {
+    QueueConfig queueConfig = appConfig.getQueueConfig();
+    PubSubSubscriberOperations subscriber =
+        subscriberFor(
+            pubSubTemplate, queueConfig.getCaseSubscription(), queueConfig.getCaseSubscriber());
+    if (queueConfig.getCaseBatch().isEnabled()) {
+      PubSubInboundChannelAdapter adapter =
+          makeAdapter(batchChannel, subscriber, queueConfig.getCaseSubscription(), CaseEvent.class);
+      adapter.setAckMode(AckMode.MANUAL);
+      return adapter;
+    }
+    if (queueConfig.getCaseLanes().isEnabled()) {
+      PubSubInboundChannelAdapter adapter =
+          makeAdapter(lanesChannel, subscriber, queueConfig.getCaseSubscription(), CaseEvent.class);
+      adapter.setAckMode(AckMode.MANUAL);
+      return adapter;
+    }
+    return makeAdapter(channel, subscriber, queueConfig.getCaseSubscription(), CaseEvent.class);
   }
 
+  /**
+   * UAC events go to the batching receiver or through the ordered lanes, if enabled, as for case
+   * events.
+   */
   @Bean
   public PubSubInboundChannelAdapter uacEventInbound(
-      @Qualifier("acceptUacEvent") MessageChannel channel, PubSubTemplate pubSubTemplate) {
-    return makeAdapter(
-        channel, pubSubTemplate, appConfig.getQueueConfig().getUacSubscription(), UacEvent.class);
+      @Qualifier("acceptUacEvent") MessageChannel channel,
+      @Qualifier("acceptUacEventBatch") MessageChannel batchChannel,
+      @Qualifier("acceptUacEventLanes") MessageChannel lanesChannel,
+      PubSubTemplate pubSubTemplate) {
+    QueueConfig queueConfig = appConfig.getQueueConfig();
+    PubSubSubscriberOperations subscriber =
+        subscriberFor(
+            pubSubTemplate, queueConfig.getUacSubscription(), queueConfig.getUacSubscriber());
+    if (queueConfig.getUacBatch().isEnabled()) {
+      PubSubInboundChannelAdapter adapter =
+          makeAdapter(batchChannel, subscriber, queueConfig.getUacSubscription(), UacEvent.class);
+      adapter.setAckMode(AckMode.MANUAL);
+      return adapter;
+    }
+    if (queueConfig.getUacLanes().isEnabled()) {
+      PubSubInboundChannelAdapter adapter =
+          makeAdapter(lanesChannel, subscriber, queueConfig.getUacSubscription(), UacEvent.class);
+      adapter.setAckMode(AckMode.MANUAL);
+      return adapter;
+    }
+    return makeAdapter(channel, subscriber, queueConfig.getUacSubscription(), UacEvent.class);
   }
 
   @Bean
   public PubSubInboundChannelAdapter surveyEventInbound(
       @Qualifier("acceptSurveyUpdateEvent") MessageChannel channel, PubSubTemplate pubSubTemplate) {
+    QueueConfig queueConfig = appConfig.getQueueConfig();
     return makeAdapter(
         channel,
-        pubSubTemplate,
-        appConfig.getQueueConfig().getSurveySubscription(),
+        subscriberFor(
+            pubSubTemplate, queueConfig.getSurveySubscription(), queueConfig.getSurveySubscriber()),
+        queueConfig.getSurveySubscription(),
         SurveyUpdateEvent.class);
   }
 
@@ -56,26 +167,82 @@ public class InboundEventIntegrationConfig {
   public PubSubInboundChannelAdapter collectionExerciseEventInbound(
       @Qualifier("acceptCollectionExerciseEvent") MessageChannel channel,
       PubSubTemplate pubSubTemplate) {
+    QueueConfig queueConfig = appConfig.getQueueConfig();
     return makeAdapter(
         channel,
-        pubSubTemplate,
-        appConfig.getQueueConfig().getCollectionExerciseSubscription(),
+        subscriberFor(
+            pubSubTemplate,
+            queueConfig.getCollectionExerciseSubscription(),
+            queueConfig.getCollectionExerciseSubscriber()),
+        queueConfig.getCollectionExerciseSubscription(),
         CollectionExerciseUpdateEvent.class);
   }
 
   private PubSubInboundChannelAdapter makeAdapter(
       MessageChannel channel,
-      PubSubTemplate pubSubTemplate,
+      PubSubSubscriberOperations subscriber,
       String subscriptionName,
       Class<?> payloadType) {
     PubSubInboundChannelAdapter adapter =
-        new PubSubInboundChannelAdapter(pubSubTemplate, subscriptionName);
+        new PubSubInboundChannelAdapter(subscriber, subscriptionName);
     adapter.setOutputChannel(channel);
     adapter.setAckMode(AckMode.AUTO);
     adapter.setPayloadType(payloadType);
     return adapter;
   }
 
+  /**
+   * Get the subscriber for a subscription: the shared one, unless the subscription has its own
+   * settings, in which case it gets its own subscriber factory.
+   */
+  private PubSubSubscriberOperations subscriberFor(
+      PubSubTemplate pubSubTemplate, String subscriptionName, SubscriberConfig settings) {
+    if (!settings.isCustomised()) {
+      return pubSubTemplate;
+    }
+    log.info("Subscriber settings for {}: {}", subscriptionName, settings);
+    PubSubSubscriberTemplate subscriber = new PubSubSubscriberTemplate(subscriberFactory(settings));
+    subscriber.setMessageConverter(messageConverter.getObject());
+    subscribers.add(subscriber);
+    return subscriber;
+  }
+
+  /** Make a subscriber factory with the subscription's own executor and flow control settings. */
+  DefaultSubscriberFactory subscriberFactory(SubscriberConfig settings) {
+    DefaultSubscriberFactory factory = new DefaultSubscriberFactory(projectIdProvider.getObject());
+    factory.setChannelProvider(channelProvider.getObject());
+    factory.setCredentialsProvider(
+        StringUtils.hasText(emulatorHost)
+            ? NoCredentialsProvider.create()
+            : credentialsProvider.getObject());
+    if (settings.getExecutorThreads() > 0) {
+      factory.setExecutorProvider(
+          InstantiatingExecutorProvider.newBuilder()
+              .setExecutorThreadCount(settings.getExecutorThreads())
+              .build());
+    }
+    long maxMessages = settings.getMaxOutstandingMessages();
+    long maxBytes = settings.getMaxOutstandingBytes();
+    factory.setFlowControlSettings(
+        FlowControlSettings.newBuilder()
+            .setMaxOutstandingElementCount(
+                maxMessages > 0 ? maxMessages : DEFAULT_MAX_OUTSTANDING_MESSAGES)
+            .setMaxOutstandingRequestBytes(maxBytes > 0 ? maxBytes : DEFAULT_MAX_OUTSTANDING_BYTES)
+            .setLimitExceededBehavior(LimitExceededBehavior.Block)
+            .build());
+    return factory;
+  }
+
+  /**
+   * Shut down the subscription specific subscribers, which are not beans themselves. The inbound
+   * adapters have already been stopped by then.
+   */
+  @PreDestroy
+  public void shutdownSubscribers() {
+    subscribers.forEach(PubSubSubscriberTemplate::destroy);
+    subscribers.clear();
+  }
+
   /** @return channel for accepting case events */
   @Bean
   public MessageChannel acceptCaseEvent() {
@@ -84,6 +251,30 @@ public class InboundEventIntegrationConfig {
     return channel;
   }
 
+  /** @return channel for accepting case events in batches */
+  @Bean
+  public MessageChannel acceptCaseEventBatch() {
+    DirectChannel channel = new DirectChannel();
+    channel.setDatatypes(CaseEvent.class);
+    return channel;
+  }
+
+  /**
+   * @param channel the channel each lane sends its case events on to
+   * @param meterRegistry registry for the lane metrics
+   * @return channel for accepting case events on lanes ordered by case ID
+   */
+  @Bean
+  public OrderedLaneChannel acceptCaseEventLanes(
+      @Qualifier("acceptCaseEvent") MessageChannel channel, MeterRegistry meterRegistry) {
+    return new OrderedLaneChannel(
+        "case",
+        appConfig.getQueueConfig().getCaseLanes(),
+        channel,
+        event -> ((CaseEvent) event).getPayload().getCaseUpdate().getCaseId(),
+        meterRegistry);
+  }
+
   /** @return channel for accepting Survey Update events */
   @Bean
   public MessageChannel acceptSurveyUpdateEvent() {
@@ -107,4 +298,28 @@ public class InboundEventIntegrationConfig {
     channel.setDatatypes(UacEvent.class);
     return channel;
   }
+
+  /** @return channel for accepting uac events in batches */
+  @Bean
+  public MessageChannel acceptUacEventBatch() {
+    DirectChannel channel = new DirectChannel();
+    channel.setDatatypes(UacEvent.class);
+    return channel;
+  }
+
+  /**
+   * @param channel the channel each lane sends its uac events on to
+   * @param meterRegistry registry for the lane metrics
+   * @return channel for accepting uac events on lanes ordered by case ID
+   */
+  @Bean
+  public OrderedLaneChannel acceptUacEventLanes(
+      @Qualifier("acceptUacEvent") MessageChannel channel, MeterRegistry meterRegistry) {
+    return new OrderedLaneChannel(
+        "uac",
+        appConfig.getQueueConfig().getUacLanes(),
+        channel,
+        event -> ((UacEvent) event).getPayload().getUacUpdate().getCaseId(),
+        meterRegistry);
+  }
 }
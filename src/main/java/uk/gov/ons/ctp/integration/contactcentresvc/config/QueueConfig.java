@@ -8,4 +8,66 @@ public class QueueConfig {
   private String surveySubscription;
   private String collectionExerciseSubscription;
   private String uacSubscription;
+  private BatchConfig caseBatch = new BatchConfig();
+  private BatchConfig uacBatch = new BatchConfig();
+  private LaneConfig caseLanes = new LaneConfig();
+  private LaneConfig uacLanes = new LaneConfig();
+  private DedupConfig dedup = new DedupConfig();
+  private BulkLoadConfig bulkLoad = new BulkLoadConfig();
+  private SubscriberConfig caseSubscriber = new SubscriberConfig();
+  private SubscriberConfig surveySubscriber = new SubscriberConfig();
+  private SubscriberConfig collectionExerciseSubscriber = new SubscriberConfig();
+  private SubscriberConfig uacSubscriber = new SubscriberConfig();
+
+  /** Settings for writing inbound events to the database in batches. */
+  @Data
+  public static class BatchConfig {
+    private boolean enabled;
+    private int size = 500;
+    private long maxWaitMillis = 200;
+  }
+
+  /**
+   * Settings for processing inbound events on several ordered lanes, keyed by case ID, with up to
+   * <code>capacity</code> events waiting in each lane.
+   */
+  @Data
+  public static class LaneConfig {
+    private boolean enabled;
+    private int lanes = 4;
+    private int capacity = 100;
+  }
+
+  /** Settings for skipping inbound messages that have already been processed. */
+  @Data
+  public static class DedupConfig {
+    private boolean enabled = true;
+    private long ttlSeconds = 86400;
+    private int maxEntries = 100000;
+    private long cleanupMillis = 600000;
+  }
+
+  /** Settings for loading case events from a file, rather than from Pub/Sub. */
+  @Data
+  public static class BulkLoadConfig {
+    private String file;
+    private int threads = 4;
+    private int chunkSize = 5000;
+  }
+
+  /**
+   * Pub/Sub subscriber settings for a single subscription. If none are set the subscription uses
+   * the shared subscriber, otherwise it gets its own, with any value left at zero taking the
+   * Pub/Sub client default.
+   */
+  @Data
+  public static class SubscriberConfig {
+    private int executorThreads;
+    private long maxOutstandingMessages;
+    private long maxOutstandingBytes;
+
+    public boolean isCustomised() {
+      return executorThreads > 0 || maxOutstandingMessages > 0 || maxOutstandingBytes > 0;
+    }
+  }
 }
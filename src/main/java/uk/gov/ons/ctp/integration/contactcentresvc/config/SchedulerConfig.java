@@ -0,0 +1,23 @@
+package uk.gov.ons.ctp.integration.contactcentresvc.config;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import lombok.Data;
+
+@Data
+public class SchedulerConfig {
+
+  /** Priority lanes for outbound events, highest priority first. */
+  private List<LaneConfig> lanes = new ArrayList<>();
+
+  /** Weight of the lane for any event types not listed in the priority lanes. */
+  private int defaultLaneWeight = 1;
+
+  @Data
+  public static class LaneConfig {
+    private int weight = 1;
+    private Set<String> types = new HashSet<>();
+  }
+}
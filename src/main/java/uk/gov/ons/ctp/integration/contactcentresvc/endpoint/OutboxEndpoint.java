@@ -0,0 +1,77 @@
+package uk.gov.ons.ctp.integration.contactcentresvc.endpoint;
+
+import static uk.gov.ons.ctp.common.log.ScopedStructuredArguments.kv;
+
+import io.micrometer.core.annotation.Timed;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import uk.gov.ons.ctp.common.error.CTPException;
+import uk.gov.ons.ctp.integration.contactcentresvc.event.EventToSendMetrics;
+import uk.gov.ons.ctp.integration.contactcentresvc.event.EventToSendMetrics.TypeLag;
+import uk.gov.ons.ctp.integration.contactcentresvc.model.PermissionType;
+import uk.gov.ons.ctp.integration.contactcentresvc.representation.DeadLetterDTO;
+import uk.gov.ons.ctp.integration.contactcentresvc.service.impl.DeadLetterService;
+import uk.gov.ons.ctp.integration.contactcentresvc.service.impl.RBACService;
+
+/** Administration of the outbound event queue. */
+@Slf4j
+@Timed
+@RestController
+@RequestMapping(value = "/outbox", produces = "application/json")
+public class OutboxEndpoint {
+  private DeadLetterService deadLetterService;
+  private RBACService rbacService;
+  private EventToSendMetrics eventToSendMetrics;
+
+  @Autowired
+  public OutboxEndpoint(
+      final DeadLetterService deadLetterService,
+      final RBACService rbacService,
+      final EventToSendMetrics eventToSendMetrics) {
+    this.deadLetterService = deadLetterService;
+    this.rbacService = rbacService;
+    this.eventToSendMetrics = eventToSendMetrics;
+  }
+
+  @GetMapping("/lag")
+  public ResponseEntity<Map<String, TypeLag>> getLag() throws CTPException {
+
+    log.info("Entering getLag");
+    rbacService.assertUserPermission(PermissionType.CAN_MANAGE_SYSTEM);
+    return ResponseEntity.ok(eventToSendMetrics.getBacklog());
+  }
+
+  @GetMapping("/dead-letters")
+  public ResponseEntity<List<DeadLetterDTO>> getDeadLetters() throws CTPException {
+
+    log.info("Entering getDeadLetters");
+    rbacService.assertUserPermission(PermissionType.CAN_MANAGE_SYSTEM);
+    return ResponseEntity.ok(deadLetterService.getDeadLetters());
+  }
+
+  @PostMapping("/dead-letters/{id}/replay")
+  public ResponseEntity<DeadLetterDTO> replayDeadLetter(@PathVariable(value = "id") UUID id)
+      throws CTPException {
+
+    log.info("Entering replayDeadLetter", kv("id", id));
+    rbacService.assertUserPermission(PermissionType.CAN_MANAGE_SYSTEM);
+    return ResponseEntity.ok(deadLetterService.replay(id));
+  }
+
+  @PostMapping("/dead-letters/replay")
+  public ResponseEntity<Integer> replayAllDeadLetters() throws CTPException {
+
+    log.info("Entering replayAllDeadLetters");
+    rbacService.assertUserPermission(PermissionType.CAN_MANAGE_SYSTEM);
+    return ResponseEntity.ok(deadLetterService.replayAll());
+  }
+}
@@ -0,0 +1,104 @@
+package uk.gov.ons.ctp.integration.contactcentresvc.event;
+
+import com.google.cloud.spring.pubsub.support.BasicAcknowledgeablePubsubMessage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import uk.gov.ons.ctp.integration.contactcentresvc.config.QueueConfig.BatchConfig;
+
+/**
+ * Collects inbound events until there are <code>size</code> of them, or <code>max-wait-millis
+ * </code> has passed, and then hands them to the subclass to write as a batch. The subclass is
+ * responsible for acknowledging each message once it has been written.
+ *
+ * <p>Only one batch is written at a time, whether it was filled by a subscriber thread or flushed
+ * by the timer, so that two transactions never upsert the same cases at once and deadlock. Events
+ * can still be added while a batch is being written, and are taken by the next write.
+ *
+ * @param <E> the type of event
+ */
+@Slf4j
+abstract class BatchingEventReceiver<E> {
+  private final BatchConfig batchConfig;
+  private final ScheduledExecutorService flushExecutor;
+  private final Object writeLock = new Object();
+  private List<PendingEvent<E>> pending = new ArrayList<>();
+
+  BatchingEventReceiver(String name, BatchConfig batchConfig) {
+    this.batchConfig = batchConfig;
+    this.flushExecutor =
+        Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory(name + "-batch-"));
+    if (batchConfig.isEnabled()) {
+      long maxWait = Math.max(1, batchConfig.getMaxWaitMillis());
+      flushExecutor.scheduleWithFixedDelay(this::flush, maxWait, maxWait, TimeUnit.MILLISECONDS);
+      log.info("Event batching enabled for {}: {}", name, batchConfig);
+    }
+  }
+
+  /**
+   * Add an event to the current batch, writing the batch if it is full.
+   *
+   * @param event the event
+   * @param message the original Pub/Sub message, to acknowledge once the event is stored
+   */
+  protected void add(E event, BasicAcknowledgeablePubsubMessage message) {
+    boolean full;
+    synchronized (this) {
+      pending.add(new PendingEvent<>(event, message));
+      full = pending.size() >= batchConfig.getSize();
+    }
+    if (full) {
+      writePending();
+    }
+  }
+
+  /**
+   * Write a batch of events, acknowledging each message once its event has been stored.
+   *
+   * @param batch the events to write
+   */
+  protected abstract void write(List<PendingEvent<E>> batch);
+
+  /** Write whatever is waiting, however small the batch. */
+  void flush() {
+    try {
+      writePending();
+    } catch (Exception e) {
+      log.error("Failed to flush event batch", e);
+    }
+  }
+
+  private void writePending() {
+    synchronized (writeLock) {
+      List<PendingEvent<E>> batch;
+      synchronized (this) {
+        batch = pending;
+        pending = new ArrayList<>();
+      }
+      if (!batch.isEmpty()) {
+        write(batch);
+      }
+    }
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    flushExecutor.shutdown();
+    flush();
+  }
+
+  static class PendingEvent<E> {
+    final E event;
+    final BasicAcknowledgeablePubsubMessage message;
+
+    PendingEvent(E event, BasicAcknowledgeablePubsubMessage message) {
+      this.event = event;
+      this.message = message;
+    }
+  }
+}
@@ -0,0 +1,200 @@
+package uk.gov.ons.ctp.integration.contactcentresvc.event;
+
+import static uk.gov.ons.ctp.common.log.ScopedStructuredArguments.kv;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import javax.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGNotification;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Broadcasts cache invalidations to every instance of the service, by postgres notifications on the
+ * <code>cc_cache_invalidation</code> channel. Each Pub/Sub message is only delivered to one
+ * instance, so without this the others would carry on serving what they had cached.
+ *
+ * <p>Invalidations are published within the current transaction, and postgres only delivers them
+ * once it commits (and drops them on rollback). The caches on the publishing instance are also
+ * invalidated once it commits, whether or not broadcasting is enabled. Each instance listens with a
+ * {@link NotificationListener}, and passes the invalidations to the caches registered for their
+ * entity type. If its connection fails, it reconnects after <code>
+ * cache-invalidation.reconnect-millis</code>. The registered caches are cleared each time it starts
+ * listening, as invalidations may have been missed.
+ */
+@Slf4j
+@Component
+public class CacheInvalidationBus {
+  public static final String CHANNEL = "cc_cache_invalidation";
+  public static final String CASE = "case";
+  public static final String SURVEY = "survey";
+  public static final String COLLECTION_EXERCISE = "collectionExercise";
+
+  // keeps each payload well under the postgres limit of 8000 bytes
+  static final int MAX_IDS_PER_NOTIFICATION = 100;
+
+  private final NotificationConnectionFactory connectionFactory;
+  private final JdbcTemplate jdbcTemplate;
+  private final Map<String, List<Listener>> listeners = new ConcurrentHashMap<>();
+  private NotificationListener listener;
+
+  @Value("${cache-invalidation.enabled:false}")
+  private boolean enabled;
+
+  @Value("${cache-invalidation.reconnect-millis:5000}")
+  private int reconnectMillis;
+
+  public CacheInvalidationBus(
+      NotificationConnectionFactory connectionFactory, JdbcTemplate jdbcTemplate) {
+    this.connectionFactory = connectionFactory;
+    this.jdbcTemplate = jdbcTemplate;
+  }
+
+  /** A cache that is invalidated by the other instances, and after commits on this one. */
+  public interface Listener {
+
+    /**
+     * Forget the entity, without publishing the invalidation again.
+     *
+     * @param id the entity ID
+     */
+    void invalidate(String id);
+
+    /** Forget all entities, as invalidations may have been missed. */
+    void invalidateAll();
+  }
+
+  /**
+   * Register a cache for invalidations of an entity type.
+   *
+   * @param entityType the entity type
+   * @param listener the cache
+   */
+  public void register(String entityType, Listener listener) {
+    listeners.computeIfAbsent(entityType, type -> new CopyOnWriteArrayList<>()).add(listener);
+  }
+
+  /**
+   * Publish invalidations of entities to all instances, once the current transaction commits.
+   *
+   * @param entityType the entity type
+   * @param ids the entity IDs
+   */
+  public void publish(String entityType, Collection<?> ids) {
+    if (ids.isEmpty()) {
+      return;
+    }
+    afterCommit(() -> ids.forEach(id -> invalidate(entityType, id.toString())));
+    if (!enabled) {
+      return;
+    }
+    List<Object> chunk = new ArrayList<>();
+    for (Object id : ids) {
+      chunk.add(id);
+      if (chunk.size() == MAX_IDS_PER_NOTIFICATION) {
+        notify(entityType, chunk);
+        chunk.clear();
+      }
+    }
+    if (!chunk.isEmpty()) {
+      notify(entityType, chunk);
+    }
+  }
+
+  private void notify(String entityType, List<Object> ids) {
+    StringBuilder payload = new StringBuilder(entityType).append(':');
+    for (int i = 0; i < ids.size(); i++) {
+      payload.append(i == 0 ? "" : ",").append(ids.get(i));
+    }
+    jdbcTemplate.query("SELECT pg_notify(?, ?)", rs -> {}, CHANNEL, payload.toString());
+  }
+
+  /** Start listening once the application is ready, if enabled. */
+  @EventListener(ApplicationReadyEvent.class)
+  public synchronized void start() {
+    if (!enabled || listener != null) {
+      return;
+    }
+    listener =
+        new NotificationListener(
+            connectionFactory,
+            CHANNEL,
+            "cache-invalidation-listener",
+            reconnectMillis,
+            new NotificationListener.Handler() {
+              @Override
+              public void listening() {
+                invalidateAll();
+              }
+
+              @Override
+              public void notified(PGNotification[] notifications) {
+                for (PGNotification notification : notifications) {
+                  dispatch(notification.getParameter());
+                }
+              }
+            });
+    listener.start();
+  }
+
+  @PreDestroy
+  public synchronized void stop() {
+    if (listener != null) {
+      listener.stop();
+      listener = null;
+    }
+  }
+
+  /**
+   * Pass the invalidations in a notification payload to the cache registered for their type.
+   *
+   * @param payload the entity type and comma separated IDs, as <code>type:id1,id2</code>
+   */
+  void dispatch(String payload) {
+    int separator = payload.indexOf(':');
+    if (separator < 0 || !listeners.containsKey(payload.substring(0, separator))) {
+      log.warn("Ignoring unrecognised cache invalidation", kv("payload", payload));
+      return;
+    }
+    String entityType = payload.substring(0, separator);
+    for (String id : payload.substring(separator + 1).split(",")) {
+      try {
+        invalidate(entityType, id);
+      } catch (IllegalArgumentException e) {
+        log.warn("Ignoring invalid cache invalidation", kv("payload", payload), e);
+      }
+    }
+  }
+
+  void invalidateAll() {
+    listeners.values().forEach(l -> l.forEach(Listener::invalidateAll));
+  }
+
+  private void invalidate(String entityType, String id) {
+    listeners.getOrDefault(entityType, List.of()).forEach(l -> l.invalidate(id));
+  }
+
+  private void afterCommit(Runnable action) {
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(
+          new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+              action.run();
+            }
+          });
+    } else {
+      action.run();
+    }
+  }
+}
@@ -0,0 +1,45 @@
+package uk.gov.ons.ctp.integration.contactcentresvc.event;
+
+import java.nio.file.Path;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.ExitCodeGenerator;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import uk.gov.ons.ctp.integration.contactcentresvc.config.AppConfig;
+import uk.gov.ons.ctp.integration.contactcentresvc.event.CaseBulkLoader.Result;
+
+/**
+ * Runs a case bulk load when the service is started with <code>queueconfig.bulk-load.file</code>
+ * set, after which the application exits. The exit code is non zero if any cases failed to be
+ * written.
+ *
+ * <p>Bulk loads are run with the <code>bulk-load</code> profile, so that the service does not
+ * subscribe to inbound events or drain the outbox meanwhile.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "queueconfig.bulk-load.file")
+public class CaseBulkLoadRunner implements ApplicationRunner, ExitCodeGenerator {
+  private final CaseBulkLoader loader;
+  private final AppConfig appConfig;
+  private volatile int exitCode;
+
+  public CaseBulkLoadRunner(CaseBulkLoader loader, AppConfig appConfig) {
+    this.loader = loader;
+    this.appConfig = appConfig;
+  }
+
+  @Override
+  public void run(ApplicationArguments args) throws Exception {
+    Path file = Path.of(appConfig.getQueueConfig().getBulkLoad().getFile());
+    Result result = loader.load(file);
+    exitCode = result.getFailed().get() > 0 ? 1 : 0;
+  }
+
+  @Override
+  public int getExitCode() {
+    return exitCode;
+  }
+}
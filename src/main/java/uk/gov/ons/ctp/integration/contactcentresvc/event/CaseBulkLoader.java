@@ -0,0 +1,214 @@
+package uk.gov.ons.ctp.integration.contactcentresvc.event;
+
+import static java.util.stream.Collectors.toList;
+import static uk.gov.ons.ctp.common.log.ScopedStructuredArguments.kv;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.Getter;
+import lombok.ToString;
+import lombok.extern.slf4j.Slf4j;
+import ma.glasnost.orika.MapperFacade;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import uk.gov.ons.ctp.common.event.model.CaseEvent;
+import uk.gov.ons.ctp.common.event.model.CaseUpdate;
+import uk.gov.ons.ctp.common.jackson.CustomObjectMapper;
+import uk.gov.ons.ctp.integration.contactcentresvc.config.AppConfig;
+import uk.gov.ons.ctp.integration.contactcentresvc.config.QueueConfig.BulkLoadConfig;
+import uk.gov.ons.ctp.integration.contactcentresvc.model.CCStatus;
+import uk.gov.ons.ctp.integration.contactcentresvc.model.Case;
+import uk.gov.ons.ctp.integration.contactcentresvc.repository.CaseCache;
+import uk.gov.ons.ctp.integration.contactcentresvc.repository.db.CaseBatchRepository;
+
+/**
+ * Loads case events from a file of newline delimited CaseEvent JSON, such as a dump of the case
+ * topic, to rebuild the cases without RM having to send them all again.
+ *
+ * <p>The file is read in chunks of <code>chunk-size</code> lines, which are parsed, filtered and
+ * mapped exactly as Pub/Sub case events are for the {@link CaseUpdateEventReceiver}, on <code>
+ * threads</code> threads, and each chunk is written with a COPY. As with Pub/Sub updates, an update
+ * older than the stored case is skipped. Lines that cannot be parsed, or whose event is not
+ * accepted by the {@link EventFilter}, are counted as rejects and logged, and do not stop the load.
+ *
+ * <p>The cases of each chunk written are invalidated through the {@link CaseCache}, so that the
+ * serving instances drop their cached copies.
+ */
+@Slf4j
+@Component
+public class CaseBulkLoader {
+  private static final int MAX_LOGGED_REJECTS = 100;
+
+  private final CaseBatchRepository caseBatchRepo;
+  private final CaseCache caseCache;
+  private final MapperFacade mapper;
+  private final EventFilter eventFilter;
+  private final CustomObjectMapper objectMapper;
+  private final BulkLoadConfig config;
+
+  public CaseBulkLoader(
+      CaseBatchRepository caseBatchRepo,
+      CaseCache caseCache,
+      MapperFacade mapper,
+      EventFilter eventFilter,
+      AppConfig appConfig) {
+    this.caseBatchRepo = caseBatchRepo;
+    this.caseCache = caseCache;
+    this.mapper = mapper;
+    this.eventFilter = eventFilter;
+    this.objectMapper = new CustomObjectMapper();
+    this.objectMapper.addMixIn(CaseUpdate.class, CaseUpdateMixIn.class);
+    this.config = appConfig.getQueueConfig().getBulkLoad();
+  }
+
+  /**
+   * Load all the case events in the file.
+   *
+   * @param file the file of newline delimited CaseEvent JSON
+   * @return the outcome of the load
+   * @throws IOException if the file cannot be read
+   * @throws InterruptedException if interrupted while waiting for the load to finish
+   */
+  public Result load(Path file) throws IOException, InterruptedException {
+    log.info("Starting case bulk load", kv("file", file), kv("config", config));
+    int threads = Math.max(1, config.getThreads());
+    int chunkSize = Math.max(1, config.getChunkSize());
+    ExecutorService executor =
+        Executors.newFixedThreadPool(threads, new CustomizableThreadFactory("case-load-"));
+    // limits the chunks held in memory while waiting to be written
+    Semaphore inFlight = new Semaphore(threads * 2);
+    Result result = new Result();
+    long start = System.nanoTime();
+
+    try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+      long lineNumber = 0;
+      long firstLine = 1;
+      List<String> chunk = new ArrayList<>(chunkSize);
+      String line;
+      while ((line = reader.readLine()) != null) {
+        lineNumber++;
+        chunk.add(line);
+        if (chunk.size() == chunkSize) {
+          submit(executor, inFlight, chunk, firstLine, result);
+          chunk = new ArrayList<>(chunkSize);
+          firstLine = lineNumber + 1;
+        }
+      }
+      if (!chunk.isEmpty()) {
+        submit(executor, inFlight, chunk, firstLine, result);
+      }
+    } finally {
+      executor.shutdown();
+      executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+    }
+
+    result.elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    log.info("Finished case bulk load", kv("file", file), kv("result", result));
+    return result;
+  }
+
+  private void submit(
+      ExecutorService executor,
+      Semaphore inFlight,
+      List<String> chunk,
+      long firstLine,
+      Result result)
+      throws InterruptedException {
+    inFlight.acquire();
+    executor.execute(
+        () -> {
+          try {
+            loadChunk(chunk, firstLine, result);
+          } finally {
+            inFlight.release();
+          }
+        });
+  }
+
+  private void loadChunk(List<String> lines, long firstLine, Result result) {
+    List<Case> cases = new ArrayList<>(lines.size());
+    for (int i = 0; i < lines.size(); i++) {
+      String line = lines.get(i);
+      if (line.isBlank()) {
+        continue;
+      }
+      result.events.incrementAndGet();
+      Case caze = toCase(line, firstLine + i, result);
+      if (caze != null) {
+        cases.add(caze);
+      }
+    }
+    try {
+      int written = caseBatchRepo.copyAll(cases);
+      caseCache.invalidate(cases.stream().map(Case::getId).collect(toList()));
+      result.loaded.addAndGet(written);
+      result.stale.addAndGet(cases.size() - written);
+    } catch (Exception e) {
+      result.failed.addAndGet(cases.size());
+      log.error(
+          "Failed to write case bulk load chunk",
+          kv("firstLine", firstLine),
+          kv("cases", cases.size()),
+          e);
+    }
+  }
+
+  private Case toCase(String line, long lineNumber, Result result) {
+    try {
+      CaseEvent caseEvent = objectMapper.readValue(line, CaseEvent.class);
+      CaseUpdate caseUpdate = caseEvent.getPayload().getCaseUpdate();
+      if (!eventFilter.isValidEvent(
+          caseUpdate.getSurveyId(),
+          caseUpdate.getCollectionExerciseId(),
+          caseUpdate.getCaseId(),
+          caseEvent.getHeader().getMessageId().toString())) {
+        result.filtered.incrementAndGet();
+        return null;
+      }
+      Case caze = mapper.map(caseUpdate, Case.class);
+      caze.setCcStatus(CCStatus.READY);
+      return caze;
+    } catch (Exception e) {
+      if (result.rejected.incrementAndGet() <= MAX_LOGGED_REJECTS) {
+        log.warn(
+            "Rejecting case bulk load line", kv("line", lineNumber), kv("error", e.getMessage()));
+      }
+      return null;
+    }
+  }
+
+  /** Outcome of a bulk load. */
+  @Getter
+  @ToString
+  public static class Result {
+    /** non blank lines read */
+    private final AtomicLong events = new AtomicLong();
+    /** cases inserted or updated */
+    private final AtomicLong loaded = new AtomicLong();
+    /** updates that were older than the stored case */
+    private final AtomicLong stale = new AtomicLong();
+    /** events for surveys that are not accepted */
+    private final AtomicLong filtered = new AtomicLong();
+    /** lines that could not be parsed, or were for an unknown survey or collection exercise */
+    private final AtomicLong rejected = new AtomicLong();
+    /** cases in chunks that failed to write */
+    private final AtomicLong failed = new AtomicLong();
+
+    private long elapsedMillis;
+
+    @ToString.Include
+    public long getEventsPerSecond() {
+      return elapsedMillis == 0 ? events.get() : events.get() * 1000 / elapsedMillis;
+    }
+  }
+}
@@ -0,0 +1,199 @@
+package uk.gov.ons.ctp.integration.contactcentresvc.event;
+
+import static java.util.stream.Collectors.toList;
+import static uk.gov.ons.ctp.common.log.ScopedStructuredArguments.kv;
+
+import com.google.cloud.spring.pubsub.support.BasicAcknowledgeablePubsubMessage;
+import com.google.cloud.spring.pubsub.support.GcpPubSubHeaders;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import lombok.extern.slf4j.Slf4j;
+import ma.glasnost.orika.MapperFacade;
+import org.springframework.integration.annotation.MessageEndpoint;
+import org.springframework.integration.annotation.ServiceActivator;
+import org.springframework.messaging.handler.annotation.Header;
+import uk.gov.ons.ctp.common.event.model.CaseEvent;
+import uk.gov.ons.ctp.common.event.model.CaseUpdate;
+import uk.gov.ons.ctp.integration.contactcentresvc.config.AppConfig;
+import uk.gov.ons.ctp.integration.contactcentresvc.model.CCStatus;
+import uk.gov.ons.ctp.integration.contactcentresvc.model.Case;
+import uk.gov.ons.ctp.integration.contactcentresvc.repository.CaseCache;
+import uk.gov.ons.ctp.integration.contactcentresvc.repository.db.CaseBatchRepository;
+
+/**
+ * Batching alternative to the {@link CaseUpdateEventReceiver}, used when <code>
+ * queueconfig.case-batch.enabled</code> is set.
+ *
+ * <p>Case events are collected until there are <code>size</code> of them, or <code>max-wait-millis
+ * </code> has passed, and then written in one transaction with a batch upsert. The Pub/Sub messages
+ * are acknowledged manually, only once the batch has committed. As with single updates, stale
+ * updates are dropped. If the batch fails, the cases are written one at a time, so that a single
+ * bad message is NAKed without holding back the others.
+ *
+ * <p>Redelivered messages are only skipped if they are in the {@link MessageDeduplicator}'s memory,
+ * as the processed message IDs are recorded after each batch rather than within its transaction.
+ *
+ * <p>Each event is counted in the {@link InboundEventMetrics} once it is acknowledged. The events
+ * in a batch are all counted as accepted, with any stale updates only counted in total. The cases
+ * in a batch are dropped from the {@link CaseCache} once it has committed.
+ */
+@Slf4j
+@MessageEndpoint
+public class CaseUpdateBatchReceiver extends BatchingEventReceiver<CaseEvent> {
+  private final CaseBatchRepository caseBatchRepo;
+  private final MapperFacade mapper;
+  private final EventFilter eventFilter;
+  private final MessageDeduplicator deduplicator;
+  private final InboundEventMetrics metrics;
+  private final CaseCache caseCache;
+  private final Counter staleUpdates;
+
+  public CaseUpdateBatchReceiver(
+      CaseBatchRepository caseBatchRepo,
+      MapperFacade mapper,
+      EventFilter eventFilter,
+      MessageDeduplicator deduplicator,
+      InboundEventMetrics metrics,
+      CaseCache caseCache,
+      AppConfig appConfig,
+      MeterRegistry meterRegistry) {
+    super("case", appConfig.getQueueConfig().getCaseBatch());
+    this.caseBatchRepo = caseBatchRepo;
+    this.mapper = mapper;
+    this.eventFilter = eventFilter;
+    this.deduplicator = deduplicator;
+    this.metrics = metrics;
+    this.caseCache = caseCache;
+    this.staleUpdates = meterRegistry.counter(CaseUpdateEventReceiver.STALE_UPDATES_METRIC);
+  }
+
+  /**
+   * Message end point for events from Response Management, when batching.
+   *
+   * @param caseEvent CaseEvent message from Response Management
+   * @param message the original Pub/Sub message, to acknowledge once the case is stored
+   */
+  @ServiceActivator(inputChannel = "acceptCaseEventBatch")
+  public void acceptEvent(
+      CaseEvent caseEvent,
+      @Header(GcpPubSubHeaders.ORIGINAL_MESSAGE) BasicAcknowledgeablePubsubMessage message) {
+    add(caseEvent, message);
+  }
+
+  @Override
+  protected void write(List<PendingEvent<CaseEvent>> batch) {
+    List<PendingCase> accepted = new ArrayList<>();
+    for (PendingEvent<CaseEvent> pendingEvent : batch) {
+      Case caze = accept(pendingEvent);
+      if (caze != null) {
+        accepted.add(new PendingCase(pendingEvent, caze));
+      }
+    }
+    if (accepted.isEmpty()) {
+      return;
+    }
+
+    List<Case> cases = new ArrayList<>();
+    accepted.forEach(p -> cases.add(p.caze));
+    try {
+      int stale =
+          metrics
+              .batchWriteTimer(InboundEventMetrics.CASE)
+              .recordCallable(() -> caseBatchRepo.upsertAll(cases));
+      caseCache.invalidate(cases.stream().map(Case::getId).collect(toList()));
+      accepted.forEach(p -> p.pendingEvent.message.ack());
+      recordProcessed(accepted);
+      staleUpdates.increment(stale);
+      accepted.forEach(p -> record(p.pendingEvent, InboundEventMetrics.ACCEPTED));
+      log.debug(
+          "Successfully saved batch of cases to database",
+          kv("count", cases.size()),
+          kv("stale", stale));
+    } catch (Exception e) {
+      log.warn("Case batch failed, saving cases individually", kv("count", cases.size()), e);
+      accepted.forEach(this::writeOne);
+    }
+  }
+
+  /**
+   * Filter and map the case event, acknowledging events that we are not interested in.
+   *
+   * @return the case to write, or null if there is nothing to write
+   */
+  private Case accept(PendingEvent<CaseEvent> pendingEvent) {
+    CaseUpdate caseUpdate = pendingEvent.event.getPayload().getCaseUpdate();
+    UUID messageId = pendingEvent.event.getHeader().getMessageId();
+    try {
+      if (deduplicator.isRecentlyProcessed(messageId)) {
+        pendingEvent.message.ack();
+        record(pendingEvent, InboundEventMetrics.DUPLICATE);
+        return null;
+      }
+      if (!eventFilter.isValidEvent(
+          caseUpdate.getSurveyId(),
+          caseUpdate.getCollectionExerciseId(),
+          caseUpdate.getCaseId(),
+          messageId.toString())) {
+        pendingEvent.message.ack();
+        record(pendingEvent, InboundEventMetrics.FILTERED);
+        return null;
+      }
+      Case caze = mapper.map(caseUpdate, Case.class);
+      caze.setCcStatus(CCStatus.READY);
+      return caze;
+    } catch (Exception e) {
+      log.error("Case Event processing failed", kv("messageId", messageId), e);
+      pendingEvent.message.nack();
+      record(pendingEvent, InboundEventMetrics.FAILED);
+      return null;
+    }
+  }
+
+  private void writeOne(PendingCase pendingCase) {
+    UUID messageId = pendingCase.pendingEvent.event.getHeader().getMessageId();
+    try {
+      boolean written = caseBatchRepo.upsert(pendingCase.caze);
+      if (written) {
+        caseCache.invalidate(pendingCase.caze.getId());
+      } else {
+        staleUpdates.increment();
+      }
+      deduplicator.recordProcessed(List.of(messageId));
+      pendingCase.pendingEvent.message.ack();
+      record(
+          pendingCase.pendingEvent,
+          written ? InboundEventMetrics.ACCEPTED : InboundEventMetrics.STALE);
+    } catch (Exception e) {
+      log.error("Case Event processing failed", kv("messageId", messageId), e);
+      pendingCase.pendingEvent.message.nack();
+      record(pendingCase.pendingEvent, InboundEventMetrics.FAILED);
+    }
+  }
+
+  private void record(PendingEvent<CaseEvent> pendingEvent, String outcome) {
+    metrics.record(InboundEventMetrics.CASE, pendingEvent.event.getHeader(), outcome);
+  }
+
+  private void recordProcessed(List<PendingCase> written) {
+    List<UUID> messageIds = new ArrayList<>();
+    written.forEach(p -> messageIds.add(p.pendingEvent.event.getHeader().getMessageId()));
+    try {
+      deduplicator.recordProcessed(messageIds);
+    } catch (Exception e) {
+      log.warn("Failed to record processed messages", kv("count", messageIds.size()), e);
+    }
+  }
+
+  private static class PendingCase {
+    private final PendingEvent<CaseEvent> pendingEvent;
+    private final Case caze;
+
+    PendingCase(PendingEvent<CaseEvent> pendingEvent, Case caze) {
+      this.pendingEvent = pendingEvent;
+      this.caze = caze;
+    }
+  }
+}
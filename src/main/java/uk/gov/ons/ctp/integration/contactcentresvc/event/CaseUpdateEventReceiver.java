@@ -2,6 +2,8 @@ package uk.gov.ons.ctp.integration.contactcentresvc.event;
 
 import static uk.gov.ons.ctp.common.log.ScopedStructuredArguments.kv;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import java.util.UUID;
 import lombok.extern.slf4j.Slf4j;
 import ma.glasnost.orika.MapperFacade;
@@ -11,9 +13,11 @@ import org.springframework.transaction.annotation.Transactional;
 import uk.gov.ons.ctp.common.error.CTPException;
 import uk.gov.ons.ctp.common.event.model.CaseEvent;
 import uk.gov.ons.ctp.common.event.model.CaseUpdate;
+import uk.gov.ons.ctp.integration.contactcentresvc.event.InboundEventMetrics.Recording;
 import uk.gov.ons.ctp.integration.contactcentresvc.model.CCStatus;
 import uk.gov.ons.ctp.integration.contactcentresvc.model.Case;
-import uk.gov.ons.ctp.integration.contactcentresvc.repository.db.CaseRepository;
+import uk.gov.ons.ctp.integration.contactcentresvc.repository.CaseCache;
+import uk.gov.ons.ctp.integration.contactcentresvc.repository.db.CaseBatchRepository;
 
 /**
  * Service implementation responsible for receipt of Case Events. See Spring Integration flow for
@@ -22,20 +26,41 @@ import uk.gov.ons.ctp.integration.contactcentresvc.repository.db.CaseRepository;
 @Slf4j
 @MessageEndpoint
 public class CaseUpdateEventReceiver {
-  private CaseRepository caseRepo;
+  static final String STALE_UPDATES_METRIC = "inbound.case.stale";
+
+  private CaseBatchRepository caseBatchRepo;
   private MapperFacade mapper;
   private EventFilter eventFilter;
+  private MessageDeduplicator deduplicator;
+  private InboundEventMetrics metrics;
+  private CaseCache caseCache;
+  private Counter staleUpdates;
 
   public CaseUpdateEventReceiver(
-      CaseRepository caseRepo, MapperFacade mapper, EventFilter eventFilter) {
-    this.caseRepo = caseRepo;
+      CaseBatchRepository caseBatchRepo,
+      MapperFacade mapper,
+      EventFilter eventFilter,
+      MessageDeduplicator deduplicator,
+      InboundEventMetrics metrics,
+      CaseCache caseCache,
+      MeterRegistry meterRegistry) {
+    this.caseBatchRepo = caseBatchRepo;
     this.mapper = mapper;
     this.eventFilter = eventFilter;
+    this.deduplicator = deduplicator;
+    this.metrics = metrics;
+    this.caseCache = caseCache;
+    this.staleUpdates = meterRegistry.counter(STALE_UPDATES_METRIC);
   }
 
   /**
    * Message end point for events from Response Management.
    *
+   * <p>Redelivered messages are skipped. The case is only written if the update is newer than the
+   * stored case. Stale updates, from out of order messages, are counted and dropped. The outcome of
+   * each event is recorded in the {@link InboundEventMetrics}, and an updated case is dropped from
+   * the {@link CaseCache} once it commits.
+   *
    * @param caseEvent CaseEvent message from Response Management
    */
   @ServiceActivator(inputChannel = "acceptCaseEvent")
@@ -45,29 +70,46 @@ public class CaseUpdateEventReceiver {
     CaseUpdate caseUpdate = caseEvent.getPayload().getCaseUpdate();
     UUID caseMessageId = caseEvent.getHeader().getMessageId();
 
-    log.info(
+    log.debug(
         "Entering acceptCaseEvent {}, {}",
         kv("messageId", caseMessageId),
         kv("caseId", caseUpdate.getCaseId()));
 
-    if (eventFilter.isValidEvent(
+    Recording recording = metrics.start(InboundEventMetrics.CASE, caseEvent.getHeader());
+    if (!deduplicator.claim(caseMessageId)) {
+      recording.complete(InboundEventMetrics.DUPLICATE);
+      return;
+    }
+
+    if (!eventFilter.isValidEvent(
         caseUpdate.getSurveyId(),
         caseUpdate.getCollectionExerciseId(),
         caseUpdate.getCaseId(),
         caseMessageId.toString())) {
-      try {
-        Case caze = mapper.map(caseUpdate, Case.class);
-        caze.setCcStatus(CCStatus.READY);
-        caseRepo.saveAndFlush(caze);
-
-        log.info(
+      recording.complete(InboundEventMetrics.FILTERED);
+      return;
+    }
+    try {
+      Case caze = mapper.map(caseUpdate, Case.class);
+      caze.setCcStatus(CCStatus.READY);
+      if (caseBatchRepo.upsert(caze)) {
+        caseCache.invalidate(caze.getId());
+        recording.complete(InboundEventMetrics.ACCEPTED);
+        log.debug(
             "Successful saved Case to database {}, {}",
             kv("messageId", caseMessageId),
             kv("caseId", caseUpdate.getCaseId()));
-      } catch (Exception e) {
-        log.error("Case Event processing failed", kv("messageId", caseMessageId), e);
-        throw e;
+      } else {
+        staleUpdates.increment();
+        recording.complete(InboundEventMetrics.STALE);
+        log.debug(
+            "Ignoring stale Case update {}, {}",
+            kv("messageId", caseMessageId),
+            kv("caseId", caseUpdate.getCaseId()));
       }
+    } catch (Exception e) {
+      log.error("Case Event processing failed", kv("messageId", caseMessageId), e);
+      throw e;
     }
   }
 }
@@ -0,0 +1,19 @@
+package uk.gov.ons.ctp.integration.contactcentresvc.event;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import java.util.Map;
+import uk.gov.ons.ctp.common.event.model.CaseUpdate;
+import uk.gov.ons.ctp.integration.contactcentresvc.util.RawJsonMapDeserializer;
+
+/**
+ * Jackson mix-in for inbound {@link CaseUpdate}s, which keeps the sample attributes as JSON text.
+ * They are passed through to the case unchanged, and written to the database as they are.
+ */
+public abstract class CaseUpdateMixIn {
+
+  @JsonDeserialize(using = RawJsonMapDeserializer.class)
+  abstract void setSample(Map<String, String> sample);
+
+  @JsonDeserialize(using = RawJsonMapDeserializer.class)
+  abstract void setSampleSensitive(Map<String, String> sampleSensitive);
+}
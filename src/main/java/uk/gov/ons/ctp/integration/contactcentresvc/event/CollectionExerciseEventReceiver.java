@@ -8,6 +8,7 @@ import org.springframework.integration.annotation.MessageEndpoint;
 import org.springframework.integration.annotation.ServiceActivator;
 import org.springframework.transaction.annotation.Transactional;
 import uk.gov.ons.ctp.common.event.model.CollectionExerciseUpdateEvent;
+import uk.gov.ons.ctp.integration.contactcentresvc.event.InboundEventMetrics.Recording;
 import uk.gov.ons.ctp.integration.contactcentresvc.model.CollectionExercise;
 import uk.gov.ons.ctp.integration.contactcentresvc.repository.db.CollectionExerciseRepository;
 
@@ -18,10 +19,18 @@ public class CollectionExerciseEventReceiver {
 
   private CollectionExerciseRepository repo;
   private MapperFacade mapper;
+  private ReferenceDataCache referenceDataCache;
+  private InboundEventMetrics metrics;
 
-  public CollectionExerciseEventReceiver(CollectionExerciseRepository repo, MapperFacade mapper) {
+  public CollectionExerciseEventReceiver(
+      CollectionExerciseRepository repo,
+      MapperFacade mapper,
+      ReferenceDataCache referenceDataCache,
+      InboundEventMetrics metrics) {
     this.repo = repo;
     this.mapper = mapper;
+    this.referenceDataCache = referenceDataCache;
+    this.metrics = metrics;
   }
 
   /**
@@ -35,15 +44,18 @@ public class CollectionExerciseEventReceiver {
 
     var payload = event.getPayload().getCollectionExerciseUpdate();
 
-    log.info(
+    log.debug(
         "Entering acceptCollectionExerciseUpdateEvent",
         kv("messageId", event.getHeader().getMessageId()),
         kv("collectionExerciseId", payload.getCollectionExerciseId()),
         kv("surveyId", payload.getSurveyId()));
 
+    Recording recording = metrics.start(InboundEventMetrics.COLLECTION_EXERCISE, event.getHeader());
     try {
       CollectionExercise entity = mapper.map(payload, CollectionExercise.class);
       repo.saveAndFlush(entity);
+      referenceDataCache.refreshCollectionExercise(entity.getId());
+      recording.complete(InboundEventMetrics.ACCEPTED);
     } catch (Exception e) {
       log.error(
           "CollectionExercise Event processing failed",
@@ -0,0 +1,119 @@
+package uk.gov.ons.ctp.integration.contactcentresvc.event;
+
+import static uk.gov.ons.ctp.common.log.ScopedStructuredArguments.kv;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Optional fast path for outbound events, which publishes each event as soon as the business
+ * transaction that stored it has committed, rather than waiting for the drain workers.
+ *
+ * <p>The event_to_send row remains the durable record: it is only deleted once the publish has
+ * succeeded, so if the publish fails, or the process dies, the drain workers will still send it.
+ * For the same reason, once <code>scheduler.fast-path-queue-size</code> events are waiting to be
+ * published, any more are left for the drain workers rather than queued in memory, and counted by
+ * <code>outbox.fast-path.skipped</code>.
+ */
+@Slf4j
+@Component
+public class EventFastPathPublisher {
+  private final EventToSendProcessor processor;
+  private final ExecutorService executor;
+  private final Counter skipped;
+
+  @Value("${scheduler.fast-path-enabled:false}")
+  private boolean enabled;
+
+  public EventFastPathPublisher(
+      EventToSendProcessor processor,
+      MeterRegistry meterRegistry,
+      @Value("${scheduler.fast-path-threads:4}") int numThreads,
+      @Value("${scheduler.fast-path-queue-size:1000}") int queueSize) {
+    this.processor = processor;
+    this.skipped = meterRegistry.counter("outbox.fast-path.skipped");
+    int threads = Math.max(1, numThreads);
+    this.executor =
+        new ThreadPoolExecutor(
+            threads,
+            threads,
+            0L,
+            TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(Math.max(1, queueSize)),
+            new CustomizableThreadFactory("outbox-fast-path-"),
+            this::skip);
+  }
+
+  /**
+   * Arrange for the event to be published once the current transaction commits, or straight away if
+   * there is no current transaction (in which case the event has already been committed).
+   *
+   * @param eventId the ID of the stored event to send
+   */
+  public void publishAfterCommit(UUID eventId) {
+    if (!enabled) {
+      return;
+    }
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(
+          new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+              submit(eventId);
+            }
+          });
+    } else {
+      submit(eventId);
+    }
+  }
+
+  private void submit(UUID eventId) {
+    executor.execute(new FastPublish(eventId));
+  }
+
+  private void skip(Runnable task, ThreadPoolExecutor executor) {
+    skipped.increment();
+    log.debug(
+        "Fast path queue full or shut down, event left to the drain workers",
+        kv("eventId", ((FastPublish) task).eventId));
+  }
+
+  private void publish(UUID eventId) {
+    try {
+      processor.processEvent(eventId);
+    } catch (Exception e) {
+      log.warn(
+          "Fast publish failed, event will be sent from the outbox", kv("eventId", eventId), e);
+    }
+  }
+
+  private class FastPublish implements Runnable {
+    private final UUID eventId;
+
+    FastPublish(UUID eventId) {
+      this.eventId = eventId;
+    }
+
+    @Override
+    public void run() {
+      publish(eventId);
+    }
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    executor.shutdown();
+  }
+}
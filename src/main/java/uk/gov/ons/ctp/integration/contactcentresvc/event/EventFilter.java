@@ -2,6 +2,9 @@ package uk.gov.ons.ctp.integration.contactcentresvc.event;
 
 import static uk.gov.ons.ctp.common.log.ScopedStructuredArguments.kv;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
 import lombok.extern.slf4j.Slf4j;
@@ -12,39 +15,73 @@ import uk.gov.ons.ctp.integration.contactcentresvc.model.Survey;
 import uk.gov.ons.ctp.integration.contactcentresvc.repository.db.CollectionExerciseRepository;
 import uk.gov.ons.ctp.integration.contactcentresvc.repository.db.SurveyRepository;
 
+/**
+ * Checks that inbound events are for an accepted survey type and a known collection exercise. The
+ * outcome of each check is cached in the {@link ReferenceDataCache}.
+ *
+ * <p>Rejected events are counted in <code>inbound.filter.rejected</code>, by reason: surveyType for
+ * events discarded as they are not for an accepted survey type, and unknownSurvey or
+ * unknownCollectionExercise for events that are NAKed.
+ */
 @Slf4j
 @Component
 public class EventFilter {
+  static final String REJECTED_METRIC = "inbound.filter.rejected";
 
   private final AppConfig appConfig;
   private final SurveyRepository surveyRepository;
   private final CollectionExerciseRepository collectionExerciseRepository;
+  private final ReferenceDataCache referenceDataCache;
+  private final Counter surveyTypeRejects;
+  private final Counter unknownSurveyRejects;
+  private final Counter unknownCollexRejects;
 
   public EventFilter(
       AppConfig appConfig,
       SurveyRepository surveyRepository,
-      CollectionExerciseRepository collectionExerciseRepository) {
+      CollectionExerciseRepository collectionExerciseRepository,
+      ReferenceDataCache referenceDataCache,
+      MeterRegistry meterRegistry) {
     this.appConfig = appConfig;
     this.surveyRepository = surveyRepository;
     this.collectionExerciseRepository = collectionExerciseRepository;
+    this.referenceDataCache = referenceDataCache;
+    this.surveyTypeRejects = meterRegistry.counter(REJECTED_METRIC, "reason", "surveyType");
+    this.unknownSurveyRejects = meterRegistry.counter(REJECTED_METRIC, "reason", "unknownSurvey");
+    this.unknownCollexRejects =
+        meterRegistry.counter(REJECTED_METRIC, "reason", "unknownCollectionExercise");
   }
 
   public boolean isValidEvent(String surveyId, String collexId, String caseId, String messageId)
       throws CTPException {
 
-    log.info("Entering acceptCaseEvent {}, {}", kv("messageId", messageId), kv("caseId", caseId));
+    log.debug("Entering acceptCaseEvent {}, {}", kv("messageId", messageId), kv("caseId", caseId));
 
-    Survey survey = findSurvey(surveyId, messageId, caseId);
+    return isAcceptedSurvey(UUID.fromString(surveyId), messageId, caseId)
+        && isKnownCollectionExercise(UUID.fromString(collexId), messageId, caseId);
+  }
 
-    return isAcceptedSurveyType(survey, messageId, caseId)
-        && isKnownCollectionExercise(collexId, messageId, caseId);
+  private boolean isAcceptedSurvey(UUID surveyId, String messageId, String caseId)
+      throws CTPException {
+    Optional<Boolean> cached = referenceDataCache.getSurveyAccepted(surveyId);
+    if (cached.isPresent()) {
+      if (!cached.get()) {
+        logNotAcceptedSurveyType(messageId, caseId);
+      }
+      return cached.get();
+    }
+    Survey survey = findSurvey(surveyId, messageId, caseId);
+    boolean accepted = isAcceptedSurveyType(survey, messageId, caseId);
+    referenceDataCache.putSurvey(surveyId, accepted);
+    return accepted;
   }
 
-  private Survey findSurvey(String surveyId, String messageId, String caseId) throws CTPException {
+  private Survey findSurvey(UUID surveyId, String messageId, String caseId) throws CTPException {
     return surveyRepository
-        .findById(UUID.fromString(surveyId))
+        .findById(surveyId)
         .orElseThrow(
             () -> {
+              unknownSurveyRejects.increment();
               log.warn(
                   "Survey unknown - NAKing message",
                   kv("messageId", messageId),
@@ -62,19 +99,28 @@ public class EventFilter {
         }
       }
     }
+    logNotAcceptedSurveyType(messageId, caseId);
+    return false;
+  }
+
+  private void logNotAcceptedSurveyType(String messageId, String caseId) {
+    surveyTypeRejects.increment();
     log.warn(
         "Survey is not an accepted survey type - discarding message",
         kv("messageId", messageId),
         kv("caseId", caseId));
-    return false;
   }
 
-  private boolean isKnownCollectionExercise(String collexId, String messageId, String caseId)
+  private boolean isKnownCollectionExercise(UUID collexId, String messageId, String caseId)
       throws CTPException {
+    if (referenceDataCache.isKnownCollectionExercise(collexId)) {
+      return true;
+    }
     collectionExerciseRepository
-        .findById(UUID.fromString(collexId))
+        .findById(collexId)
         .orElseThrow(
             () -> {
+              unknownCollexRejects.increment();
               log.warn(
                   "CollectionExercise unknown - NAKing message",
                   kv("messageId", messageId),
@@ -82,6 +128,7 @@ public class EventFilter {
               return new CTPException(
                   CTPException.Fault.VALIDATION_FAILED, "CollectionExercise unknown");
             });
+    referenceDataCache.putCollectionExercise(collexId);
     return true;
   }
 }
@@ -0,0 +1,32 @@
+package uk.gov.ons.ctp.integration.contactcentresvc.event;
+
+/**
+ * Encodes event payloads for storage in the payload_bytes column of the event_to_send table, and
+ * decodes them again for publishing.
+ */
+public interface EventPayloadCodec {
+
+  /**
+   * Get the format name, which is stored alongside each encoded payload so that it can be decoded
+   * by the same codec, whatever the configured format is by then.
+   *
+   * @return the format name
+   */
+  String getFormat();
+
+  /**
+   * Encode the payload.
+   *
+   * @param payload the JSON payload
+   * @return the encoded bytes
+   */
+  byte[] encode(String payload);
+
+  /**
+   * Decode the payload.
+   *
+   * @param encoded the encoded bytes
+   * @return the JSON payload
+   */
+  String decode(byte[] encoded);
+}
@@ -0,0 +1,78 @@
+package uk.gov.ons.ctp.integration.contactcentresvc.event;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import uk.gov.ons.ctp.integration.contactcentresvc.model.EventToSend;
+
+/**
+ * Writes and reads the payload of an event_to_send row, using the format configured by <code>
+ * scheduler.payload-format</code>.
+ *
+ * <p>The TEXT format stores the JSON in the payload column, as before. Any other format names an
+ * {@link EventPayloadCodec}, and the encoded payload is stored in the payload_bytes column along
+ * with the format name. Rows are always read using the format they were written with, so the
+ * configured format can be changed while there are events waiting to be sent.
+ */
+@Slf4j
+@Component
+public class EventPayloadCodecs {
+  public static final String TEXT = "TEXT";
+
+  private final Map<String, EventPayloadCodec> codecs;
+  private final EventPayloadCodec writeCodec;
+
+  public EventPayloadCodecs(
+      List<EventPayloadCodec> codecs,
+      @Value("${scheduler.payload-format:" + TEXT + "}") String format) {
+    this.codecs =
+        codecs.stream()
+            .collect(Collectors.toMap(EventPayloadCodec::getFormat, Function.identity()));
+    if (TEXT.equals(format)) {
+      this.writeCodec = null;
+    } else {
+      this.writeCodec = codecFor(format);
+    }
+    log.info("Outbox payload format: {}", format);
+  }
+
+  /**
+   * Store the payload on the event, in the configured format.
+   *
+   * @param event the event to send
+   * @param payload the JSON payload
+   */
+  public void write(EventToSend event, String payload) {
+    if (writeCodec == null) {
+      event.setPayload(payload);
+    } else {
+      event.setPayloadBytes(writeCodec.encode(payload));
+      event.setPayloadFormat(writeCodec.getFormat());
+    }
+  }
+
+  /**
+   * Get the JSON payload of the event, whichever format it was stored in.
+   *
+   * @param event the event to send
+   * @return the JSON payload
+   */
+  public String read(EventToSend event) {
+    if (event.getPayloadFormat() == null) {
+      return event.getPayload();
+    }
+    return codecFor(event.getPayloadFormat()).decode(event.getPayloadBytes());
+  }
+
+  private EventPayloadCodec codecFor(String format) {
+    EventPayloadCodec codec = codecs.get(format);
+    if (codec == null) {
+      throw new IllegalArgumentException("Unknown event payload format: " + format);
+    }
+    return codec;
+  }
+}
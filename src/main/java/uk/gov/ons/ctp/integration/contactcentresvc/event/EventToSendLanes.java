@@ -0,0 +1,103 @@
+package uk.gov.ons.ctp.integration.contactcentresvc.event;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiFunction;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import uk.gov.ons.ctp.integration.contactcentresvc.config.AppConfig;
+import uk.gov.ons.ctp.integration.contactcentresvc.config.SchedulerConfig;
+import uk.gov.ons.ctp.integration.contactcentresvc.config.SchedulerConfig.LaneConfig;
+
+/**
+ * Priority lanes for the event_to_send outbox, configured by <code>scheduler.lanes</code>.
+ *
+ * <p>Each event is stored with the number of its lane, where lane 0 is the highest priority, and
+ * any event types not configured go into the final default lane. Each chunk is shared between the
+ * lanes in proportion to their weights, so urgent events are sent first, but a burst of them cannot
+ * starve the other lanes.
+ */
+@Slf4j
+@Component
+public class EventToSendLanes {
+  private final List<Lane> lanes;
+  private final Map<String, Integer> laneByType = new HashMap<>();
+
+  public EventToSendLanes(AppConfig appConfig) {
+    SchedulerConfig config = appConfig.getScheduler();
+    List<Lane> configured = new ArrayList<>();
+    if (config != null) {
+      for (LaneConfig laneConfig : config.getLanes()) {
+        int number = configured.size();
+        configured.add(new Lane(number, Math.max(1, laneConfig.getWeight()), false));
+        for (String type : laneConfig.getTypes()) {
+          laneByType.putIfAbsent(type, number);
+        }
+      }
+    }
+    int defaultWeight = config == null ? 1 : Math.max(1, config.getDefaultLaneWeight());
+    configured.add(new Lane(configured.size(), defaultWeight, true));
+    this.lanes = Collections.unmodifiableList(configured);
+    log.info("Outbox lanes: {}, event types: {}", lanes, laneByType);
+  }
+
+  /**
+   * Get the lanes, highest priority first.
+   *
+   * @return the lanes
+   */
+  public List<Lane> getLanes() {
+    return lanes;
+  }
+
+  /**
+   * Get the lane number for an event type.
+   *
+   * @param type the event type
+   * @return the lane number
+   */
+  public int laneFor(String type) {
+    return laneByType.getOrDefault(type, lanes.size() - 1);
+  }
+
+  /**
+   * Share a chunk between the lanes in proportion to their weights. Any of a lane's share that it
+   * cannot fill is passed on to the lanes that follow it.
+   *
+   * @param <T> the type of item claimed
+   * @param chunkSize the number of items to claim for the chunk
+   * @param claimer claims up to the given number of items from the given lane
+   * @return the items claimed from all the lanes, highest priority lane first
+   */
+  public <T> List<T> claimChunk(int chunkSize, BiFunction<Lane, Integer, List<T>> claimer) {
+    List<T> claimed = new ArrayList<>();
+    int remainingWeight = lanes.stream().mapToInt(Lane::getWeight).sum();
+    for (Lane lane : lanes) {
+      int remaining = chunkSize - claimed.size();
+      if (remaining <= 0) {
+        break;
+      }
+      int share = (int) Math.ceil((double) remaining * lane.getWeight() / remainingWeight);
+      claimed.addAll(claimer.apply(lane, share));
+      remainingWeight -= lane.getWeight();
+    }
+    return claimed;
+  }
+
+  /** A priority lane. */
+  @Value
+  public static class Lane {
+    int number;
+    int weight;
+
+    /**
+     * Whether this is the default lane, which also drains any events stored with a higher lane
+     * number, for lanes that have since been removed from the configuration.
+     */
+    boolean defaultLane;
+  }
+}
@@ -0,0 +1,101 @@
+package uk.gov.ons.ctp.integration.contactcentresvc.event;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import uk.gov.ons.ctp.common.event.TopicType;
+import uk.gov.ons.ctp.integration.contactcentresvc.repository.db.EventToSendRepository;
+import uk.gov.ons.ctp.integration.contactcentresvc.repository.db.EventToSendRepository.TypeBacklog;
+
+/**
+ * Reports how far behind the event_to_send outbox is, as gauges for each event type:
+ *
+ * <ul>
+ *   <li><code>outbox.depth</code> - the number of events waiting to be sent
+ *   <li><code>outbox.lag</code> - the age in seconds of the oldest event waiting to be sent
+ * </ul>
+ *
+ * <p>The backlog is read from the database every <code>scheduler.metrics-refresh-millis</code>,
+ * rather than each time the gauges or {@link #getBacklog()} are read.
+ */
+@Slf4j
+@Component
+public class EventToSendMetrics {
+  private final EventToSendRepository eventToSendRepository;
+  private volatile Map<String, TypeLag> backlog = Collections.emptyMap();
+
+  public EventToSendMetrics(
+      EventToSendRepository eventToSendRepository, MeterRegistry meterRegistry) {
+    this.eventToSendRepository = eventToSendRepository;
+    for (TopicType type : TopicType.values()) {
+      String typeName = type.name();
+      Gauge.builder("outbox.depth", this, m -> m.lagFor(typeName).getDepth())
+          .tag("type", typeName)
+          .register(meterRegistry);
+      Gauge.builder("outbox.lag", this, m -> m.lagFor(typeName).getLagSeconds())
+          .tag("type", typeName)
+          .baseUnit("seconds")
+          .register(meterRegistry);
+    }
+  }
+
+  /**
+   * Read the current backlog from the database.
+   *
+   * @return the lag for each event type with events waiting, keyed by event type
+   */
+  public Map<String, TypeLag> refresh() {
+    LocalDateTime now = LocalDateTime.now();
+    Map<String, TypeLag> latest = new TreeMap<>();
+    for (TypeBacklog typeBacklog : eventToSendRepository.findBacklogByType()) {
+      long lagSeconds = Duration.between(typeBacklog.getOldest(), now).toSeconds();
+      latest.put(
+          typeBacklog.getType(),
+          new TypeLag(typeBacklog.getDepth(), typeBacklog.getOldest(), Math.max(0, lagSeconds)));
+    }
+    backlog = Collections.unmodifiableMap(latest);
+    return backlog;
+  }
+
+  /**
+   * Get the backlog as of the last refresh, without reading the database.
+   *
+   * @return the lag for each event type with events waiting, keyed by event type
+   */
+  public Map<String, TypeLag> getBacklog() {
+    return backlog;
+  }
+
+  @Scheduled(
+      initialDelayString = "${scheduler.metrics-refresh-millis:30000}",
+      fixedDelayString = "${scheduler.metrics-refresh-millis:30000}")
+  public void scheduledRefresh() {
+    try {
+      refresh();
+    } catch (Exception e) {
+      log.warn("Failed to read outbox backlog", e);
+    }
+  }
+
+  private TypeLag lagFor(String type) {
+    return backlog.getOrDefault(type, TypeLag.NONE);
+  }
+
+  /** The backlog of events waiting to be sent, for one event type. */
+  @Value
+  public static class TypeLag {
+    static final TypeLag NONE = new TypeLag(0, null, 0);
+
+    long depth;
+    LocalDateTime oldest;
+    long lagSeconds;
+  }
+}
@@ -0,0 +1,69 @@
+package uk.gov.ons.ctp.integration.contactcentresvc.event;
+
+import org.postgresql.PGNotification;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Listens for postgres notifications that new events have been committed to the event_to_send
+ * table, so that the drain workers can be woken immediately rather than waiting for their next
+ * poll.
+ *
+ * <p>It listens with a {@link NotificationListener}. If its connection fails, it reconnects after
+ * <code>scheduler.fixed-delay-millis</code>; meanwhile the drain workers carry on polling.
+ */
+@Component
+public class EventToSendNotificationListener {
+  public static final String CHANNEL = "cc_event_to_send";
+
+  private final NotificationConnectionFactory connectionFactory;
+  private NotificationListener listener;
+
+  @Value("${scheduler.notify-enabled:false}")
+  private boolean enabled;
+
+  @Value("${scheduler.fixed-delay-millis}")
+  private int pollMillis;
+
+  public EventToSendNotificationListener(NotificationConnectionFactory connectionFactory) {
+    this.connectionFactory = connectionFactory;
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * Start listening, if enabled.
+   *
+   * @param onNotify called each time one or more notifications are received
+   */
+  public synchronized void start(Runnable onNotify) {
+    if (!enabled || listener != null) {
+      return;
+    }
+    listener =
+        new NotificationListener(
+            connectionFactory,
+            CHANNEL,
+            "outbox-listener",
+            pollMillis,
+            new NotificationListener.Handler() {
+              @Override
+              public void listening() {}
+
+              @Override
+              public void notified(PGNotification[] notifications) {
+                onNotify.run();
+              }
+            });
+    listener.start();
+  }
+
+  public synchronized void stop() {
+    if (listener != null) {
+      listener.stop();
+      listener = null;
+    }
+  }
+}
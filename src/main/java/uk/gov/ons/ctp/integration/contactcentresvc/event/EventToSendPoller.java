@@ -1,38 +1,173 @@
 package uk.gov.ons.ctp.integration.contactcentresvc.event;
 
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.stereotype.Component;
 
+/**
+ * Drains the event_to_send outbox table.
+ *
+ * <p>A configurable number of drain workers run on each pod. Each worker claims chunks using the
+ * processor, which claims rows with "FOR UPDATE SKIP LOCKED" in its own transaction, so the workers
+ * (both within this pod and across pods) never contend for the same rows. When a worker finds the
+ * table empty it backs off, doubling its idle delay from <code>scheduler.min-delay-millis</code> up
+ * to <code>scheduler.fixed-delay-millis</code>.
+ *
+ * <p>When postgres notifications are enabled, idle workers are woken as soon as new events are
+ * committed, and the back-off polling is just a fallback.
+ *
+ * <p>The outbox is not drained while running a bulk load, with the <code>bulk-load</code> profile.
+ */
 @Slf4j
 @Component
+@Profile("!bulk-load")
 public class EventToSendPoller {
   private final EventToSendProcessor processor;
+  private final EventToSendNotificationListener notificationListener;
+  private final Object idleMonitor = new Object();
+  private ExecutorService drainExecutor;
+  private volatile boolean running;
+  private long wakeGeneration;
 
   @Value("${scheduler.trace:false}")
   private boolean trace;
 
-  public EventToSendPoller(EventToSendProcessor messageToSendProcessor) {
+  @Value("${scheduler.drain-workers:1}")
+  private int drainWorkers;
+
+  @Value("${scheduler.min-delay-millis:50}")
+  private long minDelayMillis;
+
+  @Value("${scheduler.fixed-delay-millis}")
+  private long maxDelayMillis;
+
+  public EventToSendPoller(
+      EventToSendProcessor messageToSendProcessor,
+      EventToSendNotificationListener notificationListener) {
     this.processor = messageToSendProcessor;
+    this.notificationListener = notificationListener;
+  }
+
+  /** Start the drain workers once the application is ready. */
+  @EventListener(ApplicationReadyEvent.class)
+  public synchronized void start() {
+    if (running) {
+      return;
+    }
+    running = true;
+    int numWorkers = Math.max(1, drainWorkers);
+    log.info("Starting {} outbox drain workers", numWorkers);
+    drainExecutor =
+        Executors.newFixedThreadPool(numWorkers, new CustomizableThreadFactory("outbox-drain-"));
+    for (int i = 0; i < numWorkers; i++) {
+      drainExecutor.execute(this::drain);
+    }
+    notificationListener.start(this::wakeUp);
+  }
+
+  @PreDestroy
+  public synchronized void stop() throws InterruptedException {
+    if (!running) {
+      return;
+    }
+    running = false;
+    notificationListener.stop();
+    synchronized (idleMonitor) {
+      idleMonitor.notifyAll();
+    }
+    drainExecutor.shutdown();
+    if (!drainExecutor.awaitTermination(maxDelayMillis, TimeUnit.MILLISECONDS)) {
+      log.warn("Outbox drain workers did not stop in time");
+    }
+  }
+
+  /** Wake any idle drain workers, since new events are waiting to be processed. */
+  public void wakeUp() {
+    synchronized (idleMonitor) {
+      wakeGeneration++;
+      idleMonitor.notifyAll();
+    }
   }
 
   /**
    * Process chunks of queued messages, until we can no longer detect any waiting to be processed.
    *
-   * <p>This is a scheduled job which will run with a fixed delay between each invocation.
+   * @return the total number of events processed
    */
-  @Scheduled(fixedDelayString = "${scheduler.fixed-delay-millis}")
-  public void processQueuedMessages() {
+  public long processQueuedMessages() {
     if (trace) {
       log.debug("processing events");
     }
+    long total = 0;
     long numProcessed;
     do {
       numProcessed = processor.processChunk();
+      total += numProcessed;
       if (trace) {
         log.debug("processed {} events", numProcessed);
       }
     } while (numProcessed > 0);
+    return total;
+  }
+
+  /** Drain loop run by each worker, backing off while the outbox stays empty. */
+  void drain() {
+    long delay = minDelayMillis;
+    while (running) {
+      long generation = currentWakeGeneration();
+      try {
+        if (processQueuedMessages() > 0) {
+          delay = minDelayMillis;
+          continue;
+        }
+      } catch (Exception e) {
+        log.error("Failed to process outbox events", e);
+      }
+      if (idle(delay, generation)) {
+        delay = minDelayMillis;
+      } else {
+        delay = nextDelay(delay);
+      }
+    }
+  }
+
+  long nextDelay(long delay) {
+    return Math.min(Math.max(delay, 1) * 2, maxDelayMillis);
+  }
+
+  private long currentWakeGeneration() {
+    synchronized (idleMonitor) {
+      return wakeGeneration;
+    }
+  }
+
+  /**
+   * Wait until woken, or the delay expires.
+   *
+   * @param delay the maximum time to wait
+   * @param generation the wake generation seen before the last drain attempt, so that a wake-up
+   *     arriving during the attempt is not missed
+   * @return true if woken by a notification
+   */
+  private boolean idle(long delay, long generation) {
+    synchronized (idleMonitor) {
+      if (running && wakeGeneration == generation) {
+        try {
+          idleMonitor.wait(delay);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          running = false;
+        }
+      }
+      return wakeGeneration != generation;
+    }
   }
 }
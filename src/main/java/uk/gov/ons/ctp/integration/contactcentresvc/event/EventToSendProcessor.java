@@ -2,95 +2,303 @@ package uk.gov.ons.ctp.integration.contactcentresvc.event;
 
 import static uk.gov.ons.ctp.common.log.ScopedStructuredArguments.kv;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
+import javax.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.retry.annotation.Backoff;
-import org.springframework.retry.annotation.Retryable;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.DigestUtils;
 import uk.gov.ons.ctp.common.domain.Channel;
 import uk.gov.ons.ctp.common.domain.Source;
-import uk.gov.ons.ctp.common.event.EventPublishException;
 import uk.gov.ons.ctp.common.event.EventPublisher;
 import uk.gov.ons.ctp.common.event.TopicType;
-import uk.gov.ons.ctp.integration.contactcentresvc.config.AppConfig;
-import uk.gov.ons.ctp.integration.contactcentresvc.config.PublisherRetryConfig;
+import uk.gov.ons.ctp.integration.contactcentresvc.event.EventToSendLanes.Lane;
+import uk.gov.ons.ctp.integration.contactcentresvc.model.EventDeadLetter;
 import uk.gov.ons.ctp.integration.contactcentresvc.model.EventToSend;
+import uk.gov.ons.ctp.integration.contactcentresvc.repository.db.EventDeadLetterRepository;
 import uk.gov.ons.ctp.integration.contactcentresvc.repository.db.EventToSendRepository;
 
 @Slf4j
 @Component
 public class EventToSendProcessor {
   private final EventToSendRepository eventToSendRepository;
-  private final PublishRetrier retrier;
+  private final EventDeadLetterRepository eventDeadLetterRepository;
+  private final EventPublisher eventPublisher;
+  private final EventPayloadCodecs payloadCodecs;
+  private final EventToSendLanes lanes;
+  private final ExecutorService publishExecutor;
+  private final AtomicInteger inFlight = new AtomicInteger();
+  private final Timer chunkTimer;
+  private final DistributionSummary chunkDeleted;
+  private final Counter publishFailures;
+  private final Counter deadLettered;
+  private final Counter coalesced;
 
   @Value("${scheduler.chunk-size}")
   private int chunkSize;
 
-  public EventToSendProcessor(EventToSendRepository repo, PublishRetrier retrier) {
+  @Value("${scheduler.dead-letter-attempts:20}")
+  private int deadLetterAttempts;
+
+  @Value("${scheduler.reschedule-initial-seconds:1}")
+  private long rescheduleInitialSeconds;
+
+  @Value("${scheduler.reschedule-max-seconds:3600}")
+  private long rescheduleMaxSeconds;
+
+  @Value("${scheduler.coalesce-window-seconds:0}")
+  private long coalesceWindowSeconds;
+
+  /**
+   * Create the processor.
+   *
+   * @param repo the event to send repository
+   * @param deadLetterRepo the dead letter repository
+   * @param eventPublisher the publisher to send events with
+   * @param payloadCodecs codecs to read the stored payloads
+   * @param lanes the priority lanes to claim events from
+   * @param meterRegistry registry for the outbox metrics
+   * @param publishWindow the maximum number of publishes in flight at any one time for a chunk
+   */
+  public EventToSendProcessor(
+      EventToSendRepository repo,
+      EventDeadLetterRepository deadLetterRepo,
+      EventPublisher eventPublisher,
+      EventPayloadCodecs payloadCodecs,
+      EventToSendLanes lanes,
+      MeterRegistry meterRegistry,
+      @Value("${scheduler.publish-window:1}") int publishWindow) {
     this.eventToSendRepository = repo;
-    this.retrier = retrier;
+    this.eventDeadLetterRepository = deadLetterRepo;
+    this.eventPublisher = eventPublisher;
+    this.payloadCodecs = payloadCodecs;
+    this.lanes = lanes;
+    this.publishExecutor =
+        Executors.newFixedThreadPool(
+            Math.max(1, publishWindow), new CustomizableThreadFactory("outbox-publish-"));
+    this.chunkTimer = Timer.builder("outbox.chunk").register(meterRegistry);
+    this.chunkDeleted = DistributionSummary.builder("outbox.chunk.deleted").register(meterRegistry);
+    this.publishFailures = meterRegistry.counter("outbox.publish.failures");
+    this.deadLettered = meterRegistry.counter("outbox.dead-lettered");
+    this.coalesced = meterRegistry.counter("outbox.coalesced");
+    meterRegistry.gauge("outbox.publish.inflight", inFlight);
+    log.info("Outbox publish window: {}", publishWindow);
   }
 
+  /**
+   * Claim a chunk of events, shared between the priority lanes, and publish them all concurrently,
+   * bounded by the publish window.
+   *
+   * <p>Each event is published once, without waiting to retry it, so a slow or failing topic never
+   * holds the chunk's transaction and row locks for longer than a single publish. The events that
+   * were acknowledged are deleted, in a single batch, and committed at the end of the chunk.
+   *
+   * <p>Any failures are parked in the outbox with a next attempt time, which backs off
+   * exponentially up to <code>scheduler.reschedule-max-seconds</code>, and the drain workers pick
+   * them up again once it has passed. After <code>scheduler.dead-letter-attempts</code> failures
+   * they are moved to the dead letter table instead.
+   *
+   * <p>Before publishing, duplicates within the chunk are coalesced: events with the same type and
+   * payload, created within <code>scheduler.coalesce-window-seconds</code> of the first of them,
+   * are deleted without being published.
+   *
+   * @return the number of events claimed for this chunk
+   */
   @Transactional(propagation = Propagation.REQUIRES_NEW) // Start a new transaction for every chunk
   public int processChunk() {
-    AtomicInteger numProcessed = new AtomicInteger();
-    try (Stream<EventToSend> events = eventToSendRepository.findEventsToSend(chunkSize)) {
-      List<EventToSend> eventsSent = new ArrayList<>();
-      events.forEach(
-          event -> {
-            numProcessed.incrementAndGet();
-            try {
-              UUID messageId = retrier.publish(event);
-              eventsSent.add(event);
-              log.info("Event published", kv("messageId", messageId));
-            } catch (Exception e) {
-              log.error("Could not send event. Will retry indefinitely", kv("event", event), e);
-            }
-          });
-
-      eventToSendRepository.deleteAllInBatch(eventsSent);
+    Timer.Sample sample = Timer.start();
+    try {
+      List<EventToSend> claimed = lanes.claimChunk(chunkSize, this::claimLane);
+      List<EventToSend> duplicates = new ArrayList<>();
+      List<EventToSend> eventsSent = publishAll(coalesce(claimed, duplicates));
+      List<EventToSend> eventsDone = new ArrayList<>(eventsSent);
+      eventsDone.addAll(duplicates);
+      eventToSendRepository.deleteAllInBatch(eventsDone);
+      chunkDeleted.record(eventsDone.size());
+      return claimed.size();
+    } finally {
+      sample.stop(chunkTimer);
     }
-    return numProcessed.get();
   }
 
   /**
-   * We need another class for the retryable annotation, since calling a retryable annotated within
-   * the same class does not honour the annotations.
+   * Publish a single event immediately, without retrying, deleting it from the outbox if the
+   * publish succeeds. If the event has already been claimed by a drain worker, then nothing is
+   * done.
+   *
+   * @param eventId the ID of the event to send
+   * @return true if the event was published by this call
    */
-  @Slf4j
-  @Component
-  static class PublishRetrier {
-    private EventPublisher eventPublisher;
-    private PublisherRetryConfig retryConfig;
-
-    public PublishRetrier(EventPublisher eventPublisher, AppConfig appConfig) {
-      this.eventPublisher = eventPublisher;
-      this.retryConfig = appConfig.getMessaging().getRetry();
-      log.info("Publish-retry configuration: {}", this.retryConfig);
+  @Transactional(propagation = Propagation.REQUIRES_NEW)
+  public boolean processEvent(UUID eventId) {
+    Optional<EventToSend> claimed = eventToSendRepository.claimEventToSend(eventId);
+    if (claimed.isEmpty()) {
+      return false;
+    }
+    EventToSend event = claimed.get();
+    UUID messageId;
+    try {
+      messageId = send(event);
+    } catch (RuntimeException e) {
+      publishFailures.increment();
+      throw e;
     }
+    eventToSendRepository.delete(event);
+    log.info("Event published", kv("messageId", messageId));
+    return true;
+  }
 
-    @Retryable(
-        label = "publishEvent",
-        include = EventPublishException.class,
-        backoff =
-            @Backoff(
-                delayExpression = "#{@appConfig.getMessaging().getRetry().getInitial()}",
-                multiplierExpression = "#{@appConfig.getMessaging().getRetry().getMultiplier()}",
-                maxDelayExpression = "#{@appConfig.getMessaging().getRetry().getMax()}"),
-        maxAttemptsExpression = "#{@appConfig.getMessaging().getRetry().getMaxAttempts()}",
-        listeners = "publishRetryListener")
-    public UUID publish(EventToSend event) {
-      TopicType type = TopicType.valueOf(event.getType());
-      UUID messageId =
-          eventPublisher.sendEvent(type, Source.CONTACT_CENTRE_API, Channel.CC, event.getPayload());
-      return messageId;
+  private List<EventToSend> claimLane(Lane lane, int limit) {
+    int toLane = lane.isDefaultLane() ? Integer.MAX_VALUE : lane.getNumber();
+    try (Stream<EventToSend> events =
+        eventToSendRepository.findEventsToSendInLanes(lane.getNumber(), toLane, limit)) {
+      return events.collect(Collectors.toList());
     }
   }
+
+  /**
+   * Drop duplicate events from the claimed chunk. The first event of each group is kept, and is
+   * published (or rescheduled) as normal, so the duplicates can be deleted whatever the outcome.
+   *
+   * @param claimed the claimed events, oldest first within each lane
+   * @param duplicates the events that were coalesced are added to this list
+   * @return the events to publish
+   */
+  private List<EventToSend> coalesce(List<EventToSend> claimed, List<EventToSend> duplicates) {
+    if (coalesceWindowSeconds <= 0) {
+      return claimed;
+    }
+    Map<String, EventToSend> firstByContent = new HashMap<>();
+    List<EventToSend> toPublish = new ArrayList<>();
+    for (EventToSend event : claimed) {
+      String key = contentKey(event);
+      EventToSend first = key == null ? null : firstByContent.get(key);
+      if (first != null
+          && !event
+              .getCreatedDateTime()
+              .isAfter(first.getCreatedDateTime().plusSeconds(coalesceWindowSeconds))) {
+        log.info(
+            "Coalescing duplicate event",
+            kv("eventId", event.getId()),
+            kv("duplicateOf", first.getId()));
+        duplicates.add(event);
+        coalesced.increment();
+      } else {
+        if (key != null) {
+          firstByContent.put(key, event);
+        }
+        toPublish.add(event);
+      }
+    }
+    return toPublish;
+  }
+
+  private String contentKey(EventToSend event) {
+    try {
+      byte[] payload = payloadCodecs.read(event).getBytes(StandardCharsets.UTF_8);
+      return event.getType() + ":" + DigestUtils.md5DigestAsHex(payload);
+    } catch (RuntimeException e) {
+      // leave it to the publish to report the unreadable payload
+      return null;
+    }
+  }
+
+  private List<EventToSend> publishAll(List<EventToSend> claimed) {
+    List<CompletableFuture<EventToSend>> futures =
+        claimed.stream()
+            .map(event -> CompletableFuture.supplyAsync(() -> publish(event), publishExecutor))
+            .collect(Collectors.toList());
+
+    List<EventToSend> eventsSent = new ArrayList<>();
+    for (int i = 0; i < futures.size(); i++) {
+      try {
+        eventsSent.add(futures.get(i).join());
+      } catch (CompletionException e) {
+        recordFailure(claimed.get(i), e.getCause());
+      }
+    }
+    return eventsSent;
+  }
+
+  private void recordFailure(EventToSend event, Throwable cause) {
+    publishFailures.increment();
+    int attempts = event.getAttempts() + 1;
+    String error = String.valueOf(cause);
+    if (attempts >= deadLetterAttempts) {
+      log.error(
+          "Could not send event. Moving to dead letter table",
+          kv("event", event),
+          kv("attempts", attempts),
+          cause);
+      eventDeadLetterRepository.save(toDeadLetter(event, attempts, error));
+      eventToSendRepository.delete(event);
+      deadLettered.increment();
+    } else {
+      log.warn(
+          "Could not send event. Will retry later",
+          kv("event", event),
+          kv("attempts", attempts),
+          cause);
+      eventToSendRepository.rescheduleEventToSend(
+          event.getId(), error, rescheduleInitialSeconds, rescheduleMaxSeconds);
+    }
+  }
+
+  private EventDeadLetter toDeadLetter(EventToSend event, int attempts, String error) {
+    return EventDeadLetter.builder()
+        .id(event.getId())
+        .type(event.getType())
+        .payload(event.getPayload())
+        .payloadBytes(event.getPayloadBytes())
+        .payloadFormat(event.getPayloadFormat())
+        .lane(event.getLane())
+        .createdDateTime(event.getCreatedDateTime())
+        .attempts(attempts)
+        .lastError(error)
+        .deadLetterDateTime(LocalDateTime.now())
+        .build();
+  }
+
+  private EventToSend publish(EventToSend event) {
+    inFlight.incrementAndGet();
+    try {
+      UUID messageId = send(event);
+      log.info("Event published", kv("messageId", messageId));
+      return event;
+    } finally {
+      inFlight.decrementAndGet();
+    }
+  }
+
+  private UUID send(EventToSend event) {
+    TopicType type = TopicType.valueOf(event.getType());
+    String payload = payloadCodecs.read(event);
+    return eventPublisher.sendEvent(type, Source.CONTACT_CENTRE_API, Channel.CC, payload);
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    publishExecutor.shutdown();
+  }
 }
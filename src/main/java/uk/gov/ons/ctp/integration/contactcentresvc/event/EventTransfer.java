@@ -3,6 +3,8 @@ package uk.gov.ons.ctp.integration.contactcentresvc.event;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import java.time.LocalDateTime;
 import java.util.UUID;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Component;
 import uk.gov.ons.ctp.common.event.TopicType;
 import uk.gov.ons.ctp.common.event.model.EventPayload;
@@ -14,23 +16,54 @@ import uk.gov.ons.ctp.integration.contactcentresvc.repository.db.EventToSendRepo
 public class EventTransfer {
   private final EventToSendRepository eventToSendRepository;
   private final CustomObjectMapper mapper;
+  private final JdbcTemplate jdbcTemplate;
+  private final EventFastPathPublisher fastPathPublisher;
+  private final EventPayloadCodecs payloadCodecs;
+  private final EventToSendLanes lanes;
 
-  public EventTransfer(EventToSendRepository messageToSendRepository, CustomObjectMapper mapper) {
+  @Value("${scheduler.notify-enabled:false}")
+  private boolean notifyEnabled;
+
+  public EventTransfer(
+      EventToSendRepository messageToSendRepository,
+      CustomObjectMapper mapper,
+      JdbcTemplate jdbcTemplate,
+      EventFastPathPublisher fastPathPublisher,
+      EventPayloadCodecs payloadCodecs,
+      EventToSendLanes lanes) {
     this.eventToSendRepository = messageToSendRepository;
     this.mapper = mapper;
+    this.jdbcTemplate = jdbcTemplate;
+    this.fastPathPublisher = fastPathPublisher;
+    this.payloadCodecs = payloadCodecs;
+    this.lanes = lanes;
   }
 
   public UUID send(TopicType type, EventPayload payload) {
     EventToSend event = new EventToSend();
     event.setId(UUID.randomUUID());
     event.setType(type.name());
-    event.setPayload(convertObjectToJson(payload));
+    event.setLane(lanes.laneFor(type.name()));
+    payloadCodecs.write(event, convertObjectToJson(payload));
     event.setCreatedDateTime(LocalDateTime.now());
 
     eventToSendRepository.save(event);
+    notifyPoller();
+    fastPathPublisher.publishAfterCommit(event.getId());
     return event.getId();
   }
 
+  /**
+   * Notify the outbox listeners that an event is waiting. Postgres only delivers the notification
+   * once the surrounding transaction commits (and drops it on rollback), so listeners will always
+   * find the new row.
+   */
+  private void notifyPoller() {
+    if (notifyEnabled) {
+      jdbcTemplate.execute("NOTIFY " + EventToSendNotificationListener.CHANNEL);
+    }
+  }
+
   private String convertObjectToJson(Object obj) {
     try {
       return mapper.writeValueAsString(obj);
@@ -0,0 +1,41 @@
+package uk.gov.ons.ctp.integration.contactcentresvc.event;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import org.springframework.stereotype.Component;
+
+/** Stores event payloads as GZIP compressed UTF-8 JSON. */
+@Component
+public class GzipEventPayloadCodec implements EventPayloadCodec {
+  public static final String FORMAT = "GZIP";
+
+  @Override
+  public String getFormat() {
+    return FORMAT;
+  }
+
+  @Override
+  public byte[] encode(String payload) {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream(payload.length() / 4);
+    try (GZIPOutputStream gzip = new GZIPOutputStream(bytes)) {
+      gzip.write(payload.getBytes(StandardCharsets.UTF_8));
+    } catch (IOException e) {
+      throw new UncheckedIOException("Failed to compress event payload", e);
+    }
+    return bytes.toByteArray();
+  }
+
+  @Override
+  public String decode(byte[] encoded) {
+    try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(encoded))) {
+      return new String(gzip.readAllBytes(), StandardCharsets.UTF_8);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Failed to decompress event payload", e);
+    }
+  }
+}
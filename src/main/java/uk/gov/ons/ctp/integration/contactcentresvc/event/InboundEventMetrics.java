@@ -0,0 +1,148 @@
+package uk.gov.ons.ctp.integration.contactcentresvc.event;
+
+import static uk.gov.ons.ctp.common.log.ScopedStructuredArguments.kv;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import uk.gov.ons.ctp.common.event.model.Header;
+
+/**
+ * Metrics for inbound events, tagged by subscription (case, uac, survey or collectionExercise):
+ *
+ * <ul>
+ *   <li><code>inbound.events</code> counts the events by outcome: accepted, filtered, duplicate,
+ *       stale or failed
+ *   <li><code>inbound.event.processing</code> times each event from when the receiver starts on it
+ *       until its transaction completes, by outcome
+ *   <li><code>inbound.event.latency</code> times each accepted event from the time in its header
+ *       until it is committed
+ *   <li><code>inbound.batch.write</code> times each batch write by the batching receivers
+ * </ul>
+ *
+ * <p>Rather than logging every event, one event in <code>queueconfig.log-sample-rate</code> is
+ * logged once it has been processed.
+ */
+@Slf4j
+@Component
+public class InboundEventMetrics {
+  public static final String CASE = "case";
+  public static final String UAC = "uac";
+  public static final String SURVEY = "survey";
+  public static final String COLLECTION_EXERCISE = "collectionExercise";
+
+  public static final String ACCEPTED = "accepted";
+  public static final String FILTERED = "filtered";
+  public static final String DUPLICATE = "duplicate";
+  public static final String STALE = "stale";
+  public static final String FAILED = "failed";
+
+  private final MeterRegistry meterRegistry;
+  private final int logSampleRate;
+  private final AtomicLong eventCount = new AtomicLong();
+
+  public InboundEventMetrics(
+      MeterRegistry meterRegistry, @Value("${queueconfig.log-sample-rate:100}") int logSampleRate) {
+    this.meterRegistry = meterRegistry;
+    this.logSampleRate = logSampleRate;
+  }
+
+  /**
+   * Start timing an event. If there is a transaction the event is recorded once it completes, as
+   * failed if it is rolled back, otherwise it is recorded by {@link Recording#complete(String)}.
+   *
+   * @param subscription the subscription the event came from
+   * @param header the event header
+   * @return the recording, to complete with the outcome
+   */
+  public Recording start(String subscription, Header header) {
+    Recording recording = new Recording(subscription, header);
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(recording);
+      recording.inTransaction = true;
+    }
+    return recording;
+  }
+
+  /**
+   * Record the outcome of an event without timing its processing, for the batching receivers.
+   *
+   * @param subscription the subscription the event came from
+   * @param header the event header
+   * @param outcome the outcome
+   */
+  public void record(String subscription, Header header, String outcome) {
+    meterRegistry
+        .counter("inbound.events", "subscription", subscription, "outcome", outcome)
+        .increment();
+    if (ACCEPTED.equals(outcome) && header.getDateTime() != null) {
+      long latencyMillis = System.currentTimeMillis() - header.getDateTime().getTime();
+      meterRegistry
+          .timer("inbound.event.latency", "subscription", subscription)
+          .record(Math.max(0, latencyMillis), TimeUnit.MILLISECONDS);
+    }
+    if (logSampleRate > 0 && eventCount.incrementAndGet() % logSampleRate == 0) {
+      log.info(
+          "Inbound event processed",
+          kv("subscription", subscription),
+          kv("messageId", header.getMessageId()),
+          kv("outcome", outcome),
+          kv("eventsSoFar", eventCount.get()));
+    }
+  }
+
+  /**
+   * Get the timer for batch writes.
+   *
+   * @param subscription the subscription the batch came from
+   * @return the timer
+   */
+  public Timer batchWriteTimer(String subscription) {
+    return meterRegistry.timer("inbound.batch.write", "subscription", subscription);
+  }
+
+  /** Recording of a single event, from when the receiver starts on it. */
+  public class Recording implements TransactionSynchronization {
+    private final String subscription;
+    private final Header header;
+    private final long startNanos = System.nanoTime();
+    private String outcome = FAILED;
+    private boolean inTransaction;
+
+    private Recording(String subscription, Header header) {
+      this.subscription = subscription;
+      this.header = header;
+    }
+
+    /**
+     * Set the outcome of the event, which is recorded now if there is no transaction, or else once
+     * the transaction commits.
+     *
+     * @param outcome the outcome
+     */
+    public void complete(String outcome) {
+      this.outcome = outcome;
+      if (!inTransaction) {
+        finish(outcome);
+      }
+    }
+
+    @Override
+    public void afterCompletion(int status) {
+      finish(status == STATUS_COMMITTED ? outcome : FAILED);
+    }
+
+    private void finish(String finalOutcome) {
+      meterRegistry
+          .timer("inbound.event.processing", "subscription", subscription, "outcome", finalOutcome)
+          .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+      record(subscription, header, finalOutcome);
+    }
+  }
+}
@@ -0,0 +1,150 @@
+package uk.gov.ons.ctp.integration.contactcentresvc.event;
+
+import static uk.gov.ons.ctp.common.log.ScopedStructuredArguments.kv;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.Collection;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import uk.gov.ons.ctp.integration.contactcentresvc.config.AppConfig;
+import uk.gov.ons.ctp.integration.contactcentresvc.config.QueueConfig.DedupConfig;
+import uk.gov.ons.ctp.integration.contactcentresvc.repository.db.ProcessedMessageRepository;
+
+/**
+ * Skips inbound messages that have already been processed, since Pub/Sub delivers messages at least
+ * once.
+ *
+ * <p>Processed message IDs are kept in the processed_message table for <code>
+ * queueconfig.dedup.ttl-seconds</code>, and the most recent <code>max-entries</code> of them in
+ * {@link RecentMessageIds}, so that most redeliveries are spotted without going to the database. A
+ * message is claimed in the same transaction as the rest of its processing, so if that fails the
+ * claim is rolled back and the redelivered message is processed again.
+ *
+ * <p>Duplicates are counted by the <code>inbound.dedup.hits</code> metric, and only logged at
+ * debug, as a redelivery storm could otherwise flood the logs.
+ */
+@Slf4j
+@Component
+public class MessageDeduplicator {
+  private final ProcessedMessageRepository processedMessageRepository;
+  private final DedupConfig config;
+  private final RecentMessageIds recent;
+  private final Counter hits;
+  private final Counter misses;
+
+  public MessageDeduplicator(
+      ProcessedMessageRepository processedMessageRepository,
+      AppConfig appConfig,
+      MeterRegistry meterRegistry) {
+    this.processedMessageRepository = processedMessageRepository;
+    this.config = appConfig.getQueueConfig().getDedup();
+    this.recent =
+        new RecentMessageIds(
+            config.getMaxEntries(), TimeUnit.SECONDS.toNanos(config.getTtlSeconds()));
+    this.hits = meterRegistry.counter("inbound.dedup.hits");
+    this.misses = meterRegistry.counter("inbound.dedup.misses");
+    log.info("Inbound message dedup: {}", config);
+  }
+
+  /**
+   * Claim the message for processing in the current transaction, unless it has already been
+   * processed.
+   *
+   * @param messageId the message ID
+   * @return true if the message should be processed, or false if it is a duplicate
+   */
+  public boolean claim(UUID messageId) {
+    if (!config.isEnabled()) {
+      return true;
+    }
+    if (isRecent(messageId)
+        || !processedMessageRepository.claim(messageId, config.getTtlSeconds())) {
+      skipDuplicate(messageId);
+      return false;
+    }
+    misses.increment();
+    afterCommit(() -> remember(messageId));
+    return true;
+  }
+
+  /**
+   * Check whether the message is known to have been processed recently, without going to the
+   * database. This is for the batching receivers, which record their messages once each batch has
+   * been written.
+   *
+   * @param messageId the message ID
+   * @return true if the message is a duplicate
+   */
+  public boolean isRecentlyProcessed(UUID messageId) {
+    if (!config.isEnabled()) {
+      return false;
+    }
+    if (isRecent(messageId)) {
+      skipDuplicate(messageId);
+      return true;
+    }
+    misses.increment();
+    return false;
+  }
+
+  /**
+   * Record the messages as processed.
+   *
+   * @param messageIds the message IDs
+   */
+  public void recordProcessed(Collection<UUID> messageIds) {
+    if (!config.isEnabled()) {
+      return;
+    }
+    processedMessageRepository.saveAll(messageIds);
+    messageIds.forEach(this::remember);
+  }
+
+  @Scheduled(
+      initialDelayString = "${queueconfig.dedup.cleanup-millis:600000}",
+      fixedDelayString = "${queueconfig.dedup.cleanup-millis:600000}")
+  public void deleteExpired() {
+    if (!config.isEnabled()) {
+      return;
+    }
+    try {
+      int deleted = processedMessageRepository.deleteExpired(config.getTtlSeconds());
+      log.debug("Deleted expired processed messages", kv("count", deleted));
+    } catch (Exception e) {
+      log.warn("Failed to delete expired processed messages", e);
+    }
+  }
+
+  private void skipDuplicate(UUID messageId) {
+    hits.increment();
+    log.debug("Skipping duplicate message", kv("messageId", messageId));
+  }
+
+  private boolean isRecent(UUID messageId) {
+    return recent.isRecent(messageId, System.nanoTime());
+  }
+
+  private void remember(UUID messageId) {
+    recent.add(messageId, System.nanoTime());
+  }
+
+  private void afterCommit(Runnable action) {
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(
+          new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+              action.run();
+            }
+          });
+    } else {
+      action.run();
+    }
+  }
+}
@@ -0,0 +1,35 @@
+package uk.gov.ons.ctp.integration.contactcentresvc.event;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Opens the connections that listen for postgres notifications. These are held for as long as the
+ * listener runs, so they are opened directly with the <code>ccdb.datasource</code> settings rather
+ * than taken from the connection pool, which would otherwise be one connection short for the
+ * lifetime of the service.
+ */
+@Component
+public class NotificationConnectionFactory {
+  private final DataSourceProperties dataSourceProperties;
+
+  public NotificationConnectionFactory(DataSourceProperties dataSourceProperties) {
+    this.dataSourceProperties = dataSourceProperties;
+  }
+
+  /**
+   * Open a new connection, outside the connection pool. The caller must close it.
+   *
+   * @return the connection
+   * @throws SQLException if the connection cannot be opened
+   */
+  public Connection open() throws SQLException {
+    return DriverManager.getConnection(
+        dataSourceProperties.determineUrl(),
+        dataSourceProperties.determineUsername(),
+        dataSourceProperties.determinePassword());
+  }
+}
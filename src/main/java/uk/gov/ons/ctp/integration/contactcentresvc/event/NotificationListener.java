@@ -0,0 +1,107 @@
+package uk.gov.ons.ctp.integration.contactcentresvc.event;
+
+import static uk.gov.ons.ctp.common.log.ScopedStructuredArguments.kv;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+
+/**
+ * Listens for postgres notifications on a channel, on its own thread, and passes them to a {@link
+ * Handler}.
+ *
+ * <p>A connection from the {@link NotificationConnectionFactory}, outside the connection pool, is
+ * held while listening. If the connection fails, the listener reconnects after the reconnect delay,
+ * which is also how long it waits for notifications at a time.
+ */
+@Slf4j
+class NotificationListener {
+  private final NotificationConnectionFactory connectionFactory;
+  private final String channel;
+  private final String threadName;
+  private final int reconnectMillis;
+  private final Handler handler;
+  private Thread listenerThread;
+  private volatile boolean running;
+
+  /** Receives the notifications. */
+  interface Handler {
+
+    /** Called each time listening starts, as notifications may have been missed before then. */
+    void listening();
+
+    /**
+     * Called with the notifications received at once.
+     *
+     * @param notifications the notifications, at least one
+     */
+    void notified(PGNotification[] notifications);
+  }
+
+  NotificationListener(
+      NotificationConnectionFactory connectionFactory,
+      String channel,
+      String threadName,
+      int reconnectMillis,
+      Handler handler) {
+    this.connectionFactory = connectionFactory;
+    this.channel = channel;
+    this.threadName = threadName;
+    this.reconnectMillis = reconnectMillis;
+    this.handler = handler;
+  }
+
+  synchronized void start() {
+    if (running) {
+      return;
+    }
+    running = true;
+    listenerThread = new Thread(this::listen, threadName);
+    listenerThread.setDaemon(true);
+    listenerThread.start();
+  }
+
+  synchronized void stop() {
+    running = false;
+    if (listenerThread != null) {
+      listenerThread.interrupt();
+      listenerThread = null;
+    }
+  }
+
+  private void listen() {
+    while (running) {
+      try (Connection connection = connectionFactory.open()) {
+        PGConnection pgConnection = connection.unwrap(PGConnection.class);
+        try (Statement statement = connection.createStatement()) {
+          statement.execute("LISTEN " + channel);
+        }
+        handler.listening();
+        log.info("Listening for notifications", kv("channel", channel));
+        while (running) {
+          PGNotification[] notifications = pgConnection.getNotifications(reconnectMillis);
+          if (notifications != null && notifications.length > 0) {
+            handler.notified(notifications);
+          }
+        }
+      } catch (SQLException e) {
+        if (running) {
+          log.warn("Notification listener failed, will reconnect", kv("channel", channel), e);
+          pause();
+        }
+      }
+    }
+  }
+
+  private void pause() {
+    try {
+      Thread.sleep(reconnectMillis);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      running = false;
+    }
+  }
+}
@@ -0,0 +1,145 @@
+package uk.gov.ons.ctp.integration.contactcentresvc.event;
+
+import static uk.gov.ons.ctp.common.log.ScopedStructuredArguments.kv;
+
+import com.google.cloud.spring.pubsub.support.BasicAcknowledgeablePubsubMessage;
+import com.google.cloud.spring.pubsub.support.GcpPubSubHeaders;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import javax.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import uk.gov.ons.ctp.integration.contactcentresvc.config.QueueConfig.LaneConfig;
+
+/**
+ * Channel that hands inbound events to a fixed number of ordered lanes, each with a single thread,
+ * so that a subscription is processed on several threads while the events for any one key, such as
+ * a case ID, are still processed one at a time in the order they arrived.
+ *
+ * <p>Each event is sent on to the target channel by its lane, and the Pub/Sub message is then
+ * acknowledged, or NAKed if processing failed, so the adapter must use manual acknowledgement. Once
+ * a lane has <code>capacity</code> events waiting, the subscriber thread blocks until there is
+ * room, so flow control still pushes back on Pub/Sub. The number of events waiting in each lane is
+ * published as the <code>inbound.lane.depth</code> gauge.
+ */
+@Slf4j
+public class OrderedLaneChannel implements MessageChannel {
+  private final String name;
+  private final MessageChannel target;
+  private final Function<Object, String> keyFunction;
+  private final List<ThreadPoolExecutor> lanes = new ArrayList<>();
+
+  /**
+   * Constructor for OrderedLaneChannel. No lane threads are started unless the lanes are enabled.
+   *
+   * @param name name of the events, for thread names and metrics
+   * @param config the lane settings
+   * @param target the channel each lane sends its events on to
+   * @param keyFunction gets the ordering key from an event
+   * @param meterRegistry registry for the lane depth gauges
+   */
+  public OrderedLaneChannel(
+      String name,
+      LaneConfig config,
+      MessageChannel target,
+      Function<Object, String> keyFunction,
+      MeterRegistry meterRegistry) {
+    this.name = name;
+    this.target = target;
+    this.keyFunction = keyFunction;
+    if (!config.isEnabled()) {
+      return;
+    }
+    int capacity = Math.max(1, config.getCapacity());
+    for (int i = 0; i < Math.max(1, config.getLanes()); i++) {
+      ThreadPoolExecutor lane =
+          new ThreadPoolExecutor(
+              1,
+              1,
+              0L,
+              TimeUnit.MILLISECONDS,
+              new ArrayBlockingQueue<>(capacity),
+              new CustomizableThreadFactory(name + "-lane-" + i + "-"),
+              OrderedLaneChannel::waitForRoom);
+      Gauge.builder("inbound.lane.depth", lane, l -> l.getQueue().size())
+          .tag("events", name)
+          .tag("lane", String.valueOf(i))
+          .register(meterRegistry);
+      lanes.add(lane);
+    }
+    log.info("Ordered lanes enabled for {}: {}", name, config);
+  }
+
+  /**
+   * Hand the message to the lane for its key, waiting if that lane is full.
+   *
+   * @param message the message
+   * @param timeout ignored, as the subscriber must wait for a full lane
+   * @return true once the message is queued
+   */
+  @Override
+  public boolean send(Message<?> message, long timeout) {
+    laneFor(keyFunction.apply(message.getPayload())).execute(() -> process(message));
+    return true;
+  }
+
+  private ThreadPoolExecutor laneFor(String key) {
+    int index = key == null ? 0 : Math.floorMod(key.hashCode(), lanes.size());
+    return lanes.get(index);
+  }
+
+  private void process(Message<?> message) {
+    BasicAcknowledgeablePubsubMessage original =
+        message
+            .getHeaders()
+            .get(GcpPubSubHeaders.ORIGINAL_MESSAGE, BasicAcknowledgeablePubsubMessage.class);
+    try {
+      target.send(message);
+      if (original != null) {
+        original.ack();
+      }
+    } catch (Exception e) {
+      log.error(
+          "Inbound event processing failed - NAKing message",
+          kv("events", name),
+          kv("key", keyFunction.apply(message.getPayload())),
+          e);
+      if (original != null) {
+        original.nack();
+      }
+    }
+  }
+
+  private static void waitForRoom(Runnable task, ThreadPoolExecutor lane) {
+    if (lane.isShutdown()) {
+      throw new RejectedExecutionException("Lane is shut down");
+    }
+    try {
+      lane.getQueue().put(task);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RejectedExecutionException("Interrupted waiting for lane", e);
+    }
+  }
+
+  /**
+   * Stop taking events, and give the lanes a short time to finish those waiting. Any that are not
+   * processed are never acknowledged, so are redelivered.
+   */
+  @PreDestroy
+  public void shutdown() throws InterruptedException {
+    lanes.forEach(ThreadPoolExecutor::shutdown);
+    for (ThreadPoolExecutor lane : lanes) {
+      lane.awaitTermination(10, TimeUnit.SECONDS);
+    }
+  }
+}
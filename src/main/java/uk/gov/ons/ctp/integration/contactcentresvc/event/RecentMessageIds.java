@@ -0,0 +1,164 @@
+package uk.gov.ons.ctp.integration.contactcentresvc.event;
+
+import java.util.UUID;
+
+/**
+ * Bounded in memory set of recently processed message IDs, each with the time it was processed, for
+ * the {@link MessageDeduplicator}.
+ *
+ * <p>Each ID is kept as the two longs of the UUID in a primitive open addressing table, so looking
+ * one up allocates nothing. Once full, the longest held ID is dropped for each new one. The IDs are
+ * spread over up to 16 segments, each with its own lock, so that the subscriber threads do not all
+ * wait on one lock.
+ */
+class RecentMessageIds {
+  private static final int MAX_SEGMENTS = 16;
+  private static final int MIN_SEGMENT_ENTRIES = 1024;
+
+  private final long ttlNanos;
+  private final Segment[] segments;
+
+  /**
+   * Constructor.
+   *
+   * @param maxEntries the most IDs to keep, or zero to keep none
+   * @param ttlNanos how long an ID is considered recent, in nanoseconds
+   */
+  RecentMessageIds(int maxEntries, long ttlNanos) {
+    this.ttlNanos = ttlNanos;
+    int segmentCount = 0;
+    if (maxEntries > 0) {
+      segmentCount =
+          Integer.highestOneBit(
+              Math.max(1, Math.min(MAX_SEGMENTS, maxEntries / MIN_SEGMENT_ENTRIES)));
+    }
+    this.segments = new Segment[segmentCount];
+    for (int i = 0; i < segmentCount; i++) {
+      segments[i] = new Segment((maxEntries + segmentCount - 1) / segmentCount);
+    }
+  }
+
+  /**
+   * Check whether the ID was added less than the time to live ago.
+   *
+   * @param id the message ID
+   * @param now the current {@link System#nanoTime()}
+   * @return true if the ID is recent
+   */
+  boolean isRecent(UUID id, long now) {
+    if (segments.length == 0) {
+      return false;
+    }
+    long msb = id.getMostSignificantBits();
+    long lsb = id.getLeastSignificantBits();
+    int hash = hash(msb, lsb);
+    return segments[hash & (segments.length - 1)].isRecent(msb, lsb, hash, now, ttlNanos);
+  }
+
+  /**
+   * Add the ID, or refresh its time if it is already held.
+   *
+   * @param id the message ID
+   * @param now the current {@link System#nanoTime()}
+   */
+  void add(UUID id, long now) {
+    if (segments.length == 0) {
+      return;
+    }
+    long msb = id.getMostSignificantBits();
+    long lsb = id.getLeastSignificantBits();
+    int hash = hash(msb, lsb);
+    segments[hash & (segments.length - 1)].add(msb, lsb, hash, now);
+  }
+
+  private static int hash(long msb, long lsb) {
+    long h = (msb ^ lsb) * 0x9E3779B97F4A7C15L;
+    return (int) (h ^ (h >>> 32));
+  }
+
+  /**
+   * The IDs are held in a ring in the order they were added, which gives the one to drop next, and
+   * found through a linear probing table of positions in the ring.
+   */
+  private static class Segment {
+    private final long[] msbs;
+    private final long[] lsbs;
+    private final long[] times;
+    /** position in the ring plus one for each slot, or zero if the slot is empty */
+    private final int[] table;
+
+    private final int mask;
+    private int next;
+    private int size;
+
+    Segment(int capacity) {
+      msbs = new long[capacity];
+      lsbs = new long[capacity];
+      times = new long[capacity];
+      table = new int[Integer.highestOneBit(capacity) << 2];
+      mask = table.length - 1;
+    }
+
+    synchronized boolean isRecent(long msb, long lsb, int hash, long now, long ttlNanos) {
+      int slot = find(msb, lsb, hash);
+      return table[slot] != 0 && now - times[table[slot] - 1] < ttlNanos;
+    }
+
+    synchronized void add(long msb, long lsb, int hash, long now) {
+      int slot = find(msb, lsb, hash);
+      if (table[slot] != 0) {
+        times[table[slot] - 1] = now;
+        return;
+      }
+      if (size == msbs.length) {
+        remove(find(msbs[next], lsbs[next], hash(msbs[next], lsbs[next])));
+        slot = find(msb, lsb, hash);
+      } else {
+        size++;
+      }
+      msbs[next] = msb;
+      lsbs[next] = lsb;
+      times[next] = now;
+      table[slot] = next + 1;
+      next = (next + 1) % msbs.length;
+    }
+
+    /** Find the slot holding the ID, or else the empty slot where it would go. */
+    private int find(long msb, long lsb, int hash) {
+      int slot = home(hash);
+      while (table[slot] != 0) {
+        int position = table[slot] - 1;
+        if (msbs[position] == msb && lsbs[position] == lsb) {
+          break;
+        }
+        slot = (slot + 1) & mask;
+      }
+      return slot;
+    }
+
+    /** Empty the slot, moving back any later entries that would no longer be found. */
+    private void remove(int slot) {
+      int gap = slot;
+      int probe = slot;
+      while (true) {
+        probe = (probe + 1) & mask;
+        if (table[probe] == 0) {
+          break;
+        }
+        int position = table[probe] - 1;
+        int home = home(hash(msbs[position], lsbs[position]));
+        // the entry can fill the gap unless its home is cyclically after the gap
+        if (((probe - home) & mask) >= ((probe - gap) & mask)) {
+          table[gap] = table[probe];
+          gap = probe;
+        }
+      }
+      table[gap] = 0;
+    }
+
+    private int home(int hash) {
+      // the low bits chose the segment, so use the high bits
+      return (hash >>> 8) & mask;
+    }
+  }
+}
@@ -0,0 +1,142 @@
+package uk.gov.ons.ctp.integration.contactcentresvc.event;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Cache of the survey and collection exercise checks made by the {@link EventFilter} for every
+ * inbound case and UAC event.
+ *
+ * <p>Only surveys and collection exercises that exist are cached, so an event that arrives before
+ * its survey or collection exercise is still NAKed, and is accepted once it has been stored. The
+ * survey and collection exercise receivers update the cache once their transaction commits, and
+ * entries expire after <code>queueconfig.reference-data-cache-seconds</code>. Survey invalidations
+ * are published on the {@link CacheInvalidationBus}, so that the other instances of the service
+ * pick up the change straight away.
+ */
+@Slf4j
+@Component
+public class ReferenceDataCache {
+  private final Map<UUID, CachedSurvey> surveys = new ConcurrentHashMap<>();
+  private final Map<UUID, Long> collectionExercises = new ConcurrentHashMap<>();
+  private final long ttlNanos;
+  private final CacheInvalidationBus invalidationBus;
+
+  public ReferenceDataCache(
+      @Value("${queueconfig.reference-data-cache-seconds:300}") long ttlSeconds,
+      CacheInvalidationBus invalidationBus) {
+    this.ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+    this.invalidationBus = invalidationBus;
+    invalidationBus.register(
+        CacheInvalidationBus.SURVEY,
+        new CacheInvalidationBus.Listener() {
+          @Override
+          public void invalidate(String id) {
+            surveys.remove(UUID.fromString(id));
+          }
+
+          @Override
+          public void invalidateAll() {
+            surveys.clear();
+          }
+        });
+    log.info("Reference data cache time to live: {}s", ttlSeconds);
+  }
+
+  /**
+   * Get the cached outcome of the accepted survey type check.
+   *
+   * @param surveyId the survey ID
+   * @return whether the survey is an accepted survey type, or empty if the survey is not cached
+   */
+  public Optional<Boolean> getSurveyAccepted(UUID surveyId) {
+    CachedSurvey cached = surveys.get(surveyId);
+    if (cached == null || isExpired(cached.expiry)) {
+      return Optional.empty();
+    }
+    return Optional.of(cached.accepted);
+  }
+
+  public void putSurvey(UUID surveyId, boolean accepted) {
+    if (ttlNanos > 0) {
+      surveys.put(surveyId, new CachedSurvey(accepted, System.nanoTime() + ttlNanos));
+    }
+  }
+
+  /**
+   * Forget the survey, now and once the current transaction commits, so that the next event for it
+   * sees the updated survey. It is forgotten after the commit through the {@link
+   * CacheInvalidationBus}, which also tells the other instances.
+   *
+   * @param surveyId the survey ID
+   */
+  public void invalidateSurvey(UUID surveyId) {
+    surveys.remove(surveyId);
+    invalidationBus.publish(CacheInvalidationBus.SURVEY, List.of(surveyId));
+  }
+
+  public boolean isKnownCollectionExercise(UUID collexId) {
+    Long expiry = collectionExercises.get(collexId);
+    return expiry != null && !isExpired(expiry);
+  }
+
+  public void putCollectionExercise(UUID collexId) {
+    if (ttlNanos > 0) {
+      collectionExercises.put(collexId, System.nanoTime() + ttlNanos);
+    }
+  }
+
+  /**
+   * Record the collection exercise as known once the current transaction commits, and publish its
+   * invalidation so that cached cases pick up the change.
+   *
+   * @param collexId the collection exercise ID
+   */
+  public void refreshCollectionExercise(UUID collexId) {
+    afterCommit(() -> putCollectionExercise(collexId));
+    invalidationBus.publish(CacheInvalidationBus.COLLECTION_EXERCISE, List.of(collexId));
+  }
+
+  /** Forget all cached surveys and collection exercises. */
+  public void clear() {
+    surveys.clear();
+    collectionExercises.clear();
+  }
+
+  private boolean isExpired(long expiry) {
+    return System.nanoTime() - expiry > 0;
+  }
+
+  private void afterCommit(Runnable action) {
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(
+          new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+              action.run();
+            }
+          });
+    } else {
+      action.run();
+    }
+  }
+
+  private static class CachedSurvey {
+    private final boolean accepted;
+    private final long expiry;
+
+    CachedSurvey(boolean accepted, long expiry) {
+      this.accepted = accepted;
+      this.expiry = expiry;
+    }
+  }
+}
@@ -14,6 +14,7 @@ import uk.gov.ons.ctp.common.domain.ProductGroup;
 import uk.gov.ons.ctp.common.event.model.SurveyFulfilment;
 import uk.gov.ons.ctp.common.event.model.SurveyUpdate;
 import uk.gov.ons.ctp.common.event.model.SurveyUpdateEvent;
+import uk.gov.ons.ctp.integration.contactcentresvc.event.InboundEventMetrics.Recording;
 import uk.gov.ons.ctp.integration.contactcentresvc.model.Product;
 import uk.gov.ons.ctp.integration.contactcentresvc.model.Survey;
 import uk.gov.ons.ctp.integration.contactcentresvc.repository.db.SurveyRepository;
@@ -23,10 +24,18 @@ import uk.gov.ons.ctp.integration.contactcentresvc.repository.db.SurveyRepositor
 public class SurveyUpdateEventReceiver {
   private SurveyRepository repo;
   private MapperFacade mapper;
+  private ReferenceDataCache referenceDataCache;
+  private InboundEventMetrics metrics;
 
-  public SurveyUpdateEventReceiver(SurveyRepository repo, MapperFacade mapper) {
+  public SurveyUpdateEventReceiver(
+      SurveyRepository repo,
+      MapperFacade mapper,
+      ReferenceDataCache referenceDataCache,
+      InboundEventMetrics metrics) {
     this.repo = repo;
     this.mapper = mapper;
+    this.referenceDataCache = referenceDataCache;
+    this.metrics = metrics;
   }
 
   /**
@@ -41,11 +50,12 @@ public class SurveyUpdateEventReceiver {
 
     SurveyUpdate payload = event.getPayload().getSurveyUpdate();
 
-    log.info(
+    log.debug(
         "Entering acceptSurveyUpdateEvent",
         kv("messageId", event.getHeader().getMessageId()),
         kv("surveyId", payload.getSurveyId()));
 
+    Recording recording = metrics.start(InboundEventMetrics.SURVEY, event.getHeader());
     try {
       Survey survey = mapper.map(payload, Survey.class);
 
@@ -61,6 +71,8 @@ public class SurveyUpdateEventReceiver {
       survey.setAllowedFulfilments(buildFulfilmentList);
 
       repo.saveAndFlush(survey);
+      referenceDataCache.invalidateSurvey(survey.getId());
+      recording.complete(InboundEventMetrics.ACCEPTED);
     } catch (Exception e) {
       log.error(
           "Survey Event processing failed", kv("messageId", event.getHeader().getMessageId()), e);
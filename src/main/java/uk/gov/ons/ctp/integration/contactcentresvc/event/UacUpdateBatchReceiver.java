@@ -0,0 +1,188 @@
+package uk.gov.ons.ctp.integration.contactcentresvc.event;
+
+import static uk.gov.ons.ctp.common.log.ScopedStructuredArguments.kv;
+
+import com.google.cloud.spring.pubsub.support.BasicAcknowledgeablePubsubMessage;
+import com.google.cloud.spring.pubsub.support.GcpPubSubHeaders;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import lombok.extern.slf4j.Slf4j;
+import ma.glasnost.orika.MapperFacade;
+import org.springframework.integration.annotation.MessageEndpoint;
+import org.springframework.integration.annotation.ServiceActivator;
+import org.springframework.messaging.handler.annotation.Header;
+import uk.gov.ons.ctp.common.event.model.UacEvent;
+import uk.gov.ons.ctp.common.event.model.UacUpdate;
+import uk.gov.ons.ctp.integration.contactcentresvc.config.AppConfig;
+import uk.gov.ons.ctp.integration.contactcentresvc.model.Case;
+import uk.gov.ons.ctp.integration.contactcentresvc.model.Uac;
+import uk.gov.ons.ctp.integration.contactcentresvc.repository.CaseCache;
+import uk.gov.ons.ctp.integration.contactcentresvc.repository.db.UacBatchRepository;
+
+/**
+ * Batching alternative to the {@link UacUpdateEventReceiver}, used when <code>
+ * queueconfig.uac-batch.enabled</code> is set.
+ *
+ * <p>The UACs in a batch, and the skeleton cases for any of their cases that do not yet exist, are
+ * written in one transaction with two JDBC batches. The Pub/Sub messages are acknowledged manually,
+ * only once the batch has committed. If the batch fails, the UACs are written one at a time, so
+ * that a single bad message is NAKed without holding back the others.
+ *
+ * <p>Redelivered messages are only skipped if they are in the {@link MessageDeduplicator}'s memory,
+ * as the processed message IDs are recorded after each batch rather than within its transaction.
+ * Each event is counted in the {@link InboundEventMetrics} once it is acknowledged. The cases of
+ * the UACs in a batch are dropped from the {@link CaseCache}, as a skeleton case may have been
+ * written for any of them.
+ */
+@Slf4j
+@MessageEndpoint
+public class UacUpdateBatchReceiver extends BatchingEventReceiver<UacEvent> {
+  private final UacBatchRepository uacBatchRepo;
+  private final MapperFacade mapper;
+  private final EventFilter eventFilter;
+  private final MessageDeduplicator deduplicator;
+  private final InboundEventMetrics metrics;
+  private final CaseCache caseCache;
+
+  public UacUpdateBatchReceiver(
+      UacBatchRepository uacBatchRepo,
+      MapperFacade mapper,
+      EventFilter eventFilter,
+      MessageDeduplicator deduplicator,
+      InboundEventMetrics metrics,
+      CaseCache caseCache,
+      AppConfig appConfig) {
+    super("uac", appConfig.getQueueConfig().getUacBatch());
+    this.uacBatchRepo = uacBatchRepo;
+    this.mapper = mapper;
+    this.eventFilter = eventFilter;
+    this.deduplicator = deduplicator;
+    this.metrics = metrics;
+    this.caseCache = caseCache;
+  }
+
+  /**
+   * Message end point for events from Response Management, when batching.
+   *
+   * @param uacEvent UacEvent message from Response Management
+   * @param message the original Pub/Sub message, to acknowledge once the UAC is stored
+   */
+  @ServiceActivator(inputChannel = "acceptUacEventBatch")
+  public void acceptEvent(
+      UacEvent uacEvent,
+      @Header(GcpPubSubHeaders.ORIGINAL_MESSAGE) BasicAcknowledgeablePubsubMessage message) {
+    add(uacEvent, message);
+  }
+
+  @Override
+  protected void write(List<PendingEvent<UacEvent>> batch) {
+    List<PendingUac> accepted = new ArrayList<>();
+    for (PendingEvent<UacEvent> pendingEvent : batch) {
+      Uac uac = accept(pendingEvent);
+      if (uac != null) {
+        accepted.add(new PendingUac(pendingEvent, uac));
+      }
+    }
+    if (accepted.isEmpty()) {
+      return;
+    }
+
+    List<Uac> uacs = new ArrayList<>();
+    Map<UUID, Case> skeletonCases = new LinkedHashMap<>();
+    for (PendingUac pendingUac : accepted) {
+      uacs.add(pendingUac.uac);
+      skeletonCases.computeIfAbsent(
+          pendingUac.uac.getCaseId(),
+          caseId -> UacUpdateEventReceiver.createSkeletonCase(pendingUac.uac));
+    }
+    try {
+      metrics
+          .batchWriteTimer(InboundEventMetrics.UAC)
+          .record(() -> uacBatchRepo.insertAll(uacs, skeletonCases.values()));
+      caseCache.invalidate(skeletonCases.keySet());
+      accepted.forEach(p -> p.pendingEvent.message.ack());
+      recordProcessed(accepted);
+      accepted.forEach(p -> record(p.pendingEvent, InboundEventMetrics.ACCEPTED));
+      log.debug("Successfully saved batch of UACs to database", kv("count", uacs.size()));
+    } catch (Exception e) {
+      log.warn("UAC batch failed, saving UACs individually", kv("count", uacs.size()), e);
+      accepted.forEach(this::writeOne);
+    }
+  }
+
+  /**
+   * Filter and map the UAC event, acknowledging events that we are not interested in.
+   *
+   * @return the UAC to write, or null if there is nothing to write
+   */
+  private Uac accept(PendingEvent<UacEvent> pendingEvent) {
+    UacUpdate uacUpdate = pendingEvent.event.getPayload().getUacUpdate();
+    UUID messageId = pendingEvent.event.getHeader().getMessageId();
+    try {
+      if (deduplicator.isRecentlyProcessed(messageId)) {
+        pendingEvent.message.ack();
+        record(pendingEvent, InboundEventMetrics.DUPLICATE);
+        return null;
+      }
+      if (!eventFilter.isValidEvent(
+          uacUpdate.getSurveyId(),
+          uacUpdate.getCollectionExerciseId(),
+          uacUpdate.getCaseId(),
+          messageId.toString())) {
+        pendingEvent.message.ack();
+        record(pendingEvent, InboundEventMetrics.FILTERED);
+        return null;
+      }
+      return mapper.map(uacUpdate, Uac.class);
+    } catch (Exception e) {
+      log.error("UAC Event processing failed", kv("messageId", messageId), e);
+      pendingEvent.message.nack();
+      record(pendingEvent, InboundEventMetrics.FAILED);
+      return null;
+    }
+  }
+
+  private void writeOne(PendingUac pendingUac) {
+    UUID messageId = pendingUac.pendingEvent.event.getHeader().getMessageId();
+    try {
+      if (uacBatchRepo.insert(
+          pendingUac.uac, UacUpdateEventReceiver.createSkeletonCase(pendingUac.uac))) {
+        caseCache.invalidate(pendingUac.uac.getCaseId());
+      }
+      deduplicator.recordProcessed(List.of(messageId));
+      pendingUac.pendingEvent.message.ack();
+      record(pendingUac.pendingEvent, InboundEventMetrics.ACCEPTED);
+    } catch (Exception e) {
+      log.error("UAC Event processing failed", kv("messageId", messageId), e);
+      pendingUac.pendingEvent.message.nack();
+      record(pendingUac.pendingEvent, InboundEventMetrics.FAILED);
+    }
+  }
+
+  private void record(PendingEvent<UacEvent> pendingEvent, String outcome) {
+    metrics.record(InboundEventMetrics.UAC, pendingEvent.event.getHeader(), outcome);
+  }
+
+  private void recordProcessed(List<PendingUac> written) {
+    List<UUID> messageIds = new ArrayList<>();
+    written.forEach(p -> messageIds.add(p.pendingEvent.event.getHeader().getMessageId()));
+    try {
+      deduplicator.recordProcessed(messageIds);
+    } catch (Exception e) {
+      log.warn("Failed to record processed messages", kv("count", messageIds.size()), e);
+    }
+  }
+
+  private static class PendingUac {
+    private final PendingEvent<UacEvent> pendingEvent;
+    private final Uac uac;
+
+    PendingUac(PendingEvent<UacEvent> pendingEvent, Uac uac) {
+      this.pendingEvent = pendingEvent;
+      this.uac = uac;
+    }
+  }
+}
@@ -4,8 +4,6 @@ import static uk.gov.ons.ctp.common.log.ScopedStructuredArguments.kv;
 
 import java.time.LocalDateTime;
 import java.util.Map;
-import java.util.Optional;
-import java.util.UUID;
 import lombok.extern.slf4j.Slf4j;
 import ma.glasnost.orika.MapperFacade;
 import org.springframework.integration.annotation.MessageEndpoint;
@@ -14,29 +12,45 @@ import org.springframework.transaction.annotation.Transactional;
 import uk.gov.ons.ctp.common.error.CTPException;
 import uk.gov.ons.ctp.common.event.model.UacEvent;
 import uk.gov.ons.ctp.common.event.model.UacUpdate;
+import uk.gov.ons.ctp.integration.contactcentresvc.event.InboundEventMetrics.Recording;
 import uk.gov.ons.ctp.integration.contactcentresvc.model.CCStatus;
 import uk.gov.ons.ctp.integration.contactcentresvc.model.Case;
 import uk.gov.ons.ctp.integration.contactcentresvc.model.CollectionExercise;
 import uk.gov.ons.ctp.integration.contactcentresvc.model.Uac;
-import uk.gov.ons.ctp.integration.contactcentresvc.repository.db.CaseRepository;
-import uk.gov.ons.ctp.integration.contactcentresvc.repository.db.UacRepository;
+import uk.gov.ons.ctp.integration.contactcentresvc.repository.CaseCache;
+import uk.gov.ons.ctp.integration.contactcentresvc.repository.db.UacBatchRepository;
 
-/** Service implementation responsible for receipt of UacUpdate Events. */
+/**
+ * Service implementation responsible for receipt of UacUpdate Events.
+ *
+ * <p>The UAC is written along with a skeleton case, which is only inserted if the case does not
+ * already exist, so the case is never read first. A created case is dropped from the {@link
+ * CaseCache} once it commits.
+ */
 @Slf4j
 @MessageEndpoint
 public class UacUpdateEventReceiver {
 
-  private UacRepository uacRepository;
-  private CaseRepository caseRepository;
+  private UacBatchRepository uacBatchRepository;
   private MapperFacade mapper;
   private EventFilter eventFilter;
+  private MessageDeduplicator deduplicator;
+  private InboundEventMetrics metrics;
+  private CaseCache caseCache;
 
   public UacUpdateEventReceiver(
-      UacRepository repo, CaseRepository caseRepo, MapperFacade mapper, EventFilter eventFilter) {
-    this.uacRepository = repo;
-    this.caseRepository = caseRepo;
+      UacBatchRepository uacBatchRepo,
+      MapperFacade mapper,
+      EventFilter eventFilter,
+      MessageDeduplicator deduplicator,
+      InboundEventMetrics metrics,
+      CaseCache caseCache) {
+    this.uacBatchRepository = uacBatchRepo;
     this.mapper = mapper;
     this.eventFilter = eventFilter;
+    this.deduplicator = deduplicator;
+    this.metrics = metrics;
+    this.caseCache = caseCache;
   }
 
   /**
@@ -51,44 +65,43 @@ public class UacUpdateEventReceiver {
     UacUpdate uacUpdate = uacEvent.getPayload().getUacUpdate();
     String uacMessageId = uacEvent.getHeader().getMessageId().toString();
 
-    log.info(
+    log.debug(
         "Entering acceptUACEvent",
         kv("messageId", uacMessageId),
         kv("caseId", uacUpdate.getCaseId()));
 
+    Recording recording = metrics.start(InboundEventMetrics.UAC, uacEvent.getHeader());
+    if (!deduplicator.claim(uacEvent.getHeader().getMessageId())) {
+      recording.complete(InboundEventMetrics.DUPLICATE);
+      return;
+    }
+
     if (eventFilter.isValidEvent(
         uacUpdate.getSurveyId(),
         uacUpdate.getCollectionExerciseId(),
         uacUpdate.getCaseId(),
         uacMessageId)) {
       Uac uac = mapper.map(uacUpdate, Uac.class);
-      Optional<Case> caseOptional = caseRepository.findById(UUID.fromString(uacUpdate.getCaseId()));
-      if (caseOptional.isPresent()) {
-        try {
-          uacRepository.saveAndFlush(uac);
-        } catch (Exception e) {
-          log.error("UAC Event processing failed", kv("messageId", uacMessageId), e);
-          throw e;
-        }
-      } else {
-        log.info(
-            "Case not found, creating skeleton case",
-            kv("messageId", uacMessageId),
-            kv("caseId", uacUpdate.getCaseId()));
-        Case collectionCase = createSkeletonCase(uac);
-        try {
-          caseRepository.saveAndFlush(collectionCase);
-          uacRepository.saveAndFlush(uac);
-        } catch (Exception e) {
-          log.error("UAC Event processing failed", kv("messageId", uacMessageId), e);
-          throw e;
+      try {
+        if (uacBatchRepository.insert(uac, createSkeletonCase(uac))) {
+          caseCache.invalidate(uac.getCaseId());
+          log.info(
+              "Case not found, created skeleton case",
+              kv("messageId", uacMessageId),
+              kv("caseId", uacUpdate.getCaseId()));
         }
+        recording.complete(InboundEventMetrics.ACCEPTED);
+      } catch (Exception e) {
+        log.error("UAC Event processing failed", kv("messageId", uacMessageId), e);
+        throw e;
       }
+    } else {
+      recording.complete(InboundEventMetrics.FILTERED);
     }
   }
 
   // placeholder values for fields that cannot be NULL
-  private Case createSkeletonCase(Uac uac) {
+  static Case createSkeletonCase(Uac uac) {
     Case collectionCase = new Case();
     collectionCase.setId(uac.getCaseId());
     collectionCase.setCcStatus(CCStatus.PENDING);
@@ -0,0 +1,50 @@
+package uk.gov.ons.ctp.integration.contactcentresvc.model;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+/**
+ * Representation of an event that could not be published after repeated attempts, and has been
+ * moved out of the event_to_send table until it is replayed.
+ *
+ * <p>Implementation note: avoid Lombok Data annotation, since generated toString, equals and
+ * hashcode are considered dangerous in combination with Entity annotation.
+ */
+@Getter
+@Setter
+@ToString
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+public class EventDeadLetter {
+  @Id private UUID id;
+
+  @Column(name = "event_type")
+  private String type;
+
+  private String payload;
+
+  @ToString.Exclude private byte[] payloadBytes;
+
+  private String payloadFormat;
+
+  private int lane;
+
+  private LocalDateTime createdDateTime;
+
+  private int attempts;
+
+  private String lastError;
+
+  private LocalDateTime deadLetterDateTime;
+}
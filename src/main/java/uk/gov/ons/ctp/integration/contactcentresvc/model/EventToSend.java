@@ -33,5 +33,20 @@ public class EventToSend {
 
   private String payload;
 
+  @ToString.Exclude private byte[] payloadBytes;
+
+  private String payloadFormat;
+
+  /** Priority lane, see EventToSendLanes. */
+  private int lane;
+
   private LocalDateTime createdDateTime;
+
+  /** Number of failed attempts to publish the event. */
+  private int attempts;
+
+  /** When the event may next be claimed, after a failed attempt. */
+  private LocalDateTime nextAttemptDateTime;
+
+  private String lastError;
 }
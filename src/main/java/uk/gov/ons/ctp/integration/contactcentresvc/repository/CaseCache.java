@@ -0,0 +1,365 @@
+package uk.gov.ons.ctp.integration.contactcentresvc.repository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import uk.gov.ons.ctp.integration.contactcentresvc.event.CacheInvalidationBus;
+import uk.gov.ons.ctp.integration.contactcentresvc.model.Case;
+import uk.gov.ons.ctp.integration.contactcentresvc.model.CollectionExercise;
+import uk.gov.ons.ctp.integration.contactcentresvc.model.Product;
+import uk.gov.ons.ctp.integration.contactcentresvc.model.Survey;
+
+/**
+ * Cache of the cases read by ID or case reference, since agents look at the same case many times
+ * while on a call.
+ *
+ * <p>The most recently used <code>case-cache.max-entries</code> cases are kept, each for up to
+ * <code>case-cache.ttl-seconds</code>. The case receivers invalidate a case once the update to it
+ * commits, and a case read while it was being updated is not cached, so this instance never serves
+ * a case older than the last update it stored. Invalidations are also published on the {@link
+ * CacheInvalidationBus}, so that the other instances drop the case too. Cases are also dropped when
+ * their survey or collection exercise is updated, as those are cached along with them.
+ *
+ * <p>The loader reads the case and takes a {@link #copyOf(Case) copy} of it while it is still
+ * attached, so its lazy associations are loaded. Each caller gets its own copy of what is cached,
+ * so cached cases are never attached to a persistence context or changed by callers.
+ *
+ * <p>Lookups are counted in the <code>cache.gets</code> meter, tagged cache=case and result=hit or
+ * miss, along with <code>cache.puts</code>, <code>cache.evictions</code> and <code>cache.size
+ * </code>.
+ */
+@Slf4j
+@Component
+public class CaseCache {
+  private static final String CACHE_NAME = "case";
+  private static final int STRIPES = 256;
+
+  private final int maxEntries;
+  private final long ttlNanos;
+  private final Map<UUID, CachedCase> cases;
+  private final Map<String, UUID> idsByCaseRef = new HashMap<>();
+  private final AtomicLongArray invalidatedAt = new AtomicLongArray(STRIPES);
+  private final Counter hits;
+  private final Counter misses;
+  private final Counter puts;
+  private final Counter evictions;
+  private final CacheInvalidationBus invalidationBus;
+
+  public CaseCache(
+      @Value("${case-cache.max-entries:10000}") int maxEntries,
+      @Value("${case-cache.ttl-seconds:60}") long ttlSeconds,
+      MeterRegistry meterRegistry,
+      CacheInvalidationBus invalidationBus) {
+    this.maxEntries = maxEntries;
+    this.ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+    this.cases =
+        new LinkedHashMap<>(16, 0.75f, true) {
+          private static final long serialVersionUID = 1L;
+
+          @Override
+          protected boolean removeEldestEntry(Map.Entry<UUID, CachedCase> eldest) {
+            if (size() > CaseCache.this.maxEntries) {
+              idsByCaseRef.remove(eldest.getValue().caze.getCaseRef());
+              evictions.increment();
+              return true;
+            }
+            return false;
+          }
+        };
+    markAllInvalidated();
+    this.hits = meterRegistry.counter("cache.gets", "cache", CACHE_NAME, "result", "hit");
+    this.misses = meterRegistry.counter("cache.gets", "cache", CACHE_NAME, "result", "miss");
+    this.puts = meterRegistry.counter("cache.puts", "cache", CACHE_NAME);
+    this.evictions = meterRegistry.counter("cache.evictions", "cache", CACHE_NAME);
+    meterRegistry.gauge("cache.size", Tags.of("cache", CACHE_NAME), this, CaseCache::size);
+    this.invalidationBus = invalidationBus;
+    invalidationBus.register(
+        CacheInvalidationBus.CASE,
+        new CacheInvalidationBus.Listener() {
+          @Override
+          public void invalidate(String id) {
+            remove(UUID.fromString(id));
+          }
+
+          @Override
+          public void invalidateAll() {
+            clear();
+          }
+        });
+    invalidationBus.register(
+        CacheInvalidationBus.SURVEY,
+        new CacheInvalidationBus.Listener() {
+          @Override
+          public void invalidate(String id) {
+            UUID surveyId = UUID.fromString(id);
+            removeIf(
+                c ->
+                    c.getCollectionExercise() != null
+                        && c.getCollectionExercise().getSurvey() != null
+                        && surveyId.equals(c.getCollectionExercise().getSurvey().getId()));
+          }
+
+          @Override
+          public void invalidateAll() {
+            clear();
+          }
+        });
+    invalidationBus.register(
+        CacheInvalidationBus.COLLECTION_EXERCISE,
+        new CacheInvalidationBus.Listener() {
+          @Override
+          public void invalidate(String id) {
+            UUID collexId = UUID.fromString(id);
+            removeIf(
+                c ->
+                    c.getCollectionExercise() != null
+                        && collexId.equals(c.getCollectionExercise().getId()));
+          }
+
+          @Override
+          public void invalidateAll() {
+            clear();
+          }
+        });
+    log.info("Case cache: max entries {}, time to live {}s", maxEntries, ttlSeconds);
+  }
+
+  /**
+   * Get the case with the ID, from the cache or else by loading it.
+   *
+   * @param caseId the case ID
+   * @param loader loads a detached copy of the case if it is not cached
+   * @return a copy of the case, or empty if it does not exist
+   */
+  public Optional<Case> getById(UUID caseId, Supplier<Optional<Case>> loader) {
+    if (!isEnabled()) {
+      return loader.get();
+    }
+    Case cached = lookup(caseId);
+    return cached != null ? Optional.of(copyOf(cached)) : load(loader);
+  }
+
+  /**
+   * Get the case with the case reference, from the cache or else by loading it.
+   *
+   * @param caseRef the case reference
+   * @param loader loads a detached copy of the case if it is not cached
+   * @return a copy of the case, or empty if it does not exist
+   */
+  public Optional<Case> getByCaseRef(String caseRef, Supplier<Optional<Case>> loader) {
+    if (!isEnabled()) {
+      return loader.get();
+    }
+    UUID caseId;
+    synchronized (this) {
+      caseId = idsByCaseRef.get(caseRef);
+    }
+    Case cached = caseId == null ? null : lookup(caseId);
+    return cached != null ? Optional.of(copyOf(cached)) : load(loader);
+  }
+
+  /**
+   * Forget the case, on this and the other instances, once the current transaction commits. It is
+   * also forgotten now, so that it is read again once the update to it is visible.
+   *
+   * @param caseId the case ID
+   */
+  public void invalidate(UUID caseId) {
+    invalidate(List.of(caseId));
+  }
+
+  /**
+   * Forget the cases, as {@link #invalidate(UUID)}, with one notification to the other instances.
+   *
+   * @param caseIds the case IDs
+   */
+  public void invalidate(Collection<UUID> caseIds) {
+    if (isEnabled()) {
+      caseIds.forEach(this::remove);
+    }
+    invalidationBus.publish(CacheInvalidationBus.CASE, caseIds);
+  }
+
+  /** Forget all cached cases, including any being loaded. */
+  public synchronized void clear() {
+    markAllInvalidated();
+    cases.clear();
+    idsByCaseRef.clear();
+  }
+
+  public synchronized int size() {
+    return cases.size();
+  }
+
+  private boolean isEnabled() {
+    return maxEntries > 0 && ttlNanos > 0;
+  }
+
+  private Case lookup(UUID caseId) {
+    synchronized (this) {
+      CachedCase cached = cases.get(caseId);
+      if (cached != null && System.nanoTime() - cached.expiry < 0) {
+        hits.increment();
+        return cached.caze;
+      }
+    }
+    misses.increment();
+    return null;
+  }
+
+  private Optional<Case> load(Supplier<Optional<Case>> loader) {
+    long loadStart = System.nanoTime();
+    Optional<Case> loaded = loader.get();
+    loaded.ifPresent(caze -> put(caze, loadStart));
+    return loaded.map(CaseCache::copyOf);
+  }
+
+  /**
+   * Cache the case, unless it has been invalidated since it was read, as it may then be out of
+   * date.
+   */
+  private synchronized void put(Case caze, long loadStart) {
+    if (invalidatedAt.get(stripe(caze.getId())) - loadStart >= 0) {
+      return;
+    }
+    CachedCase previous = cases.put(caze.getId(), new CachedCase(caze, loadStart + ttlNanos));
+    if (previous != null && !Objects.equals(previous.caze.getCaseRef(), caze.getCaseRef())) {
+      idsByCaseRef.remove(previous.caze.getCaseRef());
+    }
+    if (caze.getCaseRef() != null) {
+      idsByCaseRef.put(caze.getCaseRef(), caze.getId());
+    }
+    puts.increment();
+  }
+
+  private synchronized void remove(UUID caseId) {
+    invalidatedAt.set(stripe(caseId), System.nanoTime());
+    CachedCase removed = cases.remove(caseId);
+    if (removed != null && removed.caze.getCaseRef() != null) {
+      idsByCaseRef.remove(removed.caze.getCaseRef());
+    }
+  }
+
+  private synchronized void removeIf(Predicate<Case> predicate) {
+    List<UUID> caseIds = new ArrayList<>();
+    cases.forEach(
+        (caseId, cached) -> {
+          if (predicate.test(cached.caze)) {
+            caseIds.add(caseId);
+          }
+        });
+    caseIds.forEach(this::remove);
+  }
+
+  private void markAllInvalidated() {
+    long now = System.nanoTime();
+    for (int i = 0; i < STRIPES; i++) {
+      invalidatedAt.set(i, now);
+    }
+  }
+
+  private static int stripe(UUID caseId) {
+    return Math.floorMod(caseId.hashCode(), STRIPES);
+  }
+
+  /**
+   * Copy the case, along with its collection exercise, survey and products, sharing none of their
+   * collections. The JSON metadata and sample definition are shared, as they are only read.
+   *
+   * @param caze the case, which must still be attached if it has been read from the database
+   * @return the copy
+   */
+  public static Case copyOf(Case caze) {
+    return Case.builder()
+        .id(caze.getId())
+        .collectionExercise(copyOf(caze.getCollectionExercise()))
+        .caseRef(caze.getCaseRef())
+        .invalid(caze.isInvalid())
+        .refusalReceived(caze.getRefusalReceived())
+        .sample(copyOf(caze.getSample()))
+        .sampleSensitive(copyOf(caze.getSampleSensitive()))
+        .createdAt(caze.getCreatedAt())
+        .lastUpdatedAt(caze.getLastUpdatedAt())
+        .ccStatus(caze.getCcStatus())
+        .build();
+  }
+
+  private static CollectionExercise copyOf(CollectionExercise collex) {
+    if (collex == null) {
+      return null;
+    }
+    return CollectionExercise.builder()
+        .id(collex.getId())
+        .survey(copyOf(collex.getSurvey()))
+        .name(collex.getName())
+        .reference(collex.getReference())
+        .startDate(collex.getStartDate())
+        .endDate(collex.getEndDate())
+        .cohortSchedule(collex.getCohortSchedule())
+        .cohorts(collex.getCohorts())
+        .numberOfWaves(collex.getNumberOfWaves())
+        .waveLength(collex.getWaveLength())
+        .build();
+  }
+
+  private static Survey copyOf(Survey survey) {
+    if (survey == null) {
+      return null;
+    }
+    Survey copy =
+        Survey.builder()
+            .id(survey.getId())
+            .name(survey.getName())
+            .sampleDefinition(survey.getSampleDefinition())
+            .sampleDefinitionUrl(survey.getSampleDefinitionUrl())
+            .metadata(survey.getMetadata())
+            .build();
+    if (survey.getAllowedFulfilments() != null) {
+      List<Product> products = new ArrayList<>();
+      for (Product product : survey.getAllowedFulfilments()) {
+        products.add(
+            Product.builder()
+                .id(product.getId())
+                .survey(copy)
+                .deliveryChannel(product.getDeliveryChannel())
+                .productGroup(product.getProductGroup())
+                .packCode(product.getPackCode())
+                .description(product.getDescription())
+                .metadata(product.getMetadata())
+                .build());
+      }
+      copy.setAllowedFulfilments(products);
+    }
+    return copy;
+  }
+
+  private static Map<String, String> copyOf(Map<String, String> map) {
+    return map == null ? null : new LinkedHashMap<>(map);
+  }
+
+  private static class CachedCase {
+    private final Case caze;
+    private final long expiry;
+
+    CachedCase(Case caze, long expiry) {
+      this.caze = caze;
+      this.expiry = expiry;
+    }
+  }
+}
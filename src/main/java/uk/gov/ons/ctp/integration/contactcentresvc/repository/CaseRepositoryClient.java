@@ -1,31 +1,69 @@
 package uk.gov.ons.ctp.integration.contactcentresvc.repository;
 
+import static java.util.stream.Collectors.groupingBy;
+import static java.util.stream.Collectors.toSet;
 import static uk.gov.ons.ctp.common.log.ScopedStructuredArguments.kv;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import uk.gov.ons.ctp.common.error.CTPException;
 import uk.gov.ons.ctp.common.error.CTPException.Fault;
+import uk.gov.ons.ctp.common.event.model.CaseUpdate;
 import uk.gov.ons.ctp.integration.contactcentresvc.model.Case;
 import uk.gov.ons.ctp.integration.contactcentresvc.repository.db.CaseRepository;
+import uk.gov.ons.ctp.integration.contactcentresvc.repository.db.CaseRepository.CaseSummary;
 
 @Slf4j
 @Service
 public class CaseRepositoryClient {
   private CaseRepository caseRepo;
+  private CaseCache caseCache;
+  private TransactionTemplate readOnlyTransaction;
+  private Map<String, Function<String, List<Case>>> indexedSearches;
+  private Map<String, Function<String, List<CaseSummary>>> indexedSummarySearches;
 
-  public CaseRepositoryClient(CaseRepository caseRepo) {
+  public CaseRepositoryClient(
+      CaseRepository caseRepo, CaseCache caseCache, PlatformTransactionManager transactionManager) {
     this.caseRepo = caseRepo;
+    this.caseCache = caseCache;
+    this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+    this.readOnlyTransaction.setReadOnly(true);
+    this.indexedSearches =
+        Map.of(
+            CaseUpdate.ATTRIBUTE_UPRN, caseRepo::findBySampleUprnContains,
+            CaseUpdate.ATTRIBUTE_POSTCODE, caseRepo::findBySamplePostcodeContains);
+    this.indexedSummarySearches =
+        Map.of(
+            CaseUpdate.ATTRIBUTE_UPRN, caseRepo::findSummariesBySampleUprnContains,
+            CaseUpdate.ATTRIBUTE_POSTCODE, caseRepo::findSummariesBySamplePostcodeContains);
   }
 
+  /**
+   * Get the case with the ID, which is read through the {@link CaseCache}. The case is a detached
+   * copy, with its collection exercise, survey and products loaded.
+   *
+   * @param caseId the case ID
+   * @return the case
+   * @throws CTPException if the case is not found
+   */
   public Case getCaseById(UUID caseId) throws CTPException {
     log.debug("Find case details by ID", kv("caseId", caseId));
 
     Case caze =
-        caseRepo
-            .findById(caseId)
+        caseCache
+            .getById(caseId, () -> loadCopy(() -> caseRepo.findById(caseId)))
             .orElseThrow(
                 () ->
                     new CTPException(
@@ -35,21 +73,98 @@ public class CaseRepositoryClient {
     return caze;
   }
 
+  /**
+   * Find cases with a sample attribute containing the value, ignoring case and spaces. The
+   * attributes that are indexed are searched with their index, and any others by scanning the
+   * cases.
+   *
+   * @param key the sample attribute
+   * @param value the value to search for
+   * @return the matching cases
+   */
   public List<Case> getCaseBySampleAttribute(String key, String value) {
     log.debug("Find case details by {}", key, kv("key", key), kv("value", value));
 
-    List<Case> cases = caseRepo.findBySampleContains(key, value);
+    Function<String, List<Case>> indexedSearch = indexedSearches.get(key);
+    List<Case> cases =
+        indexedSearch != null
+            ? indexedSearch.apply(value)
+            : caseRepo.findBySampleContains(key, value);
 
     log.debug("Found {} case details by {}", cases.size(), key, kv("key", key), kv("value", value));
     return cases;
   }
 
+  /**
+   * Find summaries of the cases with a sample attribute containing the value, as {@link
+   * #getCaseBySampleAttribute(String, String)}, without loading the cases.
+   *
+   * @param key the sample attribute
+   * @param value the value to search for
+   * @return summaries of the matching cases
+   */
+  public List<CaseSummary> getCaseSummariesBySampleAttribute(String key, String value) {
+    log.debug("Find case summaries by {}", key, kv("key", key), kv("value", value));
+
+    Function<String, List<CaseSummary>> indexedSearch = indexedSummarySearches.get(key);
+    List<CaseSummary> summaries =
+        indexedSearch != null
+            ? indexedSearch.apply(value)
+            : caseRepo.findSummariesBySampleContains(key, value);
+
+    log.debug(
+        "Found {} case summaries by {}", summaries.size(), key, kv("key", key), kv("value", value));
+    return summaries;
+  }
+
+  /**
+   * Find summaries of the cases at each of the UPRNs, with one indexed query for them all.
+   *
+   * @param uprns the UPRNs
+   * @return summaries of the cases at each UPRN, which is empty for a UPRN without cases
+   */
+  public Map<String, List<CaseSummary>> getCaseSummariesByUprns(Collection<String> uprns) {
+    log.debug("Find case summaries by UPRNs", kv("uprnCount", uprns.size()));
+
+    Map<String, List<CaseSummary>> summariesByUprn = new LinkedHashMap<>();
+    if (uprns.isEmpty()) {
+      return summariesByUprn;
+    }
+    Set<String> normalisedUprns = uprns.stream().map(this::normalise).collect(toSet());
+    List<CaseSummary> summaries = caseRepo.findSummariesBySampleUprnIn(normalisedUprns);
+    Map<String, List<CaseSummary>> found =
+        summaries.stream().collect(groupingBy(CaseSummary::getUprn));
+    for (String uprn : uprns) {
+      summariesByUprn.put(uprn, found.getOrDefault(normalise(uprn), new ArrayList<>()));
+    }
+
+    log.debug(
+        "Found case summaries by UPRNs",
+        kv("uprnCount", uprns.size()),
+        kv("caseCount", summaries.size()));
+    return summariesByUprn;
+  }
+
+  /** Normalise a value as it is held in the indexed sample columns. */
+  private String normalise(String value) {
+    return value.replace(" ", "").toUpperCase();
+  }
+
+  /**
+   * Get the case with the case reference, which is read through the {@link CaseCache}. The case is
+   * a detached copy, with its collection exercise, survey and products loaded.
+   *
+   * @param caseReference the case reference
+   * @return the case
+   * @throws CTPException if the case is not found
+   */
   public Case getCaseByCaseRef(Long caseReference) throws CTPException {
     log.debug("Find case details by case reference", kv("caseReference", caseReference));
 
+    String caseRef = caseReference.toString();
     Case caze =
-        caseRepo
-            .findByCaseRef(caseReference.toString())
+        caseCache
+            .getByCaseRef(caseRef, () -> loadCopy(() -> caseRepo.findByCaseRef(caseRef)))
             .orElseThrow(
                 () ->
                     new CTPException(
@@ -59,4 +174,12 @@ public class CaseRepositoryClient {
     log.debug("Found case details by case reference", kv("caseReference", caseReference));
     return caze;
   }
+
+  /**
+   * Read the case and copy it within a transaction, so that its lazy associations can be loaded
+   * whether or not the caller has a transaction.
+   */
+  private Optional<Case> loadCopy(Supplier<Optional<Case>> finder) {
+    return readOnlyTransaction.execute(status -> finder.get().map(CaseCache::copyOf));
+  }
 }
@@ -0,0 +1,238 @@
+package uk.gov.ons.ctp.integration.contactcentresvc.repository.db;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import org.postgresql.PGConnection;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import uk.gov.ons.ctp.common.jackson.CustomObjectMapper;
+import uk.gov.ons.ctp.integration.contactcentresvc.model.Case;
+import uk.gov.ons.ctp.integration.contactcentresvc.util.RawJsonMap;
+
+/**
+ * Writes of cases, bypassing Hibernate, for high volume inbound case updates.
+ *
+ * <p>Each case is written with an "INSERT ... ON CONFLICT" upsert, so there is no select before
+ * each write as there is with a JPA merge. Batches are sent as a single JDBC batch, and with the
+ * postgres driver option <code>reWriteBatchedInserts=true</code> as multi-row inserts.
+ *
+ * <p>An existing case is only updated if the update is newer, by <code>last_updated_at</code>, so
+ * redelivered and out of order updates never overwrite newer state. Skeleton (PENDING) cases are
+ * always updated.
+ *
+ * <p>Bulk loads use COPY rather than INSERT, see {@link #copyAll(Collection)}. Sample attributes
+ * that are still the JSON they arrived as, see {@link RawJsonMap}, are written without being
+ * converted again.
+ */
+@Repository
+public class CaseBatchRepository {
+  private static final String CASE_COLUMNS =
+      "id, collection_exercise_id, case_ref, invalid, refusal_received, sample, sample_sensitive, "
+          + "created_at, last_updated_at, cc_status";
+
+  private static final String INSERT_CASE =
+      "INSERT INTO cc_schema.collection_case ("
+          + CASE_COLUMNS
+          + ") VALUES (?, ?, ?, ?, ?, CAST(? AS JSONB), CAST(? AS JSONB), ?, ?, ?) ";
+
+  private static final String INSERT_CASE_IF_ABSENT = INSERT_CASE + "ON CONFLICT (id) DO NOTHING";
+
+  private static final String UPDATE_IF_NEWER =
+      "ON CONFLICT (id) DO UPDATE SET "
+          + "collection_exercise_id = EXCLUDED.collection_exercise_id, "
+          + "case_ref = EXCLUDED.case_ref, "
+          + "invalid = EXCLUDED.invalid, "
+          + "refusal_received = EXCLUDED.refusal_received, "
+          + "sample = EXCLUDED.sample, "
+          + "sample_sensitive = EXCLUDED.sample_sensitive, "
+          + "created_at = EXCLUDED.created_at, "
+          + "last_updated_at = EXCLUDED.last_updated_at, "
+          + "cc_status = EXCLUDED.cc_status "
+          + "WHERE collection_case.cc_status <> 'READY' "
+          + "OR collection_case.last_updated_at IS NULL "
+          + "OR EXCLUDED.last_updated_at IS NULL "
+          + "OR collection_case.last_updated_at < EXCLUDED.last_updated_at";
+
+  private static final String UPSERT_CASE = INSERT_CASE + UPDATE_IF_NEWER;
+
+  private static final String CREATE_LOAD_TABLE =
+      "CREATE TEMP TABLE case_load (LIKE cc_schema.collection_case INCLUDING DEFAULTS) "
+          + "ON COMMIT DROP";
+
+  private static final String COPY_TO_LOAD_TABLE =
+      "COPY case_load (" + CASE_COLUMNS + ") FROM STDIN WITH (FORMAT csv)";
+
+  // only the latest update of each case is kept, as a case can only be updated once per statement
+  private static final String UPSERT_FROM_LOAD_TABLE =
+      "INSERT INTO cc_schema.collection_case ("
+          + CASE_COLUMNS
+          + ") SELECT DISTINCT ON (id) "
+          + CASE_COLUMNS
+          + " FROM case_load ORDER BY id, last_updated_at DESC NULLS LAST "
+          + UPDATE_IF_NEWER;
+
+  private final JdbcTemplate jdbcTemplate;
+  private final CustomObjectMapper mapper;
+
+  public CaseBatchRepository(JdbcTemplate jdbcTemplate, CustomObjectMapper mapper) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.mapper = mapper;
+  }
+
+  /**
+   * Insert the case, or update it if this is a newer update than the stored case.
+   *
+   * @param caze the case to write
+   * @return false if the case was not written, as the stored case is as new or newer
+   */
+  public boolean upsert(Case caze) {
+    return jdbcTemplate.update(UPSERT_CASE, toRow(caze)) > 0;
+  }
+
+  /**
+   * Insert or update all the given cases in a single transaction. Updates that are older than the
+   * stored case are skipped, as for {@link #upsert(Case)}, as are all but the latest update of any
+   * case that appears more than once.
+   *
+   * @param cases the cases to write, which are written in order
+   * @return the number of stale updates that were skipped. Stale updates of stored cases are only
+   *     counted if the driver reports the row counts, which it does not when batched inserts are
+   *     rewritten.
+   */
+  @Transactional
+  public int upsertAll(Collection<Case> cases) {
+    if (cases.isEmpty()) {
+      return 0;
+    }
+    // a rewritten multi-row insert can only update each case once
+    Map<UUID, Case> latest = new LinkedHashMap<>();
+    cases.forEach(caze -> latest.merge(caze.getId(), caze, CaseBatchRepository::later));
+    List<Object[]> rows = latest.values().stream().map(this::toRow).collect(Collectors.toList());
+    int[] counts = jdbcTemplate.batchUpdate(UPSERT_CASE, rows);
+    int repeated = cases.size() - latest.size();
+    return repeated + (int) Arrays.stream(counts).filter(count -> count == 0).count();
+  }
+
+  /** The later of two updates of a case, as ordered for {@link #copyAll(Collection)}. */
+  private static Case later(Case first, Case second) {
+    LocalDateTime firstUpdatedAt = first.getLastUpdatedAt();
+    LocalDateTime secondUpdatedAt = second.getLastUpdatedAt();
+    if (secondUpdatedAt == null) {
+      return firstUpdatedAt == null ? second : first;
+    }
+    return firstUpdatedAt != null && firstUpdatedAt.isAfter(secondUpdatedAt) ? first : second;
+  }
+
+  /**
+   * Insert the case, unless there is already a case with its ID. This is used for skeleton cases,
+   * which must never overwrite a real case.
+   *
+   * @param caze the case to insert
+   * @return true if the case was inserted
+   */
+  public boolean insertIfAbsent(Case caze) {
+    return jdbcTemplate.update(INSERT_CASE_IF_ABSENT, toRow(caze)) > 0;
+  }
+
+  /**
+   * Insert all the given cases, skipping any that already exist, as for {@link
+   * #insertIfAbsent(Case)}.
+   *
+   * @param cases the cases to insert
+   */
+  @Transactional
+  public void insertAllIfAbsent(Collection<Case> cases) {
+    if (cases.isEmpty()) {
+      return;
+    }
+    List<Object[]> rows = cases.stream().map(this::toRow).collect(Collectors.toList());
+    jdbcTemplate.batchUpdate(INSERT_CASE_IF_ABSENT, rows);
+  }
+
+  /**
+   * Insert or update all the given cases using the postgres COPY command, for bulk loads. The cases
+   * are copied into a temporary table, and then upserted from it in a single statement. As for
+   * {@link #upsert(Case)}, updates that are older than the stored case are skipped, as are all but
+   * the latest update of any case that appears more than once.
+   *
+   * @param cases the cases to write
+   * @return the number of cases written
+   */
+  @Transactional
+  public int copyAll(Collection<Case> cases) {
+    if (cases.isEmpty()) {
+      return 0;
+    }
+    String csv = toCsv(cases);
+    jdbcTemplate.execute(CREATE_LOAD_TABLE);
+    jdbcTemplate.execute(
+        (ConnectionCallback<Long>)
+            connection -> {
+              try {
+                return connection
+                    .unwrap(PGConnection.class)
+                    .getCopyAPI()
+                    .copyIn(COPY_TO_LOAD_TABLE, new StringReader(csv));
+              } catch (IOException e) {
+                throw new UncheckedIOException(e);
+              }
+            });
+    return jdbcTemplate.update(UPSERT_FROM_LOAD_TABLE);
+  }
+
+  private String toCsv(Collection<Case> cases) {
+    StringBuilder csv = new StringBuilder();
+    for (Case caze : cases) {
+      Object[] row = toRow(caze);
+      for (int i = 0; i < row.length; i++) {
+        if (i > 0) {
+          csv.append(',');
+        }
+        // an unquoted empty value is NULL, so every other value is quoted
+        if (row[i] != null) {
+          csv.append('"').append(row[i].toString().replace("\"", "\"\"")).append('"');
+        }
+      }
+      csv.append('\n');
+    }
+    return csv.toString();
+  }
+
+  private Object[] toRow(Case caze) {
+    return new Object[] {
+      caze.getId(),
+      caze.getCollectionExercise().getId(),
+      caze.getCaseRef(),
+      caze.isInvalid(),
+      caze.getRefusalReceived() == null ? null : caze.getRefusalReceived().name(),
+      toJson(caze.getSample()),
+      toJson(caze.getSampleSensitive()),
+      caze.getCreatedAt(),
+      caze.getLastUpdatedAt(),
+      caze.getCcStatus() == null ? null : caze.getCcStatus().name()
+    };
+  }
+
+  private String toJson(Map<String, String> map) {
+    if (map instanceof RawJsonMap && ((RawJsonMap) map).getRawJson() != null) {
+      return ((RawJsonMap) map).getRawJson();
+    }
+    try {
+      return mapper.writeValueAsString(map);
+    } catch (JsonProcessingException e) {
+      throw new RuntimeException("Failed converting Object To Json", e);
+    }
+  }
+}
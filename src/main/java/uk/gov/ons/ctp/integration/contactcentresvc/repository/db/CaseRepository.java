@@ -1,5 +1,6 @@
 package uk.gov.ons.ctp.integration.contactcentresvc.repository.db;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -9,12 +10,125 @@ import org.springframework.data.repository.query.Param;
 import uk.gov.ons.ctp.integration.contactcentresvc.model.Case;
 
 public interface CaseRepository extends JpaRepository<Case, UUID> {
+  /**
+   * Select for case summaries, joined to their survey. The ID is selected as text, and converted
+   * back to a UUID by the projection, as Hibernate cannot map UUID columns in native query results.
+   */
+  String SELECT_SUMMARY =
+      "SELECT CAST(c.id AS TEXT) AS \"id\", c.case_ref AS \"caseRef\", c.sample_uprn AS \"uprn\", "
+          + "s.name AS \"surveyName\", s.sample_definition_url AS \"sampleDefinitionUrl\" "
+          + "FROM cc_schema.collection_case c "
+          + "JOIN cc_schema.collection_exercise e ON e.id = c.collection_exercise_id "
+          + "JOIN cc_schema.survey s ON s.id = e.survey_id ";
+
   Optional<Case> findByCaseRef(String caseRef);
 
+  /**
+   * Find cases with a sample attribute containing the value, ignoring case and spaces. This scans
+   * every case, so the indexed searches below should be used for the attributes they cover.
+   *
+   * @param key the sample attribute
+   * @param value the value to search for
+   * @return the matching cases
+   */
   @Query(
       value =
           "SELECT * FROM cc_schema.collection_case WHERE UPPER(REPLACE(sample ->> :key, ' ', '')) "
               + "LIKE CONCAT('%', UPPER(REPLACE(:value, ' ', '')), '%')",
       nativeQuery = true)
   List<Case> findBySampleContains(@Param("key") String key, @Param("value") String value);
+
+  /**
+   * Find cases with a UPRN containing the value, using the trigram index on the normalised UPRN.
+   *
+   * @param value the value to search for, ignoring case and spaces
+   * @return the matching cases
+   */
+  @Query(
+      value =
+          "SELECT * FROM cc_schema.collection_case WHERE sample_uprn "
+              + "LIKE CONCAT('%', UPPER(REPLACE(:value, ' ', '')), '%')",
+      nativeQuery = true)
+  List<Case> findBySampleUprnContains(@Param("value") String value);
+
+  /**
+   * Find cases with a postcode containing the value, using the trigram index on the normalised
+   * postcode.
+   *
+   * @param value the value to search for, ignoring case and spaces
+   * @return the matching cases
+   */
+  @Query(
+      value =
+          "SELECT * FROM cc_schema.collection_case WHERE sample_postcode "
+              + "LIKE CONCAT('%', UPPER(REPLACE(:value, ' ', '')), '%')",
+      nativeQuery = true)
+  List<Case> findBySamplePostcodeContains(@Param("value") String value);
+
+  /**
+   * Find summaries of the cases with a sample attribute containing the value, ignoring case and
+   * spaces, scanning every case as {@link #findBySampleContains(String, String)} does.
+   *
+   * @param key the sample attribute
+   * @param value the value to search for
+   * @return summaries of the matching cases
+   */
+  @Query(
+      value =
+          SELECT_SUMMARY
+              + "WHERE UPPER(REPLACE(c.sample ->> :key, ' ', '')) "
+              + "LIKE CONCAT('%', UPPER(REPLACE(:value, ' ', '')), '%')",
+      nativeQuery = true)
+  List<CaseSummary> findSummariesBySampleContains(
+      @Param("key") String key, @Param("value") String value);
+
+  /**
+   * Find summaries of the cases with a UPRN containing the value, using the trigram index.
+   *
+   * @param value the value to search for, ignoring case and spaces
+   * @return summaries of the matching cases
+   */
+  @Query(
+      value =
+          SELECT_SUMMARY
+              + "WHERE c.sample_uprn LIKE CONCAT('%', UPPER(REPLACE(:value, ' ', '')), '%')",
+      nativeQuery = true)
+  List<CaseSummary> findSummariesBySampleUprnContains(@Param("value") String value);
+
+  /**
+   * Find summaries of the cases with a postcode containing the value, using the trigram index.
+   *
+   * @param value the value to search for, ignoring case and spaces
+   * @return summaries of the matching cases
+   */
+  @Query(
+      value =
+          SELECT_SUMMARY
+              + "WHERE c.sample_postcode LIKE CONCAT('%', UPPER(REPLACE(:value, ' ', '')), '%')",
+      nativeQuery = true)
+  List<CaseSummary> findSummariesBySamplePostcodeContains(@Param("value") String value);
+
+  /**
+   * Find summaries of the cases with any of the UPRNs, using the B-tree index on the normalised
+   * UPRN.
+   *
+   * @param uprns the UPRNs, in upper case without spaces
+   * @return summaries of the matching cases
+   */
+  @Query(value = SELECT_SUMMARY + "WHERE c.sample_uprn IN (:uprns)", nativeQuery = true)
+  List<CaseSummary> findSummariesBySampleUprnIn(@Param("uprns") Collection<String> uprns);
+
+  /** Projection of the columns needed to summarise a case, without its sample. */
+  interface CaseSummary {
+    UUID getId();
+
+    String getCaseRef();
+
+    /** The UPRN, in upper case without spaces. */
+    String getUprn();
+
+    String getSurveyName();
+
+    String getSampleDefinitionUrl();
+  }
 }
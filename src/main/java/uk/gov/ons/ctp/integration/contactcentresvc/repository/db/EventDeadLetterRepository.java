@@ -0,0 +1,10 @@
+package uk.gov.ons.ctp.integration.contactcentresvc.repository.db;
+
+import java.util.List;
+import java.util.UUID;
+import org.springframework.data.jpa.repository.JpaRepository;
+import uk.gov.ons.ctp.integration.contactcentresvc.model.EventDeadLetter;
+
+public interface EventDeadLetterRepository extends JpaRepository<EventDeadLetter, UUID> {
+  List<EventDeadLetter> findAllByOrderByDeadLetterDateTime();
+}
@@ -1,30 +1,95 @@
 package uk.gov.ons.ctp.integration.contactcentresvc.repository.db;
 
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 import java.util.stream.Stream;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import uk.gov.ons.ctp.integration.contactcentresvc.model.EventToSend;
 
 public interface EventToSendRepository extends JpaRepository<EventToSend, UUID> {
+  /** Condition for events that are not waiting to be retried after a failed attempt. */
+  String READY = "(next_attempt_date_time IS NULL OR next_attempt_date_time <= LOCALTIMESTAMP)";
+
   /**
-   * Find a chunk of work-items (events to send) and "claim" them at DB level using postgres SQL
-   * extension "UPDATE SKIP LOCKED" facility which is designed for this type of work-queue
-   * processing.
+   * Find a chunk of work-items (events to send) from a range of priority lanes and "claim" them at
+   * DB level using postgres SQL extension "UPDATE SKIP LOCKED" facility which is designed for this
+   * type of work-queue processing.
    *
    * <p>A useful description of the postgres query is here:
    * https://www.2ndquadrant.com/en/blog/what-is-select-skip-locked-for-in-postgresql-9-5/
    *
+   * @param fromLane the first lane number to claim from
+   * @param toLane the last lane number to claim from
    * @param limit the maximum number of items to return
    * @return a stream of <code>EventToSend</code> items that had previously not been claimed for
-   *     processing, but now they are claimed and locked for this transaction context, ordered by
-   *     created_date_time
+   *     processing, and are not waiting to be retried, but now they are claimed and locked for this
+   *     transaction context, ordered by created_date_time
    */
   @Query(
       value =
-          "SELECT * FROM cc_schema.event_to_send ORDER BY "
-              + "cc_schema.event_to_send.created_date_time LIMIT :limit FOR UPDATE SKIP LOCKED",
+          "SELECT * FROM cc_schema.event_to_send WHERE lane BETWEEN :fromLane AND :toLane AND "
+              + READY
+              + " ORDER BY created_date_time LIMIT :limit FOR UPDATE SKIP LOCKED",
+      nativeQuery = true)
+  Stream<EventToSend> findEventsToSendInLanes(
+      @Param("fromLane") int fromLane, @Param("toLane") int toLane, @Param("limit") int limit);
+
+  /**
+   * Record a failed attempt to publish an event, and reschedule it with exponential back-off. The
+   * delay doubles with each attempt, starting at the initial delay, up to the maximum delay.
+   *
+   * @param id the ID of the event
+   * @param error description of the failure
+   * @param initialDelaySeconds the delay after the first failure
+   * @param maxDelaySeconds the maximum delay
+   */
+  @Modifying
+  @Query(
+      value =
+          "UPDATE cc_schema.event_to_send SET attempts = attempts + 1, last_error = :error, "
+              + "next_attempt_date_time = LOCALTIMESTAMP + make_interval(secs => LEAST("
+              + ":maxDelaySeconds, :initialDelaySeconds * power(2, LEAST(attempts, 30)))) "
+              + "WHERE id = :id",
+      nativeQuery = true)
+  void rescheduleEventToSend(
+      @Param("id") UUID id,
+      @Param("error") String error,
+      @Param("initialDelaySeconds") long initialDelaySeconds,
+      @Param("maxDelaySeconds") long maxDelaySeconds);
+
+  /**
+   * Claim a single event to send, if it is still present and not already claimed by another
+   * transaction.
+   *
+   * @param id the ID of the event
+   * @return the claimed event, or empty if it has already been sent or is claimed elsewhere
+   */
+  @Query(
+      value = "SELECT * FROM cc_schema.event_to_send WHERE id = :id FOR UPDATE SKIP LOCKED",
       nativeQuery = true)
-  Stream<EventToSend> findEventsToSend(@Param("limit") int limit);
+  Optional<EventToSend> claimEventToSend(@Param("id") UUID id);
+
+  /**
+   * Summarise the events waiting to be sent, for each event type.
+   *
+   * @return the number of events and the oldest creation time, for each event type present
+   */
+  @Query(
+      "SELECT e.type AS type, COUNT(e) AS depth, MIN(e.createdDateTime) AS oldest "
+          + "FROM EventToSend e GROUP BY e.type")
+  List<TypeBacklog> findBacklogByType();
+
+  /** Projection of the waiting events for one event type. */
+  interface TypeBacklog {
+    String getType();
+
+    long getDepth();
+
+    LocalDateTime getOldest();
+  }
 }
@@ -0,0 +1,71 @@
+package uk.gov.ons.ctp.integration.contactcentresvc.repository.db;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/** Store of the IDs of inbound messages that have been processed. */
+@Repository
+public class ProcessedMessageRepository {
+  // a row older than the time to live is taken over, as if it had already been deleted
+  private static final String CLAIM_MESSAGE =
+      "INSERT INTO cc_schema.processed_message (message_id, processed_date_time) "
+          + "VALUES (?, LOCALTIMESTAMP) "
+          + "ON CONFLICT (message_id) DO UPDATE SET processed_date_time = LOCALTIMESTAMP "
+          + "WHERE processed_message.processed_date_time "
+          + "< LOCALTIMESTAMP - make_interval(secs => ?)";
+
+  private static final String INSERT_MESSAGE =
+      "INSERT INTO cc_schema.processed_message (message_id, processed_date_time) "
+          + "VALUES (?, LOCALTIMESTAMP) ON CONFLICT (message_id) DO NOTHING";
+
+  private static final String DELETE_EXPIRED =
+      "DELETE FROM cc_schema.processed_message "
+          + "WHERE processed_date_time < LOCALTIMESTAMP - make_interval(secs => ?)";
+
+  private final JdbcTemplate jdbcTemplate;
+
+  public ProcessedMessageRepository(JdbcTemplate jdbcTemplate) {
+    this.jdbcTemplate = jdbcTemplate;
+  }
+
+  /**
+   * Record the message as processed, in the current transaction, unless it has already been
+   * processed within the time to live. If another transaction is processing the same message, this
+   * waits for that transaction to finish.
+   *
+   * @param messageId the message ID
+   * @param ttlSeconds how long a processed message is remembered for
+   * @return true if the message was recorded, or false if it has already been processed
+   */
+  public boolean claim(UUID messageId, long ttlSeconds) {
+    return jdbcTemplate.update(CLAIM_MESSAGE, messageId, ttlSeconds) > 0;
+  }
+
+  /**
+   * Record all the messages as processed.
+   *
+   * @param messageIds the message IDs
+   */
+  public void saveAll(Collection<UUID> messageIds) {
+    if (messageIds.isEmpty()) {
+      return;
+    }
+    List<Object[]> rows =
+        messageIds.stream().map(id -> new Object[] {id}).collect(Collectors.toList());
+    jdbcTemplate.batchUpdate(INSERT_MESSAGE, rows);
+  }
+
+  /**
+   * Delete the messages processed more than the time to live ago.
+   *
+   * @param ttlSeconds how long a processed message is remembered for
+   * @return the number of messages deleted
+   */
+  public int deleteExpired(long ttlSeconds) {
+    return jdbcTemplate.update(DELETE_EXPIRED, ttlSeconds);
+  }
+}
@@ -0,0 +1,83 @@
+package uk.gov.ons.ctp.integration.contactcentresvc.repository.db;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import uk.gov.ons.ctp.integration.contactcentresvc.model.Case;
+import uk.gov.ons.ctp.integration.contactcentresvc.model.Uac;
+
+/**
+ * Writes of UACs, bypassing Hibernate, for high volume inbound UAC updates.
+ *
+ * <p>A UAC can arrive before its case, in which case a skeleton case is inserted for it. The
+ * skeleton is inserted with "ON CONFLICT DO NOTHING", so there is no need to read the case first.
+ */
+@Repository
+public class UacBatchRepository {
+  private static final String INSERT_UAC =
+      "INSERT INTO cc_schema.uac (id, case_id, wave_num, active, receipt_received, eq_launched, "
+          + "uac_hash, questionnaire, collection_exercise_id, survey_id, collection_instrument_url) "
+          + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+  private final JdbcTemplate jdbcTemplate;
+  private final CaseBatchRepository caseBatchRepo;
+
+  public UacBatchRepository(JdbcTemplate jdbcTemplate, CaseBatchRepository caseBatchRepo) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.caseBatchRepo = caseBatchRepo;
+  }
+
+  /**
+   * Insert the UAC, and its skeleton case if the case does not already exist.
+   *
+   * @param uac the UAC to insert
+   * @param skeletonCase the skeleton case for the UAC
+   * @return true if the skeleton case was inserted
+   */
+  @Transactional
+  public boolean insert(Uac uac, Case skeletonCase) {
+    boolean skeletonInserted = caseBatchRepo.insertIfAbsent(skeletonCase);
+    jdbcTemplate.update(INSERT_UAC, toRow(uac));
+    return skeletonInserted;
+  }
+
+  /**
+   * Insert all the given UACs, and the skeleton cases for any of their cases that do not already
+   * exist, in a single transaction.
+   *
+   * @param uacs the UACs to insert
+   * @param skeletonCases the skeleton cases for the UACs
+   */
+  @Transactional
+  public void insertAll(Collection<Uac> uacs, Collection<Case> skeletonCases) {
+    if (uacs.isEmpty()) {
+      return;
+    }
+    caseBatchRepo.insertAllIfAbsent(skeletonCases);
+    List<Object[]> rows = uacs.stream().map(this::toRow).collect(Collectors.toList());
+    jdbcTemplate.batchUpdate(INSERT_UAC, rows);
+  }
+
+  private Object[] toRow(Uac uac) {
+    if (uac.getId() == null) {
+      uac.setId(UUID.randomUUID());
+    }
+    return new Object[] {
+      uac.getId(),
+      uac.getCaseId(),
+      uac.getWaveNum(),
+      uac.isActive(),
+      uac.isReceiptReceived(),
+      uac.isEqLaunched(),
+      uac.getUacHash(),
+      uac.getQuestionnaire(),
+      uac.getCollectionExerciseId(),
+      uac.getSurveyId(),
+      uac.getCollectionInstrumentUrl()
+    };
+  }
+}
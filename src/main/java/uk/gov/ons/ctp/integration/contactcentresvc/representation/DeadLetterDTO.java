@@ -0,0 +1,27 @@
+package uk.gov.ons.ctp.integration.contactcentresvc.representation;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DeadLetterDTO {
+
+  private UUID id;
+
+  private String type;
+
+  private LocalDateTime createdDateTime;
+
+  private int attempts;
+
+  private String lastError;
+
+  private LocalDateTime deadLetterDateTime;
+}
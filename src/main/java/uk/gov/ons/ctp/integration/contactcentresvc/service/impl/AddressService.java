@@ -1,10 +1,14 @@
 package uk.gov.ons.ctp.integration.contactcentresvc.service.impl;
 
 import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toSet;
 import static uk.gov.ons.ctp.common.log.ScopedStructuredArguments.kv;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -13,7 +17,6 @@ import org.springframework.web.server.ResponseStatusException;
 import uk.gov.ons.ctp.common.domain.AddressType;
 import uk.gov.ons.ctp.common.domain.EstabType;
 import uk.gov.ons.ctp.common.error.CTPException;
-import uk.gov.ons.ctp.common.event.model.CaseUpdate;
 import uk.gov.ons.ctp.common.util.StringUtils;
 import uk.gov.ons.ctp.integration.contactcentresvc.client.addressindex.AddressServiceClientServiceImpl;
 import uk.gov.ons.ctp.integration.contactcentresvc.client.addressindex.model.AddressIndexAddressCompositeDTO;
@@ -186,12 +189,15 @@ public class AddressService {
       }
     }
 
-    // Attach key information about any cases at each address
+    // Attach key information about any cases at each address, finding them all at once
+    Set<String> uprns =
+        summarisedAddresses.stream()
+            .map(AddressDTO::getUprn)
+            .filter(Objects::nonNull)
+            .collect(toSet());
+    Map<String, List<CaseSummaryDTO>> casesByUprn = caseService.getCaseSummariesByUprns(uprns);
     for (AddressDTO address : summarisedAddresses) {
-      // Find cases at this address
-      List<CaseSummaryDTO> casesAtUprn =
-          caseService.getCaseSummaryBySampleAttribute(CaseUpdate.ATTRIBUTE_UPRN, address.getUprn());
-      address.setCases(casesAtUprn);
+      address.setCases(casesByUprn.getOrDefault(address.getUprn(), new ArrayList<>()));
     }
 
     // Complete construction of response objects
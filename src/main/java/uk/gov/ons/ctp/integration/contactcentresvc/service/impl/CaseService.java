@@ -7,9 +7,11 @@ import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Base64;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -65,6 +67,7 @@ import uk.gov.ons.ctp.integration.contactcentresvc.model.Survey;
 import uk.gov.ons.ctp.integration.contactcentresvc.model.Uac;
 import uk.gov.ons.ctp.integration.contactcentresvc.repository.CaseRepositoryClient;
 import uk.gov.ons.ctp.integration.contactcentresvc.repository.db.CaseInteractionRepository;
+import uk.gov.ons.ctp.integration.contactcentresvc.repository.db.CaseRepository.CaseSummary;
 import uk.gov.ons.ctp.integration.contactcentresvc.repository.db.UacRepository;
 import uk.gov.ons.ctp.integration.contactcentresvc.representation.CaseDTO;
 import uk.gov.ons.ctp.integration.contactcentresvc.representation.CaseInteractionDTO;
@@ -220,25 +223,44 @@ public class CaseService {
       log.debug("Fetching latest case summary details", kv("key", key), kv("value", value));
     }
 
-    // Find matching cases
-    List<Case> dbCases;
-    dbCases = caseRepoClient.getCaseBySampleAttribute(key, value);
-    // Summarise all found cases
+    // Find summaries of the matching cases, without loading the cases
+    List<CaseSummary> dbSummaries = caseRepoClient.getCaseSummariesBySampleAttribute(key, value);
+    return summariseCases(dbSummaries);
+  }
+
+  /**
+   * Get summaries of the cases at each of a page of UPRNs, such as those found by an address
+   * search, with one lookup for them all.
+   *
+   * @param uprns the UPRNs
+   * @return the case summaries at each UPRN, which is empty for a UPRN without cases
+   */
+  public Map<String, List<CaseSummaryDTO>> getCaseSummariesByUprns(Collection<String> uprns) {
+    if (log.isDebugEnabled()) {
+      log.debug("Fetching latest case summary details by UPRNs", kv("uprnCount", uprns.size()));
+    }
+
+    Map<String, List<CaseSummaryDTO>> caseSummariesByUprn = new LinkedHashMap<>();
+    caseRepoClient
+        .getCaseSummariesByUprns(uprns)
+        .forEach((uprn, dbSummaries) -> caseSummariesByUprn.put(uprn, summariseCases(dbSummaries)));
+    return caseSummariesByUprn;
+  }
+
+  private List<CaseSummaryDTO> summariseCases(List<CaseSummary> dbSummaries) {
     List<CaseSummaryDTO> caseSummaries = new ArrayList<>();
-    for (Case dbCase : dbCases) {
+    for (CaseSummary dbSummary : dbSummaries) {
       CaseSummaryDTO caseSummary = new CaseSummaryDTO();
-      caseSummary.setId(dbCase.getId());
-      caseSummary.setCaseRef(dbCase.getCaseRef());
-
-      Survey survey = dbCase.getCollectionExercise().getSurvey();
-      caseSummary.setSurveyName(survey.getName());
+      caseSummary.setId(dbSummary.getId());
+      caseSummary.setCaseRef(dbSummary.getCaseRef());
+      caseSummary.setSurveyName(dbSummary.getSurveyName());
 
-      SurveyType surveyType = SurveyType.fromSampleDefinitionUrl(survey.getSampleDefinitionUrl());
+      SurveyType surveyType =
+          SurveyType.fromSampleDefinitionUrl(dbSummary.getSampleDefinitionUrl());
       caseSummary.setSurveyType(surveyType.name());
 
       caseSummaries.add(caseSummary);
     }
-
     return caseSummaries;
   }
 
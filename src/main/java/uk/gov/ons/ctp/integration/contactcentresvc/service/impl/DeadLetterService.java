@@ -0,0 +1,82 @@
+package uk.gov.ons.ctp.integration.contactcentresvc.service.impl;
+
+import static uk.gov.ons.ctp.common.log.ScopedStructuredArguments.kv;
+
+import java.util.List;
+import java.util.UUID;
+import lombok.extern.slf4j.Slf4j;
+import ma.glasnost.orika.MapperFacade;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import uk.gov.ons.ctp.common.error.CTPException;
+import uk.gov.ons.ctp.common.error.CTPException.Fault;
+import uk.gov.ons.ctp.integration.contactcentresvc.model.EventDeadLetter;
+import uk.gov.ons.ctp.integration.contactcentresvc.model.EventToSend;
+import uk.gov.ons.ctp.integration.contactcentresvc.repository.db.EventDeadLetterRepository;
+import uk.gov.ons.ctp.integration.contactcentresvc.repository.db.EventToSendRepository;
+import uk.gov.ons.ctp.integration.contactcentresvc.representation.DeadLetterDTO;
+
+/** Manage outbound events that were moved to the dead letter table after failing to publish. */
+@Slf4j
+@Service
+public class DeadLetterService {
+  @Autowired MapperFacade mapper;
+  @Autowired private EventDeadLetterRepository eventDeadLetterRepository;
+  @Autowired private EventToSendRepository eventToSendRepository;
+
+  @Transactional
+  public List<DeadLetterDTO> getDeadLetters() {
+    log.info("Entering getDeadLetters");
+    return mapper.mapAsList(
+        eventDeadLetterRepository.findAllByOrderByDeadLetterDateTime(), DeadLetterDTO.class);
+  }
+
+  /**
+   * Move a dead letter back into the event_to_send table, to be published again with its attempt
+   * count reset.
+   *
+   * @param id the ID of the event
+   * @return the replayed dead letter
+   * @throws CTPException if there is no dead letter with the ID
+   */
+  @Transactional
+  public DeadLetterDTO replay(UUID id) throws CTPException {
+    log.info("Entering replay", kv("id", id));
+    EventDeadLetter deadLetter =
+        eventDeadLetterRepository
+            .findById(id)
+            .orElseThrow(() -> new CTPException(Fault.RESOURCE_NOT_FOUND, "Dead letter not found"));
+    requeue(deadLetter);
+    return mapper.map(deadLetter, DeadLetterDTO.class);
+  }
+
+  /**
+   * Move all the dead letters back into the event_to_send table.
+   *
+   * @return the number of events replayed
+   */
+  @Transactional
+  public int replayAll() {
+    log.info("Entering replayAll");
+    List<EventDeadLetter> deadLetters = eventDeadLetterRepository.findAll();
+    deadLetters.forEach(this::requeue);
+    return deadLetters.size();
+  }
+
+  private void requeue(EventDeadLetter deadLetter) {
+    EventToSend event =
+        EventToSend.builder()
+            .id(deadLetter.getId())
+            .type(deadLetter.getType())
+            .payload(deadLetter.getPayload())
+            .payloadBytes(deadLetter.getPayloadBytes())
+            .payloadFormat(deadLetter.getPayloadFormat())
+            .lane(deadLetter.getLane())
+            .createdDateTime(deadLetter.getCreatedDateTime())
+            .build();
+    eventToSendRepository.save(event);
+    eventDeadLetterRepository.delete(deadLetter);
+    log.info("Replaying dead letter", kv("id", deadLetter.getId()), kv("type", event.getType()));
+  }
+}
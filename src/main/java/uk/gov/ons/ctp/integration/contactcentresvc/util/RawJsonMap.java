@@ -0,0 +1,155 @@
+package uk.gov.ons.ctp.integration.contactcentresvc.util;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * String map that holds the JSON object it was decoded from, such as the sample attributes of a
+ * case, and only builds the map if it is used as one. A map that is just passed through to the
+ * database can then be written as the original JSON, see {@link #getRawJson()}, without ever being
+ * built.
+ *
+ * <p>Once the map is changed, including through its entries, keys or values, the JSON may be out of
+ * date and is dropped. Reading the map, such as iterating over it or printing it, keeps the JSON.
+ */
+public class RawJsonMap extends AbstractMap<String, String> {
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+  private static final TypeReference<LinkedHashMap<String, String>> MAP_TYPE =
+      new TypeReference<>() {};
+
+  private String rawJson;
+  private Map<String, String> map;
+
+  /**
+   * Constructor for RawJsonMap
+   *
+   * @param rawJson JSON object with only string or null values
+   */
+  public RawJsonMap(String rawJson) {
+    this.rawJson = rawJson;
+  }
+
+  /**
+   * Get the JSON for the map, if it is still the same as the map.
+   *
+   * @return the JSON, or null if the map may have been changed
+   */
+  public String getRawJson() {
+    return rawJson;
+  }
+
+  @Override
+  public int size() {
+    return map().size();
+  }
+
+  @Override
+  public boolean containsKey(Object key) {
+    return map().containsKey(key);
+  }
+
+  @Override
+  public String get(Object key) {
+    return map().get(key);
+  }
+
+  @Override
+  public String put(String key, String value) {
+    return changeableMap().put(key, value);
+  }
+
+  @Override
+  public String remove(Object key) {
+    return changeableMap().remove(key);
+  }
+
+  @Override
+  public void putAll(Map<? extends String, ? extends String> other) {
+    changeableMap().putAll(other);
+  }
+
+  @Override
+  public void clear() {
+    changeableMap().clear();
+  }
+
+  @Override
+  public Set<Entry<String, String>> entrySet() {
+    return new AbstractSet<>() {
+      @Override
+      public Iterator<Entry<String, String>> iterator() {
+        Iterator<Entry<String, String>> entries = map().entrySet().iterator();
+        return new Iterator<>() {
+          @Override
+          public boolean hasNext() {
+            return entries.hasNext();
+          }
+
+          @Override
+          public Entry<String, String> next() {
+            return new ChangeableEntry(entries.next());
+          }
+
+          @Override
+          public void remove() {
+            entries.remove();
+            rawJson = null;
+          }
+        };
+      }
+
+      @Override
+      public int size() {
+        return map().size();
+      }
+
+      @Override
+      public void clear() {
+        RawJsonMap.this.clear();
+      }
+    };
+  }
+
+  /** Entry that drops the JSON if its value is changed. */
+  private class ChangeableEntry extends SimpleEntry<String, String> {
+    private static final long serialVersionUID = 1L;
+    private final transient Entry<String, String> entry;
+
+    ChangeableEntry(Entry<String, String> entry) {
+      super(entry);
+      this.entry = entry;
+    }
+
+    @Override
+    public String setValue(String value) {
+      super.setValue(value);
+      rawJson = null;
+      return entry.setValue(value);
+    }
+  }
+
+  private Map<String, String> changeableMap() {
+    Map<String, String> built = map();
+    rawJson = null;
+    return built;
+  }
+
+  private Map<String, String> map() {
+    if (map == null) {
+      try {
+        map = MAPPER.readValue(rawJson, MAP_TYPE);
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+    return map;
+  }
+}
@@ -0,0 +1,55 @@
+package uk.gov.ons.ctp.integration.contactcentresvc.util;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Map;
+
+/**
+ * Deserializer for string maps that streams the JSON object into a {@link RawJsonMap}, rather than
+ * building the map. Values are converted to strings as they would be for a <code>
+ * Map&lt;String, String&gt;</code>, and anything else is rejected in the same way.
+ */
+public class RawJsonMapDeserializer extends StdDeserializer<Map<String, String>> {
+  private static final long serialVersionUID = 1L;
+  private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+  public RawJsonMapDeserializer() {
+    super(Map.class);
+  }
+
+  @Override
+  public Map<String, String> deserialize(JsonParser parser, DeserializationContext context)
+      throws IOException {
+    JsonToken token = parser.currentToken();
+    if (token == JsonToken.START_OBJECT) {
+      token = parser.nextToken();
+    } else if (token != JsonToken.FIELD_NAME && token != JsonToken.END_OBJECT) {
+      throw context.wrongTokenException(parser, Map.class, JsonToken.START_OBJECT, null);
+    }
+
+    StringWriter json = new StringWriter();
+    try (JsonGenerator generator = JSON_FACTORY.createGenerator(json)) {
+      generator.writeStartObject();
+      while (token == JsonToken.FIELD_NAME) {
+        String name = parser.getCurrentName();
+        JsonToken value = parser.nextToken();
+        if (value == JsonToken.VALUE_NULL) {
+          generator.writeNullField(name);
+        } else if (value.isScalarValue()) {
+          generator.writeStringField(name, parser.getText());
+        } else {
+          throw context.wrongTokenException(parser, String.class, JsonToken.VALUE_STRING, null);
+        }
+        token = parser.nextToken();
+      }
+      generator.writeEndObject();
+    }
+    return new RawJsonMap(json.toString());
+  }
+}
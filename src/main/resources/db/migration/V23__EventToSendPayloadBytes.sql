@@ -0,0 +1,8 @@
+-- allow event payloads to be stored encoded (eg. compressed) as bytes instead of as text.
+-- payload_format records the codec used for payload_bytes, and is null for text payloads.
+ALTER TABLE event_to_send ALTER COLUMN payload DROP NOT NULL;
+ALTER TABLE event_to_send ADD COLUMN payload_bytes BYTEA;
+ALTER TABLE event_to_send ADD COLUMN payload_format VARCHAR(16);
+
+-- the bytes are already compressed, so stop postgres trying to compress them again
+ALTER TABLE event_to_send ALTER COLUMN payload_bytes SET STORAGE EXTERNAL;
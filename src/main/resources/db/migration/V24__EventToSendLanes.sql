@@ -0,0 +1,4 @@
+-- priority lane of each event to send, where lane 0 is the highest priority
+ALTER TABLE event_to_send ADD COLUMN lane INTEGER NOT NULL DEFAULT 0;
+
+CREATE INDEX event_to_send_lane_created_date_time_idx ON event_to_send (lane, created_date_time);
@@ -0,0 +1,21 @@
+-- failed publishes are rescheduled with exponential back-off, until they are moved to the dead
+-- letter table after too many attempts
+ALTER TABLE event_to_send ADD COLUMN attempts INTEGER NOT NULL DEFAULT 0;
+ALTER TABLE event_to_send ADD COLUMN next_attempt_date_time TIMESTAMP;
+ALTER TABLE event_to_send ADD COLUMN last_error TEXT;
+
+CREATE TABLE event_dead_letter (
+      id UUID NOT NULL,
+      event_type VARCHAR(255) NOT NULL,
+      payload TEXT,
+      payload_bytes BYTEA,
+      payload_format VARCHAR(16),
+      lane INTEGER NOT NULL,
+      created_date_time TIMESTAMP NOT NULL,
+      attempts INTEGER NOT NULL,
+      last_error TEXT,
+      dead_letter_date_time TIMESTAMP NOT NULL,
+      PRIMARY KEY (id)
+);
+
+CREATE INDEX event_dead_letter_dead_letter_date_time_idx ON event_dead_letter (dead_letter_date_time);
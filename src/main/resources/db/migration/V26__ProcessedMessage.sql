@@ -0,0 +1,9 @@
+-- IDs of inbound messages that have been processed, so that redeliveries can be skipped. Rows are
+-- deleted once they are older than the dedup time to live.
+CREATE TABLE processed_message (
+      message_id UUID NOT NULL,
+      processed_date_time TIMESTAMP NOT NULL,
+      PRIMARY KEY (message_id)
+);
+
+CREATE INDEX processed_message_processed_date_time_idx ON processed_message (processed_date_time);
@@ -0,0 +1,34 @@
+-- normalised copies of the commonly searched sample attributes, upper case with spaces removed as
+-- they are compared by the case search. The existing cases are filled in by V28, and the copies
+-- are indexed by V29.
+--
+-- The copies are kept up to date by a trigger rather than being generated columns, as adding a
+-- stored generated column rewrites the whole table under an ACCESS EXCLUSIVE lock. Adding plain
+-- columns only changes the catalog, so this migration holds its lock only briefly. The existing
+-- cases are not updated here, as that would hold the lock until every case had been rewritten.
+-- The trigger covers every way cases are written: JPA, the batch upserts and the bulk load COPY.
+--
+-- The trigram indexes need the pg_trgm extension, which needs more privileges than the migration
+-- user has, so it is installed when the database is provisioned. See database/README.md.
+DO $$
+BEGIN
+  IF NOT EXISTS (SELECT 1 FROM pg_opclass
+                 WHERE opcname = 'gin_trgm_ops' AND pg_opclass_is_visible(oid)) THEN
+    RAISE EXCEPTION 'The pg_trgm extension must be installed in cc_schema, see database/README.md';
+  END IF;
+END $$;
+
+ALTER TABLE collection_case ADD COLUMN sample_uprn TEXT;
+ALTER TABLE collection_case ADD COLUMN sample_postcode TEXT;
+
+CREATE FUNCTION collection_case_sample_search() RETURNS TRIGGER AS $$
+BEGIN
+  NEW.sample_uprn := UPPER(REPLACE(NEW.sample ->> 'uprn', ' ', ''));
+  NEW.sample_postcode := UPPER(REPLACE(NEW.sample ->> 'postcode', ' ', ''));
+  RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER collection_case_sample_search_trg
+      BEFORE INSERT OR UPDATE OF sample ON collection_case
+      FOR EACH ROW EXECUTE FUNCTION collection_case_sample_search();
@@ -0,0 +1,32 @@
+-- fill in the sample search columns added by V27 for the cases that existed before it. Cases
+-- written since then already have them set by the trigger.
+--
+-- The cases are updated in batches in id order, committing after each batch, so that only one
+-- batch of rows is locked at a time and case events keep being processed. That cannot be done in
+-- a transaction, so this migration runs outside one, see the .conf file. If it fails part way,
+-- run "flyway repair" before migrating again: cases already filled in are not updated again.
+DO $$
+DECLARE
+  batch_size CONSTANT INTEGER := 10000;
+  last_id UUID;
+  batch_end UUID;
+BEGIN
+  LOOP
+    SELECT MAX(id) INTO batch_end FROM (
+      SELECT id FROM collection_case
+            WHERE last_id IS NULL OR id > last_id
+            ORDER BY id
+            LIMIT batch_size) batch;
+    EXIT WHEN batch_end IS NULL;
+
+    UPDATE collection_case
+          SET sample_uprn = UPPER(REPLACE(sample ->> 'uprn', ' ', '')),
+              sample_postcode = UPPER(REPLACE(sample ->> 'postcode', ' ', ''))
+          WHERE (last_id IS NULL OR id > last_id) AND id <= batch_end
+            AND sample_uprn IS NULL AND sample_postcode IS NULL
+            AND (sample ->> 'uprn' IS NOT NULL OR sample ->> 'postcode' IS NOT NULL);
+
+    last_id := batch_end;
+    COMMIT;
+  END LOOP;
+END $$;
@@ -0,0 +1,22 @@
+-- indexes for the case search on the sample attributes added by V27 and filled in by V28. B-tree
+-- indexes serve exact matches, and trigram indexes serve the substring matches of the search.
+--
+-- The indexes are built CONCURRENTLY, so cases can still be written while they build. That cannot
+-- be done in a transaction, so this migration runs outside one, see the .conf file. If it fails
+-- part way, run "flyway repair" before migrating again: each index is dropped first, in case a
+-- failed build left it behind invalid.
+DROP INDEX CONCURRENTLY IF EXISTS collection_case_sample_uprn_idx;
+CREATE INDEX CONCURRENTLY collection_case_sample_uprn_idx
+      ON collection_case (sample_uprn);
+
+DROP INDEX CONCURRENTLY IF EXISTS collection_case_sample_postcode_idx;
+CREATE INDEX CONCURRENTLY collection_case_sample_postcode_idx
+      ON collection_case (sample_postcode);
+
+DROP INDEX CONCURRENTLY IF EXISTS collection_case_sample_uprn_trgm_idx;
+CREATE INDEX CONCURRENTLY collection_case_sample_uprn_trgm_idx
+      ON collection_case USING gin (sample_uprn gin_trgm_ops);
+
+DROP INDEX CONCURRENTLY IF EXISTS collection_case_sample_postcode_trgm_idx;
+CREATE INDEX CONCURRENTLY collection_case_sample_postcode_trgm_idx
+      ON collection_case USING gin (sample_postcode gin_trgm_ops);
@@ -0,0 +1,119 @@
+package uk.gov.ons.ctp.integration.contactcentresvc.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.google.api.gax.batching.FlowControlSettings;
+import com.google.api.gax.batching.FlowController.LimitExceededBehavior;
+import com.google.api.gax.core.CredentialsProvider;
+import com.google.api.gax.grpc.GrpcTransportChannel;
+import com.google.api.gax.rpc.FixedTransportChannelProvider;
+import com.google.api.gax.rpc.TransportChannelProvider;
+import com.google.cloud.pubsub.v1.Subscriber;
+import com.google.cloud.spring.core.GcpProjectIdProvider;
+import com.google.cloud.spring.pubsub.core.PubSubTemplate;
+import com.google.cloud.spring.pubsub.integration.AckMode;
+import com.google.cloud.spring.pubsub.integration.inbound.PubSubInboundChannelAdapter;
+import com.google.cloud.spring.pubsub.support.converter.PubSubMessageConverter;
+import io.grpc.ManagedChannel;
+import io.grpc.ManagedChannelBuilder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.integration.channel.DirectChannel;
+import uk.gov.ons.ctp.integration.contactcentresvc.config.QueueConfig.SubscriberConfig;
+
+@ExtendWith(MockitoExtension.class)
+public class InboundEventIntegrationConfigTest {
+  private static final String SUBSCRIPTION = "event_case-update_cc";
+
+  @Mock private ObjectProvider<GcpProjectIdProvider> projectIdProvider;
+  @Mock private ObjectProvider<CredentialsProvider> credentialsProvider;
+  @Mock private ObjectProvider<TransportChannelProvider> channelProvider;
+  @Mock private ObjectProvider<PubSubMessageConverter> messageConverter;
+
+  private ManagedChannel channel;
+  private QueueConfig queueConfig;
+  private InboundEventIntegrationConfig config;
+
+  @BeforeEach
+  public void setup() {
+    queueConfig = new QueueConfig();
+    queueConfig.setCaseSubscription(SUBSCRIPTION);
+    AppConfig appConfig = new AppConfig();
+    appConfig.setQueueConfig(queueConfig);
+    config =
+        new InboundEventIntegrationConfig(
+            appConfig,
+            projectIdProvider,
+            credentialsProvider,
+            channelProvider,
+            messageConverter,
+            "localhost:8085");
+  }
+
+  @AfterEach
+  public void tearDown() {
+    config.shutdownSubscribers();
+    if (channel != null) {
+      channel.shutdownNow();
+    }
+  }
+
+  private Subscriber createSubscriber(SubscriberConfig settings) {
+    when(projectIdProvider.getObject()).thenReturn(() -> "test-project");
+    // the channel only connects once the subscriber is started
+    channel = ManagedChannelBuilder.forTarget("localhost:8085").usePlaintext().build();
+    when(channelProvider.getObject())
+        .thenReturn(FixedTransportChannelProvider.create(GrpcTransportChannel.create(channel)));
+    return config.subscriberFactory(settings).createSubscriber(SUBSCRIPTION, (m, c) -> {});
+  }
+
+  private PubSubInboundChannelAdapter caseEventInbound() {
+    return config.caseEventInbound(
+        new DirectChannel(), new DirectChannel(), new DirectChannel(), mock(PubSubTemplate.class));
+  }
+
+  @Test
+  public void shouldApplySubscriberFlowControl() {
+    SubscriberConfig settings = new SubscriberConfig();
+    settings.setMaxOutstandingMessages(50);
+
+    FlowControlSettings flowControl = createSubscriber(settings).getFlowControlSettings();
+    assertEquals(50L, flowControl.getMaxOutstandingElementCount());
+    assertEquals(100L * 1024L * 1024L, flowControl.getMaxOutstandingRequestBytes());
+    assertEquals(LimitExceededBehavior.Block, flowControl.getLimitExceededBehavior());
+  }
+
+  @Test
+  public void shouldApplyDefaultMessageLimitWhenOnlyBytesSet() {
+    SubscriberConfig settings = new SubscriberConfig();
+    settings.setMaxOutstandingBytes(1024L);
+
+    FlowControlSettings flowControl = createSubscriber(settings).getFlowControlSettings();
+    assertEquals(1000L, flowControl.getMaxOutstandingElementCount());
+    assertEquals(1024L, flowControl.getMaxOutstandingRequestBytes());
+  }
+
+  @Test
+  public void shouldAckCaseEventsAutomaticallyByDefault() {
+    assertEquals(AckMode.AUTO, caseEventInbound().getAckMode());
+  }
+
+  @Test
+  public void shouldAckCaseEventBatchesManually() {
+    queueConfig.getCaseBatch().setEnabled(true);
+    assertEquals(AckMode.MANUAL, caseEventInbound().getAckMode());
+  }
+
+  @Test
+  public void shouldAckCaseEventLanesManually() {
+    queueConfig.getCaseLanes().setEnabled(true);
+    assertEquals(AckMode.MANUAL, caseEventInbound().getAckMode());
+  }
+}
@@ -0,0 +1,158 @@
+package uk.gov.ons.ctp.integration.contactcentresvc.endpoint;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.core.Is.is;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static uk.gov.ons.ctp.common.MvcHelper.getJson;
+import static uk.gov.ons.ctp.common.utility.MockMvcControllerAdviceHelper.mockAdviceFor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import uk.gov.ons.ctp.common.error.CTPException;
+import uk.gov.ons.ctp.common.error.CTPException.Fault;
+import uk.gov.ons.ctp.common.error.RestExceptionHandler;
+import uk.gov.ons.ctp.common.jackson.CustomObjectMapper;
+import uk.gov.ons.ctp.integration.contactcentresvc.event.EventToSendMetrics;
+import uk.gov.ons.ctp.integration.contactcentresvc.event.EventToSendMetrics.TypeLag;
+import uk.gov.ons.ctp.integration.contactcentresvc.model.PermissionType;
+import uk.gov.ons.ctp.integration.contactcentresvc.representation.DeadLetterDTO;
+import uk.gov.ons.ctp.integration.contactcentresvc.service.impl.DeadLetterService;
+import uk.gov.ons.ctp.integration.contactcentresvc.service.impl.RBACService;
+
+/** Outbox endpoint unit tests */
+@ExtendWith(MockitoExtension.class)
+public final class OutboxEndpointTest {
+  private static final UUID EVENT_ID = UUID.fromString("b7565b5e-1396-4965-91a2-918c0d3642ed");
+
+  @Mock private DeadLetterService deadLetterService;
+
+  @Mock private RBACService rbacService;
+
+  @Mock private EventToSendMetrics eventToSendMetrics;
+
+  @InjectMocks private OutboxEndpoint outboxEndpoint;
+
+  private MockMvc mockMvc;
+
+  @BeforeEach
+  public void setUp() {
+    this.mockMvc =
+        MockMvcBuilders.standaloneSetup(outboxEndpoint)
+            .setHandlerExceptionResolvers(mockAdviceFor(RestExceptionHandler.class))
+            .setMessageConverters(new MappingJackson2HttpMessageConverter(new CustomObjectMapper()))
+            .build();
+  }
+
+  private DeadLetterDTO deadLetter() {
+    return DeadLetterDTO.builder()
+        .id(EVENT_ID)
+        .type("REFUSAL")
+        .attempts(5)
+        .lastError("timeout")
+        .build();
+  }
+
+  private void denyPermission() throws CTPException {
+    doThrow(new CTPException(Fault.ACCESS_DENIED, "User not authorised for activity"))
+        .when(rbacService)
+        .assertUserPermission(PermissionType.CAN_MANAGE_SYSTEM);
+  }
+
+  @Test
+  public void shouldListDeadLetters() throws Exception {
+    when(deadLetterService.getDeadLetters()).thenReturn(List.of(deadLetter()));
+
+    mockMvc
+        .perform(getJson("/outbox/dead-letters"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$", hasSize(1)))
+        .andExpect(jsonPath("$[0].id", is(EVENT_ID.toString())))
+        .andExpect(jsonPath("$[0].type", is("REFUSAL")))
+        .andExpect(jsonPath("$[0].attempts", is(5)));
+    verify(rbacService).assertUserPermission(PermissionType.CAN_MANAGE_SYSTEM);
+  }
+
+  @Test
+  public void shouldReplayDeadLetter() throws Exception {
+    when(deadLetterService.replay(EVENT_ID)).thenReturn(deadLetter());
+
+    mockMvc
+        .perform(post("/outbox/dead-letters/{id}/replay", EVENT_ID))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.id", is(EVENT_ID.toString())));
+    verify(rbacService).assertUserPermission(PermissionType.CAN_MANAGE_SYSTEM);
+    verify(deadLetterService).replay(EVENT_ID);
+  }
+
+  @Test
+  public void shouldReplayAllDeadLetters() throws Exception {
+    when(deadLetterService.replayAll()).thenReturn(3);
+
+    mockMvc
+        .perform(post("/outbox/dead-letters/replay"))
+        .andExpect(status().isOk())
+        .andExpect(content().string("3"));
+    verify(rbacService).assertUserPermission(PermissionType.CAN_MANAGE_SYSTEM);
+  }
+
+  @Test
+  public void shouldGetLag() throws Exception {
+    TypeLag lag = new TypeLag(7, LocalDateTime.now().minusMinutes(5), 300);
+    when(eventToSendMetrics.getBacklog()).thenReturn(Map.of("REFUSAL", lag));
+
+    mockMvc
+        .perform(getJson("/outbox/lag"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.REFUSAL.depth", is(7)))
+        .andExpect(jsonPath("$.REFUSAL.lagSeconds", is(300)));
+    verify(rbacService).assertUserPermission(PermissionType.CAN_MANAGE_SYSTEM);
+  }
+
+  @Test
+  public void shouldNotGetLagWithoutPermission() throws Exception {
+    denyPermission();
+    mockMvc.perform(getJson("/outbox/lag")).andExpect(status().is4xxClientError());
+    verifyNoInteractions(eventToSendMetrics);
+  }
+
+  @Test
+  public void shouldNotListDeadLettersWithoutPermission() throws Exception {
+    denyPermission();
+    mockMvc.perform(getJson("/outbox/dead-letters")).andExpect(status().is4xxClientError());
+    verifyNoInteractions(deadLetterService);
+  }
+
+  @Test
+  public void shouldNotReplayDeadLetterWithoutPermission() throws Exception {
+    denyPermission();
+    mockMvc
+        .perform(post("/outbox/dead-letters/{id}/replay", EVENT_ID))
+        .andExpect(status().is4xxClientError());
+    verifyNoInteractions(deadLetterService);
+  }
+
+  @Test
+  public void shouldNotReplayAllDeadLettersWithoutPermission() throws Exception {
+    denyPermission();
+    mockMvc.perform(post("/outbox/dead-letters/replay")).andExpect(status().is4xxClientError());
+    verifyNoInteractions(deadLetterService);
+  }
+}
@@ -0,0 +1,82 @@
+package uk.gov.ons.ctp.integration.contactcentresvc.event;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+
+import com.google.cloud.spring.pubsub.support.BasicAcknowledgeablePubsubMessage;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import uk.gov.ons.ctp.integration.contactcentresvc.config.QueueConfig.BatchConfig;
+
+public class BatchingEventReceiverTest {
+  private final AtomicInteger writing = new AtomicInteger();
+  private final AtomicInteger maxWriting = new AtomicInteger();
+  private final AtomicInteger written = new AtomicInteger();
+  private TestReceiver target;
+
+  @AfterEach
+  public void tearDown() {
+    target.shutdown();
+  }
+
+  private class TestReceiver extends BatchingEventReceiver<String> {
+    TestReceiver(BatchConfig batchConfig) {
+      super("test", batchConfig);
+    }
+
+    @Override
+    protected void write(List<PendingEvent<String>> batch) {
+      maxWriting.accumulateAndGet(writing.incrementAndGet(), Math::max);
+      try {
+        Thread.sleep(5);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      written.addAndGet(batch.size());
+      writing.decrementAndGet();
+    }
+  }
+
+  private BatchConfig batchConfig(int size, long maxWaitMillis) {
+    BatchConfig batchConfig = new BatchConfig();
+    batchConfig.setEnabled(true);
+    batchConfig.setSize(size);
+    batchConfig.setMaxWaitMillis(maxWaitMillis);
+    return batchConfig;
+  }
+
+  @Test
+  public void shouldWriteOneBatchAtATime() throws Exception {
+    target = new TestReceiver(batchConfig(2, 1));
+    int threads = 4;
+    int eventsPerThread = 50;
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    CountDownLatch start = new CountDownLatch(1);
+    for (int t = 0; t < threads; t++) {
+      executor.execute(
+          () -> {
+            try {
+              start.await();
+            } catch (InterruptedException e) {
+              return;
+            }
+            for (int i = 0; i < eventsPerThread; i++) {
+              target.add("event", mock(BasicAcknowledgeablePubsubMessage.class));
+            }
+          });
+    }
+    start.countDown();
+    executor.shutdown();
+    executor.awaitTermination(10, TimeUnit.SECONDS);
+    target.flush();
+
+    assertEquals(threads * eventsPerThread, written.get());
+    assertEquals(1, maxWriting.get());
+  }
+}
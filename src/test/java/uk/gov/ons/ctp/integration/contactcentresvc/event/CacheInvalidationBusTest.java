@@ -0,0 +1,98 @@
+package uk.gov.ons.ctp.integration.contactcentresvc.event;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.test.util.ReflectionTestUtils;
+
+@ExtendWith(MockitoExtension.class)
+public class CacheInvalidationBusTest {
+  private static final String NOTIFY = "SELECT pg_notify(?, ?)";
+  private static final UUID ID_1 = UUID.fromString("ad24e36c-2a61-11ec-aa00-4c3275913db5");
+  private static final UUID ID_2 = UUID.fromString("b66e57b4-2a61-11ec-b90f-4c3275913db5");
+
+  @Mock private NotificationConnectionFactory connectionFactory;
+  @Mock private JdbcTemplate jdbcTemplate;
+  @Mock private CacheInvalidationBus.Listener caseListener;
+
+  @InjectMocks private CacheInvalidationBus bus;
+
+  @BeforeEach
+  public void setup() {
+    ReflectionTestUtils.setField(bus, "enabled", true);
+    bus.register(CacheInvalidationBus.CASE, caseListener);
+  }
+
+  @Test
+  public void shouldPublishInvalidationsInOneNotification() {
+    bus.publish(CacheInvalidationBus.CASE, List.of(ID_1, ID_2));
+
+    verify(jdbcTemplate)
+        .query(
+            eq(NOTIFY),
+            any(RowCallbackHandler.class),
+            eq(CacheInvalidationBus.CHANNEL),
+            eq("case:" + ID_1 + "," + ID_2));
+  }
+
+  @Test
+  public void shouldSplitLargeInvalidations() {
+    List<UUID> ids = new ArrayList<>();
+    for (int i = 0; i <= CacheInvalidationBus.MAX_IDS_PER_NOTIFICATION; i++) {
+      ids.add(UUID.randomUUID());
+    }
+
+    bus.publish(CacheInvalidationBus.CASE, ids);
+
+    verify(jdbcTemplate, times(2))
+        .query(eq(NOTIFY), any(RowCallbackHandler.class), eq(CacheInvalidationBus.CHANNEL), any());
+  }
+
+  @Test
+  public void shouldNotPublishWhenDisabled() {
+    ReflectionTestUtils.setField(bus, "enabled", false);
+
+    bus.publish(CacheInvalidationBus.CASE, List.of(ID_1));
+
+    verifyNoInteractions(jdbcTemplate);
+  }
+
+  @Test
+  public void shouldDispatchToRegisteredCache() {
+    bus.dispatch("case:" + ID_1 + "," + ID_2);
+
+    verify(caseListener).invalidate(ID_1.toString());
+    verify(caseListener).invalidate(ID_2.toString());
+  }
+
+  @Test
+  public void shouldIgnoreUnrecognisedInvalidations() {
+    bus.dispatch("user:" + ID_1);
+    bus.dispatch("nonsense");
+
+    verify(caseListener, never()).invalidate(anyString());
+  }
+
+  @Test
+  public void shouldInvalidateAllRegisteredCaches() {
+    bus.invalidateAll();
+
+    verify(caseListener).invalidateAll();
+  }
+}
@@ -0,0 +1,38 @@
+package uk.gov.ons.ctp.integration.contactcentresvc.event;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.parallel.ResourceAccessMode.READ_WRITE;
+
+import com.google.cloud.spring.pubsub.core.PubSubTemplate;
+import com.google.cloud.spring.pubsub.integration.inbound.PubSubInboundChannelAdapter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.parallel.ResourceLock;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.ApplicationContext;
+import org.springframework.test.context.ActiveProfiles;
+import uk.gov.ons.ctp.common.event.EventPublisher;
+import uk.gov.ons.ctp.common.utility.ParallelTestLocks;
+
+/**
+ * Check that the service starts with the bulk-load profile. Pub/Sub itself is turned off in the
+ * test profile, so the outbound publisher is mocked as in the other tests, but nothing inbound is.
+ */
+@ActiveProfiles({"test-cc", "bulk-load"})
+@SpringBootTest(webEnvironment = WebEnvironment.NONE)
+@MockBean({EventPublisher.class, PubSubTemplate.class})
+@ResourceLock(value = ParallelTestLocks.SPRING_TEST, mode = READ_WRITE)
+public class CaseBulkLoadProfileTest {
+
+  @Autowired private ApplicationContext context;
+
+  @Test
+  public void shouldStartWithoutSubscriptionsOrOutboxDrain() {
+    assertNotNull(context.getBean(CaseBulkLoader.class));
+    assertTrue(context.getBeansOfType(PubSubInboundChannelAdapter.class).isEmpty());
+    assertTrue(context.getBeansOfType(EventToSendPoller.class).isEmpty());
+  }
+}
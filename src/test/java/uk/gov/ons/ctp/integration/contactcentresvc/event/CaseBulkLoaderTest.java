@@ -0,0 +1,158 @@
+package uk.gov.ons.ctp.integration.contactcentresvc.event;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import ma.glasnost.orika.MapperFacade;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import uk.gov.ons.ctp.common.FixtureHelper;
+import uk.gov.ons.ctp.common.error.CTPException;
+import uk.gov.ons.ctp.common.event.model.CaseEvent;
+import uk.gov.ons.ctp.common.jackson.CustomObjectMapper;
+import uk.gov.ons.ctp.integration.contactcentresvc.CCSvcBeanMapper;
+import uk.gov.ons.ctp.integration.contactcentresvc.config.AppConfig;
+import uk.gov.ons.ctp.integration.contactcentresvc.config.QueueConfig;
+import uk.gov.ons.ctp.integration.contactcentresvc.model.CCStatus;
+import uk.gov.ons.ctp.integration.contactcentresvc.model.Case;
+import uk.gov.ons.ctp.integration.contactcentresvc.repository.CaseCache;
+import uk.gov.ons.ctp.integration.contactcentresvc.repository.db.CaseBatchRepository;
+
+@ExtendWith(MockitoExtension.class)
+public class CaseBulkLoaderTest {
+  private static final String CASE_ID_1 = "ad24e36c-2a61-11ec-aa00-4c3275913db5";
+  private static final String CASE_ID_2 = "0c1a5b2e-2a62-11ec-9d1c-4c3275913db5";
+  private static final String CASE_ID_3 = "5e4ab2d8-2a62-11ec-bc9d-4c3275913db5";
+
+  @Mock private CaseBatchRepository caseBatchRepo;
+  @Mock private CaseCache caseCache;
+  @Mock private EventFilter eventFilter;
+  @Mock private AppConfig appConfig;
+
+  @TempDir Path tempDir;
+
+  private MapperFacade mapper = new CCSvcBeanMapper();
+  private CustomObjectMapper objectMapper = new CustomObjectMapper();
+  private List<Case> written = Collections.synchronizedList(new ArrayList<>());
+  private CaseBulkLoader target;
+
+  @BeforeEach
+  public void setup() {
+    QueueConfig queueConfig = new QueueConfig();
+    queueConfig.getBulkLoad().setThreads(2);
+    queueConfig.getBulkLoad().setChunkSize(2);
+    when(appConfig.getQueueConfig()).thenReturn(queueConfig);
+    target = new CaseBulkLoader(caseBatchRepo, caseCache, mapper, eventFilter, appConfig);
+  }
+
+  private String eventLine(String caseId) throws Exception {
+    CaseEvent caseEvent = FixtureHelper.loadPackageFixtures(CaseEvent[].class).get(0);
+    caseEvent.getPayload().getCaseUpdate().setCaseId(caseId);
+    return objectMapper.writeValueAsString(caseEvent);
+  }
+
+  private Path writeFile(String... lines) throws Exception {
+    Path file = tempDir.resolve("cases.ndjson");
+    Files.write(file, List.of(lines));
+    return file;
+  }
+
+  private void mockCopy() {
+    when(caseBatchRepo.copyAll(any()))
+        .thenAnswer(
+            invocation -> {
+              Collection<Case> cases = invocation.getArgument(0);
+              written.addAll(cases);
+              return cases.size();
+            });
+  }
+
+  @Test
+  public void shouldLoadAllEvents() throws Exception {
+    when(eventFilter.isValidEvent(anyString(), anyString(), anyString(), anyString()))
+        .thenReturn(true);
+    mockCopy();
+
+    CaseBulkLoader.Result result =
+        target.load(writeFile(eventLine(CASE_ID_1), eventLine(CASE_ID_2), eventLine(CASE_ID_3)));
+
+    assertEquals(3, result.getEvents().get());
+    assertEquals(3, result.getLoaded().get());
+    assertEquals(0, result.getRejected().get());
+    assertEquals(3, written.size());
+    written.forEach(caze -> assertEquals(CCStatus.READY, caze.getCcStatus()));
+  }
+
+  @SuppressWarnings("unchecked")
+  @Test
+  public void shouldInvalidateCachedCasesOfEachChunk() throws Exception {
+    when(eventFilter.isValidEvent(anyString(), anyString(), anyString(), anyString()))
+        .thenReturn(true);
+    mockCopy();
+
+    target.load(writeFile(eventLine(CASE_ID_1), eventLine(CASE_ID_2), eventLine(CASE_ID_3)));
+
+    ArgumentCaptor<Collection<UUID>> invalidated = ArgumentCaptor.forClass(Collection.class);
+    verify(caseCache, times(2)).invalidate(invalidated.capture());
+    Set<UUID> caseIds = new HashSet<>();
+    invalidated.getAllValues().forEach(caseIds::addAll);
+    assertEquals(
+        Set.of(UUID.fromString(CASE_ID_1), UUID.fromString(CASE_ID_2), UUID.fromString(CASE_ID_3)),
+        caseIds);
+  }
+
+  @Test
+  public void shouldRejectBadLinesAndCarryOn() throws Exception {
+    when(eventFilter.isValidEvent(anyString(), anyString(), eq(CASE_ID_1), anyString()))
+        .thenReturn(true);
+    when(eventFilter.isValidEvent(anyString(), anyString(), eq(CASE_ID_2), anyString()))
+        .thenReturn(false);
+    when(eventFilter.isValidEvent(anyString(), anyString(), eq(CASE_ID_3), anyString()))
+        .thenThrow(new CTPException(CTPException.Fault.VALIDATION_FAILED, "Survey unknown"));
+    mockCopy();
+
+    CaseBulkLoader.Result result =
+        target.load(
+            writeFile(
+                eventLine(CASE_ID_1), "not json", "", eventLine(CASE_ID_2), eventLine(CASE_ID_3)));
+
+    assertEquals(4, result.getEvents().get());
+    assertEquals(1, result.getLoaded().get());
+    assertEquals(1, result.getFiltered().get());
+    assertEquals(2, result.getRejected().get());
+    assertEquals(1, written.size());
+  }
+
+  @Test
+  public void shouldCountStaleAndFailedCases() throws Exception {
+    when(eventFilter.isValidEvent(anyString(), anyString(), anyString(), anyString()))
+        .thenReturn(true);
+    when(caseBatchRepo.copyAll(any())).thenReturn(1).thenThrow(new RuntimeException("failed"));
+
+    CaseBulkLoader.Result result =
+        target.load(writeFile(eventLine(CASE_ID_1), eventLine(CASE_ID_2), eventLine(CASE_ID_3)));
+
+    assertEquals(3, result.getEvents().get());
+    assertEquals(3, result.getLoaded().get() + result.getStale().get() + result.getFailed().get());
+    assertEquals(1, result.getLoaded().get());
+  }
+}
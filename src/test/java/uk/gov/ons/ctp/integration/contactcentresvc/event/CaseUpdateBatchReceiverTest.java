@@ -0,0 +1,193 @@
+package uk.gov.ons.ctp.integration.contactcentresvc.event;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.google.cloud.spring.pubsub.support.BasicAcknowledgeablePubsubMessage;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.List;
+import java.util.UUID;
+import ma.glasnost.orika.MapperFacade;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import uk.gov.ons.ctp.common.FixtureHelper;
+import uk.gov.ons.ctp.common.error.CTPException;
+import uk.gov.ons.ctp.common.event.model.CaseEvent;
+import uk.gov.ons.ctp.integration.contactcentresvc.CCSvcBeanMapper;
+import uk.gov.ons.ctp.integration.contactcentresvc.config.AppConfig;
+import uk.gov.ons.ctp.integration.contactcentresvc.config.QueueConfig;
+import uk.gov.ons.ctp.integration.contactcentresvc.model.CCStatus;
+import uk.gov.ons.ctp.integration.contactcentresvc.model.Case;
+import uk.gov.ons.ctp.integration.contactcentresvc.repository.CaseCache;
+import uk.gov.ons.ctp.integration.contactcentresvc.repository.db.CaseBatchRepository;
+
+@ExtendWith(MockitoExtension.class)
+public class CaseUpdateBatchReceiverTest {
+  private static final String CASE_ID_1 = "ad24e36c-2a61-11ec-aa00-4c3275913db5";
+  private static final String CASE_ID_2 = "0c1a5b2e-2a62-11ec-9d1c-4c3275913db5";
+
+  @Mock private CaseBatchRepository caseBatchRepo;
+  @Mock private EventFilter eventFilter;
+  @Mock private MessageDeduplicator deduplicator;
+  @Mock private CaseCache caseCache;
+  @Mock private AppConfig appConfig;
+
+  private MapperFacade mapper = new CCSvcBeanMapper();
+  private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private CaseUpdateBatchReceiver target;
+
+  @Captor private ArgumentCaptor<List<Case>> casesCaptor;
+
+  @BeforeEach
+  public void setup() {
+    QueueConfig queueConfig = new QueueConfig();
+    queueConfig.getCaseBatch().setSize(2);
+    when(appConfig.getQueueConfig()).thenReturn(queueConfig);
+    target =
+        new CaseUpdateBatchReceiver(
+            caseBatchRepo,
+            mapper,
+            eventFilter,
+            deduplicator,
+            new InboundEventMetrics(meterRegistry, 0),
+            caseCache,
+            appConfig,
+            meterRegistry);
+  }
+
+  @AfterEach
+  public void tearDown() {
+    target.shutdown();
+  }
+
+  private CaseEvent createEvent(String caseId) {
+    CaseEvent caseEvent = FixtureHelper.loadPackageFixtures(CaseEvent[].class).get(0);
+    caseEvent.getPayload().getCaseUpdate().setCaseId(caseId);
+    return caseEvent;
+  }
+
+  private void acceptAll() throws CTPException {
+    when(eventFilter.isValidEvent(anyString(), anyString(), anyString(), anyString()))
+        .thenReturn(true);
+  }
+
+  @Test
+  public void shouldWriteBatchWhenFull() throws CTPException {
+    acceptAll();
+    BasicAcknowledgeablePubsubMessage message1 = mock(BasicAcknowledgeablePubsubMessage.class);
+    BasicAcknowledgeablePubsubMessage message2 = mock(BasicAcknowledgeablePubsubMessage.class);
+
+    target.acceptEvent(createEvent(CASE_ID_1), message1);
+    verify(caseBatchRepo, never()).upsertAll(any());
+
+    target.acceptEvent(createEvent(CASE_ID_2), message2);
+    verify(caseBatchRepo).upsertAll(casesCaptor.capture());
+    List<Case> cases = casesCaptor.getValue();
+    assertEquals(2, cases.size());
+    assertEquals(UUID.fromString(CASE_ID_1), cases.get(0).getId());
+    assertEquals(UUID.fromString(CASE_ID_2), cases.get(1).getId());
+    assertEquals(CCStatus.READY, cases.get(0).getCcStatus());
+    verify(message1).ack();
+    verify(message2).ack();
+    verify(caseCache).invalidate(List.of(UUID.fromString(CASE_ID_1), UUID.fromString(CASE_ID_2)));
+  }
+
+  @Test
+  public void shouldCountStaleUpdates() throws CTPException {
+    acceptAll();
+    when(caseBatchRepo.upsertAll(any())).thenReturn(1);
+    BasicAcknowledgeablePubsubMessage message1 = mock(BasicAcknowledgeablePubsubMessage.class);
+    BasicAcknowledgeablePubsubMessage message2 = mock(BasicAcknowledgeablePubsubMessage.class);
+
+    target.acceptEvent(createEvent(CASE_ID_1), message1);
+    target.acceptEvent(createEvent(CASE_ID_2), message2);
+
+    verify(message1).ack();
+    verify(message2).ack();
+    assertEquals(1.0, meterRegistry.counter(CaseUpdateEventReceiver.STALE_UPDATES_METRIC).count());
+  }
+
+  @Test
+  public void shouldAckRecentlyProcessedEventWithoutWriting() {
+    CaseEvent caseEvent = createEvent(CASE_ID_1);
+    when(deduplicator.isRecentlyProcessed(caseEvent.getHeader().getMessageId())).thenReturn(true);
+    BasicAcknowledgeablePubsubMessage message = mock(BasicAcknowledgeablePubsubMessage.class);
+
+    target.acceptEvent(caseEvent, message);
+    target.flush();
+
+    verify(caseBatchRepo, never()).upsertAll(any());
+    verify(message).ack();
+  }
+
+  @Test
+  public void shouldFlushPartialBatch() throws CTPException {
+    acceptAll();
+    BasicAcknowledgeablePubsubMessage message = mock(BasicAcknowledgeablePubsubMessage.class);
+
+    target.acceptEvent(createEvent(CASE_ID_1), message);
+    target.flush();
+
+    verify(caseBatchRepo).upsertAll(casesCaptor.capture());
+    assertEquals(1, casesCaptor.getValue().size());
+    verify(message).ack();
+  }
+
+  @Test
+  public void shouldAckFilteredEventWithoutWriting() throws CTPException {
+    when(eventFilter.isValidEvent(anyString(), anyString(), anyString(), anyString()))
+        .thenReturn(false);
+    BasicAcknowledgeablePubsubMessage message = mock(BasicAcknowledgeablePubsubMessage.class);
+
+    target.acceptEvent(createEvent(CASE_ID_1), message);
+    target.flush();
+
+    verify(caseBatchRepo, never()).upsertAll(any());
+    verify(message).ack();
+  }
+
+  @Test
+  public void shouldNackEventForUnknownSurvey() throws CTPException {
+    when(eventFilter.isValidEvent(anyString(), anyString(), anyString(), anyString()))
+        .thenThrow(new CTPException(CTPException.Fault.VALIDATION_FAILED, "Survey unknown"));
+    BasicAcknowledgeablePubsubMessage message = mock(BasicAcknowledgeablePubsubMessage.class);
+
+    target.acceptEvent(createEvent(CASE_ID_1), message);
+    target.flush();
+
+    verify(caseBatchRepo, never()).upsertAll(any());
+    verify(message).nack();
+  }
+
+  @Test
+  public void shouldNackOnlyFailingCaseWhenBatchFails() throws CTPException {
+    acceptAll();
+    BasicAcknowledgeablePubsubMessage message1 = mock(BasicAcknowledgeablePubsubMessage.class);
+    BasicAcknowledgeablePubsubMessage message2 = mock(BasicAcknowledgeablePubsubMessage.class);
+    when(caseBatchRepo.upsertAll(any())).thenThrow(new DataIntegrityViolationException("batch"));
+    when(caseBatchRepo.upsert(any()))
+        .thenReturn(true)
+        .thenThrow(new DataIntegrityViolationException("case 2"));
+
+    target.acceptEvent(createEvent(CASE_ID_1), message1);
+    target.acceptEvent(createEvent(CASE_ID_2), message2);
+
+    verify(message1).ack();
+    verify(message1, never()).nack();
+    verify(message2).nack();
+    verify(message2, never()).ack();
+  }
+}
@@ -4,10 +4,14 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
 import java.util.Date;
@@ -30,7 +34,8 @@ import uk.gov.ons.ctp.common.event.model.CaseEvent;
 import uk.gov.ons.ctp.common.event.model.CaseUpdate;
 import uk.gov.ons.ctp.integration.contactcentresvc.CCSvcBeanMapper;
 import uk.gov.ons.ctp.integration.contactcentresvc.model.Case;
-import uk.gov.ons.ctp.integration.contactcentresvc.repository.db.CaseRepository;
+import uk.gov.ons.ctp.integration.contactcentresvc.repository.CaseCache;
+import uk.gov.ons.ctp.integration.contactcentresvc.repository.db.CaseBatchRepository;
 
 @ExtendWith(MockitoExtension.class)
 public class CaseUpdateEventReceiverTest {
@@ -39,10 +44,14 @@ public class CaseUpdateEventReceiverTest {
   private static final String COLLECTION_EX_ID = "bdfc0ada-2a61-11ec-8c02-4c3275913db5";
   private static final String MESSAGE_ID = "3883af91-0052-4497-9805-3238544fcf8a";
 
-  @Mock private CaseRepository caseRepo;
+  @Mock private CaseBatchRepository caseBatchRepo;
   @Mock private EventFilter eventFilter;
+  @Mock private MessageDeduplicator deduplicator;
+  @Mock private CaseCache caseCache;
 
   @Spy private MapperFacade mapper = new CCSvcBeanMapper();
+  @Spy private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+  @Spy private InboundEventMetrics metrics = new InboundEventMetrics(new SimpleMeterRegistry(), 0);
 
   @InjectMocks private CaseUpdateEventReceiver target;
 
@@ -53,19 +62,44 @@ public class CaseUpdateEventReceiverTest {
   @BeforeEach
   public void setup() {
     caseEvent = FixtureHelper.loadPackageFixtures(CaseEvent[].class).get(0);
+    lenient().when(deduplicator.claim(any())).thenReturn(true);
   }
 
   @Test
   public void shouldReceiveEvent() throws CTPException {
     when(eventFilter.isValidEvent(SURVEY_ID, COLLECTION_EX_ID, CASE_ID, MESSAGE_ID))
         .thenReturn(true);
+    when(caseBatchRepo.upsert(any())).thenReturn(true);
     target.acceptEvent(caseEvent);
 
-    verify(caseRepo).saveAndFlush(caseCaptor.capture());
+    verify(caseBatchRepo).upsert(caseCaptor.capture());
 
     CaseUpdate ccase = caseEvent.getPayload().getCaseUpdate();
     Case caze = caseCaptor.getValue();
     verifyMappedCase(caze, ccase);
+    verify(caseCache).invalidate(UUID.fromString(CASE_ID));
+    assertEquals(0.0, meterRegistry.counter(CaseUpdateEventReceiver.STALE_UPDATES_METRIC).count());
+  }
+
+  @Test
+  public void shouldCountStaleUpdate() throws CTPException {
+    when(eventFilter.isValidEvent(SURVEY_ID, COLLECTION_EX_ID, CASE_ID, MESSAGE_ID))
+        .thenReturn(true);
+    when(caseBatchRepo.upsert(any())).thenReturn(false);
+    target.acceptEvent(caseEvent);
+
+    verify(caseCache, never()).invalidate(any(UUID.class));
+
+    assertEquals(1.0, meterRegistry.counter(CaseUpdateEventReceiver.STALE_UPDATES_METRIC).count());
+  }
+
+  @Test
+  public void shouldSkipDuplicateEvent() throws CTPException {
+    when(deduplicator.claim(UUID.fromString(MESSAGE_ID))).thenReturn(false);
+
+    target.acceptEvent(caseEvent);
+
+    verify(eventFilter, never()).isValidEvent(any(), any(), any(), any());
   }
 
   @Test
@@ -74,12 +108,12 @@ public class CaseUpdateEventReceiverTest {
         .thenReturn(false);
     target.acceptEvent(caseEvent);
 
-    verify(caseRepo, times(0)).saveAndFlush(caseCaptor.capture());
+    verify(caseBatchRepo, times(0)).upsert(caseCaptor.capture());
   }
 
   @Test
   public void shouldRejectFailingSave() throws CTPException {
-    when(caseRepo.saveAndFlush(any())).thenThrow(PersistenceException.class);
+    when(caseBatchRepo.upsert(any())).thenThrow(PersistenceException.class);
     when(eventFilter.isValidEvent(SURVEY_ID, COLLECTION_EX_ID, CASE_ID, MESSAGE_ID))
         .thenReturn(true);
     assertThrows(PersistenceException.class, () -> target.acceptEvent(caseEvent));
@@ -4,9 +4,11 @@ import static org.junit.jupiter.api.Assertions.assertAll;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import java.time.ZoneOffset;
 import java.util.UUID;
 import javax.persistence.PersistenceException;
@@ -31,7 +33,9 @@ import uk.gov.ons.ctp.integration.contactcentresvc.repository.db.CollectionExerc
 public class CollectionExerciseEventReceiverTest {
 
   @Mock private CollectionExerciseRepository repo;
+  @Mock private ReferenceDataCache referenceDataCache;
   @Spy private MapperFacade mapper = new CCSvcBeanMapper();
+  @Spy private InboundEventMetrics metrics = new InboundEventMetrics(new SimpleMeterRegistry(), 0);
 
   @InjectMocks private CollectionExerciseEventReceiver target;
 
@@ -53,12 +57,14 @@ public class CollectionExerciseEventReceiverTest {
     CollectionExerciseUpdate payload = event.getPayload().getCollectionExerciseUpdate();
     CollectionExercise persistedCollEx = collExCaptor.getValue();
     verifyMapping(persistedCollEx, payload);
+    verify(referenceDataCache).refreshCollectionExercise(persistedCollEx.getId());
   }
 
   @Test
   public void shouldRejectFailingSave() {
     when(repo.saveAndFlush(any())).thenThrow(PersistenceException.class);
     assertThrows(PersistenceException.class, () -> target.acceptEvent(event));
+    verify(referenceDataCache, never()).refreshCollectionExercise(any());
   }
 
   private void verifyMapping(
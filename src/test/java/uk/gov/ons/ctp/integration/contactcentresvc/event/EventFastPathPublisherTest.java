@@ -0,0 +1,84 @@
+package uk.gov.ons.ctp.integration.contactcentresvc.event;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+@ExtendWith(MockitoExtension.class)
+public class EventFastPathPublisherTest {
+
+  @Mock private EventToSendProcessor processor;
+
+  private MeterRegistry meterRegistry;
+  private EventFastPathPublisher publisher;
+
+  @BeforeEach
+  public void setup() {
+    meterRegistry = new SimpleMeterRegistry();
+    publisher = new EventFastPathPublisher(processor, meterRegistry, 1, 1);
+    ReflectionTestUtils.setField(publisher, "enabled", true);
+  }
+
+  @AfterEach
+  public void tearDown() {
+    publisher.shutdown();
+  }
+
+  private double skipped() {
+    return meterRegistry.counter("outbox.fast-path.skipped").count();
+  }
+
+  @Test
+  public void shouldPublishWithoutTransaction() throws Exception {
+    UUID eventId = UUID.randomUUID();
+    publisher.publishAfterCommit(eventId);
+    verify(processor, timeout(1000)).processEvent(eventId);
+    assertEquals(0, skipped());
+  }
+
+  @Test
+  public void shouldCountEventsSkippedWhenQueueFull() throws Exception {
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    doAnswer(
+            i -> {
+              started.countDown();
+              release.await();
+              return true;
+            })
+        .when(processor)
+        .processEvent(any());
+
+    publisher.publishAfterCommit(UUID.randomUUID());
+    started.await();
+    publisher.publishAfterCommit(UUID.randomUUID());
+    publisher.publishAfterCommit(UUID.randomUUID());
+    assertEquals(1, skipped());
+
+    release.countDown();
+    verify(processor, timeout(1000).times(2)).processEvent(any());
+  }
+
+  @Test
+  public void shouldCountEventsSkippedAfterShutdown() throws Exception {
+    publisher.shutdown();
+    publisher.publishAfterCommit(UUID.randomUUID());
+    assertEquals(1, skipped());
+    verify(processor, times(0)).processEvent(any());
+  }
+}
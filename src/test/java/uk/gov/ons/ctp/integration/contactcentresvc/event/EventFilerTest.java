@@ -6,15 +6,17 @@ import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import uk.gov.ons.ctp.common.error.CTPException;
@@ -35,8 +37,18 @@ public class EventFilerTest {
   @Mock private SurveyRepository surveyRepo;
   @Mock private CollectionExerciseRepository collExRepo;
   @Mock AppConfig appConfig;
+  @Mock private CacheInvalidationBus invalidationBus;
 
-  @InjectMocks private EventFilter eventFilter;
+  private ReferenceDataCache referenceDataCache;
+  private EventFilter eventFilter;
+
+  @BeforeEach
+  public void setup() {
+    referenceDataCache = new ReferenceDataCache(300, invalidationBus);
+    eventFilter =
+        new EventFilter(
+            appConfig, surveyRepo, collExRepo, referenceDataCache, new SimpleMeterRegistry());
+  }
 
   @Test
   public void shouldAcceptEventWithAllPrerequisiteEvents() throws CTPException {
@@ -77,6 +89,51 @@ public class EventFilerTest {
     assertEquals(CTPException.Fault.VALIDATION_FAILED, thrown.getFault());
   }
 
+  @Test
+  public void shouldUseCachedSurveyAndCollectionExercise() throws CTPException {
+    when(appConfig.getSurveys()).thenReturn(ACCEPTED_SURVEYS);
+    mockSocialSurvey();
+    mockCollectionExercise();
+    assertTrue(eventFilter.isValidEvent(SURVEY_ID, COLLECTION_EX_ID, CASE_ID, MESSAGE_ID));
+    assertTrue(eventFilter.isValidEvent(SURVEY_ID, COLLECTION_EX_ID, CASE_ID, MESSAGE_ID));
+    verify(surveyRepo, times(1)).findById(any());
+    verify(collExRepo, times(1)).findById(any());
+  }
+
+  @Test
+  public void shouldUseCachedNonSocialSurvey() throws CTPException {
+    when(appConfig.getSurveys()).thenReturn(ACCEPTED_SURVEYS);
+    mockSurvey("test/somethingelse.json");
+    assertFalse(eventFilter.isValidEvent(SURVEY_ID, COLLECTION_EX_ID, CASE_ID, MESSAGE_ID));
+    assertFalse(eventFilter.isValidEvent(SURVEY_ID, COLLECTION_EX_ID, CASE_ID, MESSAGE_ID));
+    verify(surveyRepo, times(1)).findById(any());
+  }
+
+  @Test
+  public void shouldReloadSurveyAfterInvalidation() throws CTPException {
+    when(appConfig.getSurveys()).thenReturn(ACCEPTED_SURVEYS);
+    mockSurvey("test/somethingelse.json");
+    assertFalse(eventFilter.isValidEvent(SURVEY_ID, COLLECTION_EX_ID, CASE_ID, MESSAGE_ID));
+
+    referenceDataCache.invalidateSurvey(UUID.fromString(SURVEY_ID));
+    mockSocialSurvey();
+    mockCollectionExercise();
+    assertTrue(eventFilter.isValidEvent(SURVEY_ID, COLLECTION_EX_ID, CASE_ID, MESSAGE_ID));
+  }
+
+  @Test
+  public void shouldNotCacheUnknownCollectionExercise() throws CTPException {
+    when(appConfig.getSurveys()).thenReturn(ACCEPTED_SURVEYS);
+    mockSocialSurvey();
+    when(collExRepo.findById(any())).thenReturn(Optional.empty());
+    assertThrows(
+        CTPException.class,
+        () -> eventFilter.isValidEvent(SURVEY_ID, COLLECTION_EX_ID, CASE_ID, MESSAGE_ID));
+
+    mockCollectionExercise();
+    assertTrue(eventFilter.isValidEvent(SURVEY_ID, COLLECTION_EX_ID, CASE_ID, MESSAGE_ID));
+  }
+
   private void mockSocialSurvey() {
     mockSurvey("test/social.json");
   }
@@ -0,0 +1,68 @@
+package uk.gov.ons.ctp.integration.contactcentresvc.event;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import uk.gov.ons.ctp.common.FixtureHelper;
+import uk.gov.ons.ctp.integration.contactcentresvc.model.EventToSend;
+
+public class EventPayloadCodecsTest {
+  private static final String PAYLOAD = FixtureHelper.loadPackageObjectNode("EqLaunch").toString();
+
+  private EventPayloadCodecs codecs(String format) {
+    return new EventPayloadCodecs(List.of(new GzipEventPayloadCodec()), format);
+  }
+
+  @Test
+  public void shouldWriteText() {
+    EventToSend event = new EventToSend();
+    codecs(EventPayloadCodecs.TEXT).write(event, PAYLOAD);
+    assertEquals(PAYLOAD, event.getPayload());
+    assertNull(event.getPayloadBytes());
+    assertNull(event.getPayloadFormat());
+  }
+
+  @Test
+  public void shouldWriteGzip() {
+    EventToSend event = new EventToSend();
+    codecs(GzipEventPayloadCodec.FORMAT).write(event, PAYLOAD);
+    assertNull(event.getPayload());
+    assertNotNull(event.getPayloadBytes());
+    assertEquals(GzipEventPayloadCodec.FORMAT, event.getPayloadFormat());
+  }
+
+  @Test
+  public void shouldReadGzip() {
+    EventToSend event = new EventToSend();
+    codecs(GzipEventPayloadCodec.FORMAT).write(event, PAYLOAD);
+    assertEquals(PAYLOAD, codecs(GzipEventPayloadCodec.FORMAT).read(event));
+  }
+
+  @Test
+  public void shouldReadEventsStoredInPreviousFormat() {
+    EventToSend textEvent = new EventToSend();
+    codecs(EventPayloadCodecs.TEXT).write(textEvent, PAYLOAD);
+    EventToSend gzipEvent = new EventToSend();
+    codecs(GzipEventPayloadCodec.FORMAT).write(gzipEvent, PAYLOAD);
+
+    assertEquals(PAYLOAD, codecs(GzipEventPayloadCodec.FORMAT).read(textEvent));
+    assertEquals(PAYLOAD, codecs(EventPayloadCodecs.TEXT).read(gzipEvent));
+  }
+
+  @Test
+  public void shouldCompressPayload() {
+    String payload = "{\"value\":\"" + "x".repeat(10000) + "\"}";
+    byte[] encoded = new GzipEventPayloadCodec().encode(payload);
+    assertTrue(encoded.length < payload.length() / 10);
+  }
+
+  @Test
+  public void shouldRejectUnknownFormat() {
+    assertThrows(IllegalArgumentException.class, () -> codecs("ZSTD"));
+  }
+}
@@ -0,0 +1,82 @@
+package uk.gov.ons.ctp.integration.contactcentresvc.event;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+import uk.gov.ons.ctp.integration.contactcentresvc.config.AppConfig;
+import uk.gov.ons.ctp.integration.contactcentresvc.config.SchedulerConfig;
+import uk.gov.ons.ctp.integration.contactcentresvc.config.SchedulerConfig.LaneConfig;
+import uk.gov.ons.ctp.integration.contactcentresvc.event.EventToSendLanes.Lane;
+
+public class EventToSendLanesTest {
+
+  private EventToSendLanes createLanes(int defaultWeight, LaneConfig... laneConfigs) {
+    SchedulerConfig schedulerConfig = new SchedulerConfig();
+    schedulerConfig.setLanes(List.of(laneConfigs));
+    schedulerConfig.setDefaultLaneWeight(defaultWeight);
+    AppConfig appConfig = new AppConfig();
+    appConfig.setScheduler(schedulerConfig);
+    return new EventToSendLanes(appConfig);
+  }
+
+  private LaneConfig lane(int weight, String... types) {
+    LaneConfig laneConfig = new LaneConfig();
+    laneConfig.setWeight(weight);
+    laneConfig.setTypes(Set.of(types));
+    return laneConfig;
+  }
+
+  /** Claim a chunk, where each lane has the given number of events waiting. */
+  private List<Integer> claimLimits(
+      EventToSendLanes lanes, int chunkSize, Map<Integer, Integer> waiting) {
+    List<Integer> limits = new ArrayList<>();
+    lanes.claimChunk(
+        chunkSize,
+        (Lane lane, Integer limit) -> {
+          limits.add(limit);
+          int available = Math.min(limit, waiting.getOrDefault(lane.getNumber(), 0));
+          return Collections.nCopies(available, lane.getNumber());
+        });
+    return limits;
+  }
+
+  @Test
+  public void shouldUseSingleDefaultLaneWithoutConfig() {
+    EventToSendLanes lanes = new EventToSendLanes(new AppConfig());
+    assertEquals(List.of(new Lane(0, 1, true)), lanes.getLanes());
+    assertEquals(0, lanes.laneFor("EQ_LAUNCH"));
+    assertEquals(List.of(10), claimLimits(lanes, 10, Map.of(0, 100)));
+  }
+
+  @Test
+  public void shouldMapTypesToLanes() {
+    EventToSendLanes lanes = createLanes(1, lane(4, "EQ_LAUNCH"), lane(2, "REFUSAL"));
+    assertEquals(0, lanes.laneFor("EQ_LAUNCH"));
+    assertEquals(1, lanes.laneFor("REFUSAL"));
+    assertEquals(2, lanes.laneFor("NEW_CASE"));
+    assertEquals(new Lane(2, 1, true), lanes.getLanes().get(2));
+  }
+
+  @Test
+  public void shouldShareChunkByWeight() {
+    EventToSendLanes lanes = createLanes(1, lane(3, "EQ_LAUNCH"));
+    assertEquals(List.of(75, 25), claimLimits(lanes, 100, Map.of(0, 1000, 1, 1000)));
+  }
+
+  @Test
+  public void shouldPassUnusedShareToLaterLanes() {
+    EventToSendLanes lanes = createLanes(1, lane(3, "EQ_LAUNCH"), lane(2, "REFUSAL"));
+    assertEquals(List.of(50, 64, 85), claimLimits(lanes, 100, Map.of(0, 5, 1, 10, 2, 1000)));
+  }
+
+  @Test
+  public void shouldNotStarveDefaultLane() {
+    EventToSendLanes lanes = createLanes(1, lane(99, "EQ_LAUNCH"));
+    assertEquals(List.of(99, 1), claimLimits(lanes, 100, Map.of(0, 1000, 1, 1000)));
+  }
+}
@@ -0,0 +1,108 @@
+package uk.gov.ons.ctp.integration.contactcentresvc.event;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import uk.gov.ons.ctp.common.event.TopicType;
+import uk.gov.ons.ctp.integration.contactcentresvc.event.EventToSendMetrics.TypeLag;
+import uk.gov.ons.ctp.integration.contactcentresvc.repository.db.EventToSendRepository;
+import uk.gov.ons.ctp.integration.contactcentresvc.repository.db.EventToSendRepository.TypeBacklog;
+
+@ExtendWith(MockitoExtension.class)
+public class EventToSendMetricsTest {
+  @Mock private EventToSendRepository eventToSendRepository;
+
+  private SimpleMeterRegistry meterRegistry;
+  private EventToSendMetrics metrics;
+
+  @BeforeEach
+  public void setup() {
+    meterRegistry = new SimpleMeterRegistry();
+    metrics = new EventToSendMetrics(eventToSendRepository, meterRegistry);
+  }
+
+  private TypeBacklog backlog(TopicType type, long depth, LocalDateTime oldest) {
+    TypeBacklog backlog = mock(TypeBacklog.class);
+    when(backlog.getType()).thenReturn(type.name());
+    when(backlog.getDepth()).thenReturn(depth);
+    when(backlog.getOldest()).thenReturn(oldest);
+    return backlog;
+  }
+
+  private double gauge(String name, TopicType type) {
+    return meterRegistry.get(name).tag("type", type.name()).gauge().value();
+  }
+
+  @Test
+  public void shouldReportNoLagBeforeRefresh() {
+    assertEquals(0, gauge("outbox.depth", TopicType.EQ_LAUNCH));
+    assertEquals(0, gauge("outbox.lag", TopicType.EQ_LAUNCH));
+  }
+
+  @Test
+  public void shouldReportLagByType() {
+    LocalDateTime oldest = LocalDateTime.now().minusMinutes(5);
+    List<TypeBacklog> backlog = List.of(backlog(TopicType.EQ_LAUNCH, 7, oldest));
+    when(eventToSendRepository.findBacklogByType()).thenReturn(backlog);
+
+    Map<String, TypeLag> lag = metrics.refresh();
+
+    assertEquals(1, lag.size());
+    assertEquals(7, lag.get("EQ_LAUNCH").getDepth());
+    assertEquals(oldest, lag.get("EQ_LAUNCH").getOldest());
+    assertTrue(lag.get("EQ_LAUNCH").getLagSeconds() >= 300);
+    assertEquals(7, gauge("outbox.depth", TopicType.EQ_LAUNCH));
+    assertTrue(gauge("outbox.lag", TopicType.EQ_LAUNCH) >= 300);
+    assertEquals(0, gauge("outbox.depth", TopicType.REFUSAL));
+  }
+
+  @Test
+  public void shouldServeBacklogFromLastRefresh() {
+    List<TypeBacklog> backlog = List.of(backlog(TopicType.EQ_LAUNCH, 7, LocalDateTime.now()));
+    when(eventToSendRepository.findBacklogByType()).thenReturn(backlog);
+    assertTrue(metrics.getBacklog().isEmpty());
+
+    metrics.refresh();
+
+    assertEquals(7, metrics.getBacklog().get("EQ_LAUNCH").getDepth());
+    assertEquals(7, metrics.getBacklog().get("EQ_LAUNCH").getDepth());
+    verify(eventToSendRepository, times(1)).findBacklogByType();
+  }
+
+  @Test
+  public void shouldClearLagOnceDrained() {
+    List<TypeBacklog> backlog = List.of(backlog(TopicType.EQ_LAUNCH, 7, LocalDateTime.now()));
+    when(eventToSendRepository.findBacklogByType()).thenReturn(backlog).thenReturn(List.of());
+
+    metrics.refresh();
+    metrics.refresh();
+
+    assertEquals(0, gauge("outbox.depth", TopicType.EQ_LAUNCH));
+  }
+
+  @Test
+  public void shouldKeepLastBacklogWhenRefreshFails() {
+    List<TypeBacklog> backlog = List.of(backlog(TopicType.EQ_LAUNCH, 7, LocalDateTime.now()));
+    when(eventToSendRepository.findBacklogByType())
+        .thenReturn(backlog)
+        .thenThrow(new RuntimeException("db down"));
+
+    metrics.refresh();
+    metrics.scheduledRefresh();
+
+    assertEquals(7, gauge("outbox.depth", TopicType.EQ_LAUNCH));
+  }
+}
@@ -1,33 +1,83 @@
 package uk.gov.ons.ctp.integration.contactcentresvc.event;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.timeout;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
 
 @ExtendWith(MockitoExtension.class)
 public class EventToSendPollerTest {
 
   @Mock private EventToSendProcessor processor;
+  @Mock private EventToSendNotificationListener notificationListener;
 
   @InjectMocks private EventToSendPoller poller;
 
+  @BeforeEach
+  public void setup() {
+    ReflectionTestUtils.setField(poller, "drainWorkers", 2);
+    ReflectionTestUtils.setField(poller, "minDelayMillis", 10L);
+    ReflectionTestUtils.setField(poller, "maxDelayMillis", 100L);
+  }
+
   @Test
   public void shouldProcessOneChunk() {
     when(processor.processChunk()).thenReturn(0);
-    poller.processQueuedMessages();
+    assertEquals(0, poller.processQueuedMessages());
     verify(processor).processChunk();
   }
 
   @Test
   public void shouldProcessTwoChunks() {
     when(processor.processChunk()).thenReturn(3).thenReturn(0);
-    poller.processQueuedMessages();
+    assertEquals(3, poller.processQueuedMessages());
     verify(processor, times(2)).processChunk();
   }
+
+  @Test
+  public void shouldBackOffUpToFixedDelay() {
+    assertEquals(20, poller.nextDelay(10));
+    assertEquals(80, poller.nextDelay(40));
+    assertEquals(100, poller.nextDelay(80));
+    assertEquals(100, poller.nextDelay(100));
+  }
+
+  @Test
+  public void shouldDrainWithWorkers() throws Exception {
+    when(processor.processChunk()).thenReturn(0);
+    poller.start();
+    try {
+      verify(processor, timeout(1000).atLeast(4)).processChunk();
+      verify(notificationListener).start(any());
+    } finally {
+      poller.stop();
+    }
+    verify(notificationListener).stop();
+  }
+
+  @Test
+  public void shouldDrainPromptlyWhenWoken() throws Exception {
+    ReflectionTestUtils.setField(poller, "drainWorkers", 1);
+    ReflectionTestUtils.setField(poller, "minDelayMillis", 60000L);
+    ReflectionTestUtils.setField(poller, "maxDelayMillis", 60000L);
+    when(processor.processChunk()).thenReturn(0);
+    poller.start();
+    try {
+      verify(processor, timeout(1000)).processChunk();
+      poller.wakeUp();
+      verify(processor, timeout(1000).times(2)).processChunk();
+    } finally {
+      poller.stop();
+    }
+  }
 }
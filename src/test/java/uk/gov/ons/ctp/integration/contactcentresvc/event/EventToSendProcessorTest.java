@@ -1,35 +1,51 @@
 package uk.gov.ons.ctp.integration.contactcentresvc.event;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 import java.util.stream.Stream;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.test.util.ReflectionTestUtils;
 import uk.gov.ons.ctp.common.FixtureHelper;
 import uk.gov.ons.ctp.common.domain.Channel;
 import uk.gov.ons.ctp.common.domain.Source;
+import uk.gov.ons.ctp.common.event.EventPublishException;
 import uk.gov.ons.ctp.common.event.EventPublisher;
 import uk.gov.ons.ctp.common.event.TopicType;
 import uk.gov.ons.ctp.integration.contactcentresvc.config.AppConfig;
-import uk.gov.ons.ctp.integration.contactcentresvc.config.MessagingConfig;
-import uk.gov.ons.ctp.integration.contactcentresvc.event.EventToSendProcessor.PublishRetrier;
+import uk.gov.ons.ctp.integration.contactcentresvc.config.SchedulerConfig;
+import uk.gov.ons.ctp.integration.contactcentresvc.config.SchedulerConfig.LaneConfig;
+import uk.gov.ons.ctp.integration.contactcentresvc.model.EventDeadLetter;
 import uk.gov.ons.ctp.integration.contactcentresvc.model.EventToSend;
+import uk.gov.ons.ctp.integration.contactcentresvc.repository.db.EventDeadLetterRepository;
 import uk.gov.ons.ctp.integration.contactcentresvc.repository.db.EventToSendRepository;
 
 @ExtendWith(MockitoExtension.class)
@@ -39,10 +55,12 @@ public class EventToSendProcessorTest {
   private static final String ID_3 = "ac0c49fe-1498-11ec-879a-4c3275913db5";
 
   @Mock private EventToSendRepository eventToSendRepository;
+  @Mock private EventDeadLetterRepository eventDeadLetterRepository;
   @Mock private EventPublisher eventPublisher;
   @Mock private AppConfig appConfig;
-  private PublishRetrier retrier;
-  @InjectMocks private EventToSendProcessor processor;
+  private EventPayloadCodecs payloadCodecs;
+  private MeterRegistry meterRegistry;
+  private EventToSendProcessor processor;
 
   @Captor private ArgumentCaptor<Integer> chunkSizeCaptor;
   @Captor private ArgumentCaptor<TopicType> typeCaptor;
@@ -53,31 +71,59 @@ public class EventToSendProcessorTest {
 
   @BeforeEach
   public void setup() {
-    when(appConfig.getMessaging()).thenReturn(new MessagingConfig());
-    retrier = new PublishRetrier(eventPublisher, appConfig);
-    ReflectionTestUtils.setField(processor, "chunkSize", 3);
-    ReflectionTestUtils.setField(processor, "retrier", retrier);
+    payloadCodecs =
+        new EventPayloadCodecs(List.of(new GzipEventPayloadCodec()), EventPayloadCodecs.TEXT);
+    meterRegistry = new SimpleMeterRegistry();
+    processor = createProcessor(3);
+  }
+
+  private EventToSendProcessor createProcessor(int chunkSize) {
+    EventToSendProcessor processor =
+        new EventToSendProcessor(
+            eventToSendRepository,
+            eventDeadLetterRepository,
+            eventPublisher,
+            payloadCodecs,
+            new EventToSendLanes(appConfig),
+            meterRegistry,
+            2);
+    ReflectionTestUtils.setField(processor, "chunkSize", chunkSize);
+    ReflectionTestUtils.setField(processor, "deadLetterAttempts", 3);
+    ReflectionTestUtils.setField(processor, "rescheduleInitialSeconds", 1L);
+    ReflectionTestUtils.setField(processor, "rescheduleMaxSeconds", 3600L);
+    return processor;
+  }
+
+  @AfterEach
+  public void tearDown() {
+    processor.shutdown();
   }
 
   private EventToSend createEvent(String id) {
     String payload = FixtureHelper.loadPackageObjectNode("EqLaunch").toString();
-    return new EventToSend(
-        UUID.fromString(id), TopicType.EQ_LAUNCH.name(), payload, LocalDateTime.now());
+    return EventToSend.builder()
+        .id(UUID.fromString(id))
+        .type(TopicType.EQ_LAUNCH.name())
+        .payload(payload)
+        .createdDateTime(LocalDateTime.now())
+        .build();
   }
 
   @Test
   public void shouldProcessChunksOfChunkSize() {
     processor.processChunk();
-    verify(eventToSendRepository).findEventsToSend(chunkSizeCaptor.capture());
+    verify(eventToSendRepository)
+        .findEventsToSendInLanes(eq(0), eq(Integer.MAX_VALUE), chunkSizeCaptor.capture());
     assertEquals(Integer.valueOf(3), chunkSizeCaptor.getValue());
   }
 
   @Test
   public void shouldProcessNothing() {
-    when(eventToSendRepository.findEventsToSend(3)).thenReturn(Stream.empty());
+    when(eventToSendRepository.findEventsToSendInLanes(0, Integer.MAX_VALUE, 3))
+        .thenReturn(Stream.empty());
     int numProcessed = processor.processChunk();
     assertEquals(0, numProcessed);
-    verify(eventToSendRepository).findEventsToSend(3);
+    verify(eventToSendRepository).findEventsToSendInLanes(0, Integer.MAX_VALUE, 3);
   }
 
   private void validatePayload(int index) {
@@ -90,7 +136,8 @@ public class EventToSendProcessorTest {
     List<EventToSend> events = new ArrayList<>();
     EventToSend ev = createEvent(ID_1);
     events.add(ev);
-    when(eventToSendRepository.findEventsToSend(anyInt())).thenReturn(events.stream());
+    when(eventToSendRepository.findEventsToSendInLanes(anyInt(), anyInt(), anyInt()))
+        .thenReturn(events.stream());
     int numProcessed = processor.processChunk();
     assertEquals(1, numProcessed);
     verify(eventPublisher)
@@ -118,7 +165,8 @@ public class EventToSendProcessorTest {
     events.add(ev1);
     events.add(ev2);
     events.add(ev3);
-    when(eventToSendRepository.findEventsToSend(anyInt())).thenReturn(events.stream());
+    when(eventToSendRepository.findEventsToSendInLanes(anyInt(), anyInt(), anyInt()))
+        .thenReturn(events.stream());
     int numProcessed = processor.processChunk();
     assertEquals(3, numProcessed);
     verify(eventPublisher, times(3))
@@ -138,4 +186,203 @@ public class EventToSendProcessorTest {
     verify(eventToSendRepository).deleteAllInBatch(sentCaptor.capture());
     assertEquals(3, ((List<EventToSend>) sentCaptor.getValue()).size());
   }
+
+  @Test
+  public void shouldOnlyDeleteAcknowledgedEvents() {
+    List<EventToSend> events = new ArrayList<>();
+    EventToSend ev1 = createEvent(ID_1);
+    EventToSend ev2 = createEvent(ID_2);
+    ev2.setType(TopicType.REFUSAL.name());
+    EventToSend ev3 = createEvent(ID_3);
+    events.add(ev1);
+    events.add(ev2);
+    events.add(ev3);
+    lenient()
+        .doThrow(new EventPublishException("argh"))
+        .when(eventPublisher)
+        .sendEvent(eq(TopicType.REFUSAL), any(), any(), contains("1358980545"));
+    when(eventToSendRepository.findEventsToSendInLanes(anyInt(), anyInt(), anyInt()))
+        .thenReturn(events.stream());
+
+    int numProcessed = processor.processChunk();
+    assertEquals(3, numProcessed);
+
+    verify(eventToSendRepository).deleteAllInBatch(sentCaptor.capture());
+    List<EventToSend> sent = (List<EventToSend>) sentCaptor.getValue();
+    assertEquals(2, sent.size());
+    assertTrue(sent.contains(ev1));
+    assertTrue(sent.contains(ev3));
+    assertEquals(1, meterRegistry.get("outbox.publish.failures").counter().count());
+    assertEquals(2, meterRegistry.get("outbox.chunk.deleted").summary().totalAmount());
+    verify(eventToSendRepository)
+        .rescheduleEventToSend(eq(ev2.getId()), contains("argh"), eq(1L), eq(3600L));
+  }
+
+  @Test
+  public void shouldNotRetryFailedEventWithinChunk() {
+    EventToSend ev = createEvent(ID_1);
+    when(eventToSendRepository.findEventsToSendInLanes(anyInt(), anyInt(), anyInt()))
+        .thenReturn(Stream.of(ev));
+    doThrow(new EventPublishException("argh"))
+        .doReturn(UUID.fromString(ID_1))
+        .when(eventPublisher)
+        .sendEvent(any(), any(), any(), any(String.class));
+
+    assertEquals(1, processor.processChunk());
+
+    verify(eventPublisher, times(1)).sendEvent(any(), any(), any(), any(String.class));
+    verify(eventToSendRepository).rescheduleEventToSend(eq(ev.getId()), any(), eq(1L), eq(3600L));
+    verify(eventToSendRepository).deleteAllInBatch(sentCaptor.capture());
+    assertTrue(((List<EventToSend>) sentCaptor.getValue()).isEmpty());
+  }
+
+  @Test
+  public void shouldDeadLetterAfterTooManyAttempts() {
+    EventToSend ev = createEvent(ID_1);
+    ev.setAttempts(2);
+    when(eventToSendRepository.findEventsToSendInLanes(anyInt(), anyInt(), anyInt()))
+        .thenReturn(Stream.of(ev));
+    doThrow(new EventPublishException("argh"))
+        .when(eventPublisher)
+        .sendEvent(any(), any(), any(), any(String.class));
+
+    assertEquals(1, processor.processChunk());
+
+    ArgumentCaptor<EventDeadLetter> deadLetterCaptor =
+        ArgumentCaptor.forClass(EventDeadLetter.class);
+    verify(eventDeadLetterRepository).save(deadLetterCaptor.capture());
+    EventDeadLetter deadLetter = deadLetterCaptor.getValue();
+    assertEquals(ev.getId(), deadLetter.getId());
+    assertEquals(ev.getType(), deadLetter.getType());
+    assertEquals(ev.getPayload(), deadLetter.getPayload());
+    assertEquals(3, deadLetter.getAttempts());
+    assertTrue(deadLetter.getLastError().contains("argh"));
+    verify(eventToSendRepository).delete(ev);
+    verify(eventToSendRepository, never())
+        .rescheduleEventToSend(any(), any(), anyLong(), anyLong());
+    assertEquals(1, meterRegistry.get("outbox.dead-lettered").counter().count());
+  }
+
+  @Test
+  public void shouldCoalesceDuplicateEvents() {
+    ReflectionTestUtils.setField(processor, "coalesceWindowSeconds", 60L);
+    EventToSend ev1 = createEvent(ID_1);
+    EventToSend ev2 = createEvent(ID_2);
+    ev2.setCreatedDateTime(ev1.getCreatedDateTime().plusSeconds(5));
+    EventToSend ev3 = createEvent(ID_3);
+    ev3.setType(TopicType.REFUSAL.name());
+    when(eventToSendRepository.findEventsToSendInLanes(anyInt(), anyInt(), anyInt()))
+        .thenReturn(Stream.of(ev1, ev2, ev3));
+
+    assertEquals(3, processor.processChunk());
+
+    verify(eventPublisher).sendEvent(eq(TopicType.EQ_LAUNCH), any(), any(), any(String.class));
+    verify(eventPublisher).sendEvent(eq(TopicType.REFUSAL), any(), any(), any(String.class));
+    verify(eventToSendRepository).deleteAllInBatch(sentCaptor.capture());
+    List<EventToSend> deleted = (List<EventToSend>) sentCaptor.getValue();
+    assertEquals(3, deleted.size());
+    assertTrue(deleted.contains(ev2));
+    assertEquals(1, meterRegistry.get("outbox.coalesced").counter().count());
+  }
+
+  @Test
+  public void shouldNotCoalesceEventsOutsideWindow() {
+    ReflectionTestUtils.setField(processor, "coalesceWindowSeconds", 60L);
+    EventToSend ev1 = createEvent(ID_1);
+    EventToSend ev2 = createEvent(ID_2);
+    ev2.setCreatedDateTime(ev1.getCreatedDateTime().plusSeconds(61));
+    when(eventToSendRepository.findEventsToSendInLanes(anyInt(), anyInt(), anyInt()))
+        .thenReturn(Stream.of(ev1, ev2));
+
+    assertEquals(2, processor.processChunk());
+
+    verify(eventPublisher, times(2))
+        .sendEvent(eq(TopicType.EQ_LAUNCH), any(), any(), any(String.class));
+    assertEquals(0, meterRegistry.get("outbox.coalesced").counter().count());
+  }
+
+  @Test
+  public void shouldDeleteDuplicatesWhenPublishFails() {
+    ReflectionTestUtils.setField(processor, "coalesceWindowSeconds", 60L);
+    EventToSend ev1 = createEvent(ID_1);
+    EventToSend ev2 = createEvent(ID_2);
+    when(eventToSendRepository.findEventsToSendInLanes(anyInt(), anyInt(), anyInt()))
+        .thenReturn(Stream.of(ev1, ev2));
+    doThrow(new EventPublishException("argh"))
+        .when(eventPublisher)
+        .sendEvent(any(), any(), any(), any(String.class));
+
+    assertEquals(2, processor.processChunk());
+
+    verify(eventToSendRepository).rescheduleEventToSend(eq(ev1.getId()), any(), eq(1L), eq(3600L));
+    verify(eventToSendRepository).deleteAllInBatch(sentCaptor.capture());
+    assertEquals(List.of(ev2), sentCaptor.getValue());
+  }
+
+  @Test
+  public void shouldClaimPriorityLaneFirst() {
+    SchedulerConfig schedulerConfig = new SchedulerConfig();
+    LaneConfig urgent = new LaneConfig();
+    urgent.setWeight(3);
+    urgent.setTypes(Set.of(TopicType.REFUSAL.name()));
+    schedulerConfig.getLanes().add(urgent);
+    when(appConfig.getScheduler()).thenReturn(schedulerConfig);
+    processor.shutdown();
+    processor = createProcessor(4);
+
+    EventToSend urgentEvent = createEvent(ID_1);
+    urgentEvent.setType(TopicType.REFUSAL.name());
+    EventToSend otherEvent = createEvent(ID_2);
+    when(eventToSendRepository.findEventsToSendInLanes(0, 0, 3)).thenReturn(Stream.of(urgentEvent));
+    when(eventToSendRepository.findEventsToSendInLanes(1, Integer.MAX_VALUE, 3))
+        .thenReturn(Stream.of(otherEvent));
+
+    assertEquals(2, processor.processChunk());
+    verify(eventToSendRepository).deleteAllInBatch(sentCaptor.capture());
+    assertEquals(2, ((List<EventToSend>) sentCaptor.getValue()).size());
+  }
+
+  @Test
+  public void shouldRecordChunkTime() {
+    when(eventToSendRepository.findEventsToSendInLanes(0, Integer.MAX_VALUE, 3))
+        .thenReturn(Stream.empty(), Stream.empty());
+    processor.processChunk();
+    processor.processChunk();
+    assertEquals(2, meterRegistry.get("outbox.chunk").timer().count());
+    assertEquals(0, meterRegistry.get("outbox.publish.inflight").gauge().value());
+  }
+
+  @Test
+  public void shouldPublishSingleEvent() {
+    EventToSend ev = createEvent(ID_1);
+    when(eventToSendRepository.claimEventToSend(ev.getId())).thenReturn(Optional.of(ev));
+    assertTrue(processor.processEvent(ev.getId()));
+    verify(eventPublisher)
+        .sendEvent(
+            eq(TopicType.EQ_LAUNCH),
+            eq(Source.CONTACT_CENTRE_API),
+            eq(Channel.CC),
+            any(String.class));
+    verify(eventToSendRepository).delete(ev);
+  }
+
+  @Test
+  public void shouldSkipSingleEventClaimedElsewhere() {
+    UUID id = UUID.fromString(ID_1);
+    when(eventToSendRepository.claimEventToSend(id)).thenReturn(Optional.empty());
+    assertFalse(processor.processEvent(id));
+    verify(eventToSendRepository, never()).delete(any());
+  }
+
+  @Test
+  public void shouldKeepSingleEventWhenPublishFails() {
+    EventToSend ev = createEvent(ID_1);
+    when(eventToSendRepository.claimEventToSend(ev.getId())).thenReturn(Optional.of(ev));
+    doThrow(new EventPublishException("argh"))
+        .when(eventPublisher)
+        .sendEvent(any(), any(), any(), any(String.class));
+    assertThrows(EventPublishException.class, () -> processor.processEvent(ev.getId()));
+    verify(eventToSendRepository, never()).delete(any());
+    assertEquals(1, meterRegistry.get("outbox.publish.failures").counter().count());
+  }
 }
@@ -2,9 +2,13 @@ package uk.gov.ons.ctp.integration.contactcentresvc.event;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
 
+import java.util.List;
 import java.util.UUID;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -14,6 +18,8 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
 import uk.gov.ons.ctp.common.event.TopicType;
 import uk.gov.ons.ctp.common.event.model.EqLaunch;
 import uk.gov.ons.ctp.common.event.model.EventPayload;
@@ -25,6 +31,13 @@ import uk.gov.ons.ctp.integration.contactcentresvc.repository.db.EventToSendRepo
 public class EventTransferTest {
   @Mock private EventToSendRepository eventToSendRepository;
   @Spy private CustomObjectMapper mapper = new CustomObjectMapper();
+  @Mock private JdbcTemplate jdbcTemplate;
+  @Mock private EventFastPathPublisher fastPathPublisher;
+  @Mock private EventToSendLanes lanes;
+
+  @Spy
+  private EventPayloadCodecs payloadCodecs =
+      new EventPayloadCodecs(List.of(new GzipEventPayloadCodec()), EventPayloadCodecs.TEXT);
 
   @InjectMocks private EventTransfer eventTransfer;
 
@@ -45,5 +58,42 @@ public class EventTransferTest {
     assertEquals(TopicType.EQ_LAUNCH.name(), event.getType());
     assertTrue(payloadJson.contains("\"123\""));
     assertNotNull(event.getId());
+    verify(fastPathPublisher).publishAfterCommit(event.getId());
+  }
+
+  @Test
+  public void shouldSendInLaneForType() {
+    when(lanes.laneFor(TopicType.EQ_LAUNCH.name())).thenReturn(2);
+    eventTransfer.send(TopicType.EQ_LAUNCH, createPayload());
+    verify(eventToSendRepository).save(eventCaptor.capture());
+    assertEquals(2, eventCaptor.getValue().getLane());
+  }
+
+  @Test
+  public void shouldNotNotifyWhenDisabled() {
+    eventTransfer.send(TopicType.EQ_LAUNCH, createPayload());
+    verifyNoInteractions(jdbcTemplate);
+  }
+
+  @Test
+  public void shouldNotifyWhenEnabled() {
+    ReflectionTestUtils.setField(eventTransfer, "notifyEnabled", true);
+    eventTransfer.send(TopicType.EQ_LAUNCH, createPayload());
+    verify(jdbcTemplate).execute("NOTIFY " + EventToSendNotificationListener.CHANNEL);
+  }
+
+  @Test
+  public void shouldSendCompressed() {
+    payloadCodecs =
+        new EventPayloadCodecs(List.of(new GzipEventPayloadCodec()), GzipEventPayloadCodec.FORMAT);
+    eventTransfer =
+        new EventTransfer(
+            eventToSendRepository, mapper, jdbcTemplate, fastPathPublisher, payloadCodecs, lanes);
+    eventTransfer.send(TopicType.EQ_LAUNCH, createPayload());
+    verify(eventToSendRepository).save(eventCaptor.capture());
+    EventToSend event = eventCaptor.getValue();
+    assertNull(event.getPayload());
+    assertEquals(GzipEventPayloadCodec.FORMAT, event.getPayloadFormat());
+    assertTrue(payloadCodecs.read(event).contains("\"123\""));
   }
 }
@@ -0,0 +1,95 @@
+package uk.gov.ons.ctp.integration.contactcentresvc.event;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.Date;
+import java.util.UUID;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import uk.gov.ons.ctp.common.event.model.Header;
+
+public class InboundEventMetricsTest {
+  private MeterRegistry meterRegistry;
+  private InboundEventMetrics metrics;
+  private Header header;
+
+  @BeforeEach
+  public void setup() {
+    meterRegistry = new SimpleMeterRegistry();
+    metrics = new InboundEventMetrics(meterRegistry, 1);
+    header = new Header();
+    header.setMessageId(UUID.randomUUID());
+    header.setDateTime(new Date(System.currentTimeMillis() - 1000));
+  }
+
+  @AfterEach
+  public void tearDown() {
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.clearSynchronization();
+    }
+  }
+
+  private double events(String subscription, String outcome) {
+    return meterRegistry
+        .counter("inbound.events", "subscription", subscription, "outcome", outcome)
+        .count();
+  }
+
+  @Test
+  public void shouldRecordAcceptedEventWithLatency() {
+    metrics.start(InboundEventMetrics.CASE, header).complete(InboundEventMetrics.ACCEPTED);
+
+    assertEquals(1, events(InboundEventMetrics.CASE, InboundEventMetrics.ACCEPTED));
+    assertEquals(
+        1,
+        meterRegistry
+            .timer(
+                "inbound.event.processing",
+                "subscription",
+                InboundEventMetrics.CASE,
+                "outcome",
+                InboundEventMetrics.ACCEPTED)
+            .count());
+    assertEquals(
+        1,
+        meterRegistry
+            .timer("inbound.event.latency", "subscription", InboundEventMetrics.CASE)
+            .count());
+  }
+
+  @Test
+  public void shouldNotRecordLatencyOfFilteredEvent() {
+    metrics.record(InboundEventMetrics.UAC, header, InboundEventMetrics.FILTERED);
+
+    assertEquals(1, events(InboundEventMetrics.UAC, InboundEventMetrics.FILTERED));
+    assertNull(meterRegistry.find("inbound.event.latency").timer());
+  }
+
+  @Test
+  public void shouldRecordOutcomeOnceTransactionCommits() {
+    TransactionSynchronizationManager.initSynchronization();
+    metrics.start(InboundEventMetrics.CASE, header).complete(InboundEventMetrics.STALE);
+    assertEquals(0, events(InboundEventMetrics.CASE, InboundEventMetrics.STALE));
+
+    TransactionSynchronizationManager.getSynchronizations()
+        .forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+    assertEquals(1, events(InboundEventMetrics.CASE, InboundEventMetrics.STALE));
+  }
+
+  @Test
+  public void shouldRecordFailureWhenTransactionRollsBack() {
+    TransactionSynchronizationManager.initSynchronization();
+    metrics.start(InboundEventMetrics.CASE, header).complete(InboundEventMetrics.ACCEPTED);
+
+    TransactionSynchronizationManager.getSynchronizations()
+        .forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+    assertEquals(0, events(InboundEventMetrics.CASE, InboundEventMetrics.ACCEPTED));
+    assertEquals(1, events(InboundEventMetrics.CASE, InboundEventMetrics.FAILED));
+  }
+}
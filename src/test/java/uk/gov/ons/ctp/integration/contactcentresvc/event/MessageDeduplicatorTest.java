@@ -0,0 +1,104 @@
+package uk.gov.ons.ctp.integration.contactcentresvc.event;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.List;
+import java.util.UUID;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import uk.gov.ons.ctp.integration.contactcentresvc.config.AppConfig;
+import uk.gov.ons.ctp.integration.contactcentresvc.config.QueueConfig;
+import uk.gov.ons.ctp.integration.contactcentresvc.repository.db.ProcessedMessageRepository;
+
+@ExtendWith(MockitoExtension.class)
+public class MessageDeduplicatorTest {
+  private static final UUID MESSAGE_ID_1 = UUID.fromString("3883af91-0052-4497-9805-3238544fcf8a");
+  private static final UUID MESSAGE_ID_2 = UUID.fromString("4883af91-0052-4497-9805-3238544fcf8a");
+
+  @Mock private ProcessedMessageRepository processedMessageRepository;
+  @Mock private AppConfig appConfig;
+
+  private QueueConfig queueConfig = new QueueConfig();
+  private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+  @BeforeEach
+  public void setup() {
+    when(appConfig.getQueueConfig()).thenReturn(queueConfig);
+  }
+
+  private MessageDeduplicator createDeduplicator() {
+    return new MessageDeduplicator(processedMessageRepository, appConfig, meterRegistry);
+  }
+
+  private double count(String name) {
+    return meterRegistry.counter(name).count();
+  }
+
+  @Test
+  public void shouldClaimNewMessage() {
+    when(processedMessageRepository.claim(MESSAGE_ID_1, 86400)).thenReturn(true);
+    MessageDeduplicator deduplicator = createDeduplicator();
+
+    assertTrue(deduplicator.claim(MESSAGE_ID_1));
+    assertEquals(1.0, count("inbound.dedup.misses"));
+    assertEquals(0.0, count("inbound.dedup.hits"));
+  }
+
+  @Test
+  public void shouldSkipMessageProcessedElsewhere() {
+    when(processedMessageRepository.claim(MESSAGE_ID_1, 86400)).thenReturn(false);
+    MessageDeduplicator deduplicator = createDeduplicator();
+
+    assertFalse(deduplicator.claim(MESSAGE_ID_1));
+    assertEquals(1.0, count("inbound.dedup.hits"));
+  }
+
+  @Test
+  public void shouldSkipRecentMessageWithoutDatabase() {
+    when(processedMessageRepository.claim(MESSAGE_ID_1, 86400)).thenReturn(true);
+    MessageDeduplicator deduplicator = createDeduplicator();
+
+    assertTrue(deduplicator.claim(MESSAGE_ID_1));
+    assertFalse(deduplicator.claim(MESSAGE_ID_1));
+    verify(processedMessageRepository, times(1)).claim(any(), anyLong());
+    assertEquals(1.0, count("inbound.dedup.hits"));
+  }
+
+  @Test
+  public void shouldForgetLeastRecentMessages() {
+    queueConfig.getDedup().setMaxEntries(1);
+    MessageDeduplicator deduplicator = createDeduplicator();
+
+    deduplicator.recordProcessed(List.of(MESSAGE_ID_1, MESSAGE_ID_2));
+
+    assertFalse(deduplicator.isRecentlyProcessed(MESSAGE_ID_1));
+    assertTrue(deduplicator.isRecentlyProcessed(MESSAGE_ID_2));
+    verify(processedMessageRepository).saveAll(List.of(MESSAGE_ID_1, MESSAGE_ID_2));
+  }
+
+  @Test
+  public void shouldDoNothingWhenDisabled() {
+    queueConfig.getDedup().setEnabled(false);
+    MessageDeduplicator deduplicator = createDeduplicator();
+
+    assertTrue(deduplicator.claim(MESSAGE_ID_1));
+    assertTrue(deduplicator.claim(MESSAGE_ID_1));
+    deduplicator.recordProcessed(List.of(MESSAGE_ID_1));
+    assertFalse(deduplicator.isRecentlyProcessed(MESSAGE_ID_1));
+    verify(processedMessageRepository, never()).claim(any(), anyLong());
+    verify(processedMessageRepository, never()).saveAll(any());
+  }
+}
@@ -0,0 +1,30 @@
+package uk.gov.ons.ctp.integration.contactcentresvc.event;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.Connection;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+
+public class NotificationConnectionFactoryTest {
+
+  @Test
+  public void shouldOpenNewConnectionEachTime() throws Exception {
+    DataSourceProperties properties = new DataSourceProperties();
+    properties.setUrl("jdbc:h2:mem:notifications");
+    properties.setUsername("sa");
+    properties.setPassword("");
+    NotificationConnectionFactory factory = new NotificationConnectionFactory(properties);
+
+    try (Connection first = factory.open();
+        Connection second = factory.open()) {
+      assertNotSame(first, second);
+      assertFalse(first.isClosed());
+      second.close();
+      assertTrue(second.isClosed());
+      assertFalse(first.isClosed());
+    }
+  }
+}
@@ -0,0 +1,74 @@
+package uk.gov.ons.ctp.integration.contactcentresvc.event;
+
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+
+@ExtendWith(MockitoExtension.class)
+public class NotificationListenerTest {
+  private static final String CHANNEL = "cc_test";
+
+  @Mock private NotificationConnectionFactory connectionFactory;
+  @Mock private Connection connection;
+  @Mock private PGConnection pgConnection;
+  @Mock private Statement statement;
+  @Mock private PGNotification notification;
+  @Mock private NotificationListener.Handler handler;
+
+  private NotificationListener listener;
+
+  @BeforeEach
+  public void setup() throws Exception {
+    when(connection.unwrap(PGConnection.class)).thenReturn(pgConnection);
+    when(connection.createStatement()).thenReturn(statement);
+    listener = new NotificationListener(connectionFactory, CHANNEL, "test-listener", 1, handler);
+  }
+
+  @AfterEach
+  public void tearDown() {
+    listener.stop();
+  }
+
+  @Test
+  public void shouldPassNotificationsToHandler() throws Exception {
+    when(connectionFactory.open()).thenReturn(connection);
+    PGNotification[] notifications = {notification};
+    when(pgConnection.getNotifications(anyInt()))
+        .thenReturn(notifications)
+        .thenReturn(new PGNotification[0]);
+
+    listener.start();
+
+    verify(statement, timeout(1000)).execute("LISTEN " + CHANNEL);
+    verify(handler, timeout(1000)).listening();
+    verify(handler, timeout(1000)).notified(notifications);
+  }
+
+  @Test
+  public void shouldReconnectAfterFailure() throws Exception {
+    when(connectionFactory.open())
+        .thenThrow(new SQLException("connection refused"))
+        .thenReturn(connection);
+    lenient().when(pgConnection.getNotifications(anyInt())).thenReturn(null);
+
+    listener.start();
+
+    verify(handler, timeout(1000)).listening();
+    verify(connectionFactory, atLeastOnce()).open();
+  }
+}
@@ -0,0 +1,119 @@
+package uk.gov.ons.ctp.integration.contactcentresvc.event;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import com.google.cloud.spring.pubsub.support.BasicAcknowledgeablePubsubMessage;
+import com.google.cloud.spring.pubsub.support.GcpPubSubHeaders;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessagingException;
+import org.springframework.messaging.support.MessageBuilder;
+import uk.gov.ons.ctp.integration.contactcentresvc.config.QueueConfig.LaneConfig;
+
+public class OrderedLaneChannelTest {
+  private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private List<String> processed = Collections.synchronizedList(new ArrayList<>());
+  private LaneConfig config = new LaneConfig();
+
+  @BeforeEach
+  public void setup() {
+    config.setEnabled(true);
+    config.setLanes(4);
+    config.setCapacity(2);
+  }
+
+  private OrderedLaneChannel createChannel(MessageChannel target) {
+    // the events are "key:sequence" strings, keyed by the part before the colon
+    return new OrderedLaneChannel(
+        "test", config, target, event -> ((String) event).split(":")[0], meterRegistry);
+  }
+
+  private Message<String> message(String event, BasicAcknowledgeablePubsubMessage original) {
+    return MessageBuilder.withPayload(event)
+        .setHeader(GcpPubSubHeaders.ORIGINAL_MESSAGE, original)
+        .build();
+  }
+
+  @Test
+  public void shouldProcessEventsForEachKeyInOrder() throws Exception {
+    OrderedLaneChannel channel =
+        createChannel(
+            (message, timeout) -> {
+              processed.add((String) message.getPayload());
+              return true;
+            });
+
+    for (int i = 0; i < 50; i++) {
+      for (String key : List.of("A", "B", "C")) {
+        channel.send(message(key + ":" + i, mock(BasicAcknowledgeablePubsubMessage.class)));
+      }
+    }
+    channel.shutdown();
+
+    assertEquals(150, processed.size());
+    for (String key : List.of("A", "B", "C")) {
+      List<Integer> sequence =
+          processed.stream()
+              .filter(event -> event.startsWith(key + ":"))
+              .map(event -> Integer.valueOf(event.split(":")[1]))
+              .collect(Collectors.toList());
+      List<Integer> sorted = new ArrayList<>(sequence);
+      Collections.sort(sorted);
+      assertEquals(sorted, sequence);
+    }
+  }
+
+  @Test
+  public void shouldAckProcessedEvent() throws Exception {
+    BasicAcknowledgeablePubsubMessage original = mock(BasicAcknowledgeablePubsubMessage.class);
+    OrderedLaneChannel channel = createChannel((message, timeout) -> true);
+
+    assertTrue(channel.send(message("A:1", original)));
+    channel.shutdown();
+
+    verify(original).ack();
+    verify(original, never()).nack();
+  }
+
+  @Test
+  public void shouldNackFailedEvent() throws Exception {
+    BasicAcknowledgeablePubsubMessage original = mock(BasicAcknowledgeablePubsubMessage.class);
+    OrderedLaneChannel channel =
+        createChannel(
+            (message, timeout) -> {
+              throw new MessagingException(message, "failed");
+            });
+
+    channel.send(message("A:1", original));
+    channel.shutdown();
+
+    verify(original).nack();
+    verify(original, never()).ack();
+  }
+
+  @Test
+  public void shouldPublishDepthOfEachLane() {
+    createChannel((message, timeout) -> true);
+
+    for (int i = 0; i < 4; i++) {
+      assertNotNull(
+          meterRegistry
+              .find("inbound.lane.depth")
+              .tags("events", "test", "lane", String.valueOf(i))
+              .gauge());
+    }
+  }
+}
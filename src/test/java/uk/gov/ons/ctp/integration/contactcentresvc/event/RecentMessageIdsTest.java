@@ -0,0 +1,118 @@
+package uk.gov.ons.ctp.integration.contactcentresvc.event;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+
+public class RecentMessageIdsTest {
+  private static final long TTL = 1000;
+
+  @Test
+  public void shouldFindAddedId() {
+    RecentMessageIds recent = new RecentMessageIds(10, TTL);
+    UUID id = UUID.randomUUID();
+    assertFalse(recent.isRecent(id, 0));
+
+    recent.add(id, 0);
+    assertTrue(recent.isRecent(id, 0));
+    assertFalse(recent.isRecent(UUID.randomUUID(), 0));
+  }
+
+  @Test
+  public void shouldExpireIdAfterTimeToLive() {
+    RecentMessageIds recent = new RecentMessageIds(10, TTL);
+    UUID id = UUID.randomUUID();
+    recent.add(id, 0);
+
+    assertTrue(recent.isRecent(id, TTL - 1));
+    assertFalse(recent.isRecent(id, TTL));
+
+    recent.add(id, TTL);
+    assertTrue(recent.isRecent(id, TTL));
+  }
+
+  @Test
+  public void shouldDropOldestIdOnceFull() {
+    RecentMessageIds recent = new RecentMessageIds(2, TTL);
+    UUID id1 = UUID.randomUUID();
+    UUID id2 = UUID.randomUUID();
+    UUID id3 = UUID.randomUUID();
+    recent.add(id1, 0);
+    recent.add(id2, 0);
+    recent.add(id3, 0);
+
+    assertFalse(recent.isRecent(id1, 0));
+    assertTrue(recent.isRecent(id2, 0));
+    assertTrue(recent.isRecent(id3, 0));
+  }
+
+  @Test
+  public void shouldKeepNoneWhenTurnedOff() {
+    RecentMessageIds recent = new RecentMessageIds(0, TTL);
+    UUID id = UUID.randomUUID();
+    recent.add(id, 0);
+    assertFalse(recent.isRecent(id, 0));
+  }
+
+  @Test
+  public void shouldHoldTheLatestIds() {
+    // small enough for one segment, so exactly the latest IDs added are held
+    int capacity = 100;
+    RecentMessageIds recent = new RecentMessageIds(capacity, TTL);
+    Map<UUID, Boolean> expected = fifo(capacity);
+    Random random = new Random(42);
+    List<UUID> ids = new ArrayList<>();
+    for (int i = 0; i < 3 * capacity; i++) {
+      ids.add(new UUID(random.nextLong(), random.nextLong()));
+    }
+    for (int i = 0; i < 20 * capacity; i++) {
+      UUID id = ids.get(random.nextInt(ids.size()));
+      recent.add(id, 0);
+      expected.put(id, true);
+    }
+    for (UUID id : ids) {
+      assertEquals(expected.containsKey(id), recent.isRecent(id, 0));
+    }
+  }
+
+  @Test
+  public void shouldHoldUpToMaxEntriesOverSegments() {
+    int capacity = 64 * 1024;
+    RecentMessageIds recent = new RecentMessageIds(capacity, TTL);
+    Random random = new Random(42);
+    List<UUID> added = new ArrayList<>();
+    for (int i = 0; i < 3 * capacity; i++) {
+      UUID id = new UUID(random.nextLong(), random.nextLong());
+      recent.add(id, 0);
+      added.add(id);
+    }
+
+    // each of the 16 segments holds its latest IDs, so the latest few are held whichever segment
+    // they are in, and no more than the capacity in all
+    added
+        .subList(added.size() - 1000, added.size())
+        .forEach(id -> assertTrue(recent.isRecent(id, 0)));
+    long held = added.stream().filter(id -> recent.isRecent(id, 0)).count();
+    assertTrue(held <= capacity);
+    assertTrue(held > capacity * 9 / 10);
+  }
+
+  private static Map<UUID, Boolean> fifo(int capacity) {
+    return new LinkedHashMap<>() {
+      private static final long serialVersionUID = 1L;
+
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<UUID, Boolean> eldest) {
+        return size() > capacity;
+      }
+    };
+  }
+}
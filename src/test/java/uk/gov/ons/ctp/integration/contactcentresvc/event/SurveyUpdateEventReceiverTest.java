@@ -4,9 +4,11 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import java.util.List;
 import java.util.UUID;
 import java.util.stream.Collectors;
@@ -36,7 +38,9 @@ import uk.gov.ons.ctp.integration.contactcentresvc.repository.db.SurveyRepositor
 public class SurveyUpdateEventReceiverTest {
 
   @Mock private SurveyRepository repo;
+  @Mock private ReferenceDataCache referenceDataCache;
   @Spy private MapperFacade mapper = new CCSvcBeanMapper();
+  @Spy private InboundEventMetrics metrics = new InboundEventMetrics(new SimpleMeterRegistry(), 0);
 
   @InjectMocks private SurveyUpdateEventReceiver target;
 
@@ -74,12 +78,14 @@ public class SurveyUpdateEventReceiverTest {
         filterProducts(survey, DeliveryChannel.EMAIL),
         survey.getId(),
         DeliveryChannel.EMAIL);
+    verify(referenceDataCache).invalidateSurvey(survey.getId());
   }
 
   @Test
   public void shouldRejectFailingSave() {
     when(repo.saveAndFlush(any())).thenThrow(PersistenceException.class);
     assertThrows(PersistenceException.class, () -> target.acceptEvent(event));
+    verify(referenceDataCache, never()).invalidateSurvey(any());
   }
 
   private void verifyMappedSurvey(Survey survey, SurveyUpdate surveyUpdate) {
@@ -0,0 +1,149 @@
+package uk.gov.ons.ctp.integration.contactcentresvc.event;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.google.cloud.spring.pubsub.support.BasicAcknowledgeablePubsubMessage;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import ma.glasnost.orika.MapperFacade;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import uk.gov.ons.ctp.common.FixtureHelper;
+import uk.gov.ons.ctp.common.error.CTPException;
+import uk.gov.ons.ctp.common.event.model.UacEvent;
+import uk.gov.ons.ctp.integration.contactcentresvc.CCSvcBeanMapper;
+import uk.gov.ons.ctp.integration.contactcentresvc.config.AppConfig;
+import uk.gov.ons.ctp.integration.contactcentresvc.config.QueueConfig;
+import uk.gov.ons.ctp.integration.contactcentresvc.model.CCStatus;
+import uk.gov.ons.ctp.integration.contactcentresvc.model.Case;
+import uk.gov.ons.ctp.integration.contactcentresvc.model.Uac;
+import uk.gov.ons.ctp.integration.contactcentresvc.repository.CaseCache;
+import uk.gov.ons.ctp.integration.contactcentresvc.repository.db.UacBatchRepository;
+
+@ExtendWith(MockitoExtension.class)
+public class UacUpdateBatchReceiverTest {
+  private static final String CASE_ID = "ad24e36c-2a61-11ec-aa00-4c3275913db5";
+
+  @Mock private UacBatchRepository uacBatchRepo;
+  @Mock private EventFilter eventFilter;
+  @Mock private MessageDeduplicator deduplicator;
+  @Mock private AppConfig appConfig;
+  @Mock private CaseCache caseCache;
+
+  private MapperFacade mapper = new CCSvcBeanMapper();
+  private UacUpdateBatchReceiver target;
+
+  @Captor private ArgumentCaptor<List<Uac>> uacsCaptor;
+  @Captor private ArgumentCaptor<Collection<Case>> casesCaptor;
+
+  @BeforeEach
+  public void setup() {
+    QueueConfig queueConfig = new QueueConfig();
+    queueConfig.getUacBatch().setSize(2);
+    when(appConfig.getQueueConfig()).thenReturn(queueConfig);
+    target =
+        new UacUpdateBatchReceiver(
+            uacBatchRepo,
+            mapper,
+            eventFilter,
+            deduplicator,
+            new InboundEventMetrics(new SimpleMeterRegistry(), 0),
+            caseCache,
+            appConfig);
+  }
+
+  @AfterEach
+  public void tearDown() {
+    target.shutdown();
+  }
+
+  private UacEvent createEvent(String uacHash) {
+    UacEvent uacEvent = FixtureHelper.loadPackageFixtures(UacEvent[].class).get(0);
+    uacEvent.getPayload().getUacUpdate().setCaseId(CASE_ID);
+    uacEvent.getPayload().getUacUpdate().setUacHash(uacHash);
+    return uacEvent;
+  }
+
+  private void acceptAll() throws CTPException {
+    when(eventFilter.isValidEvent(anyString(), anyString(), anyString(), anyString()))
+        .thenReturn(true);
+  }
+
+  @Test
+  public void shouldWriteBatchWithOneSkeletonPerCase() throws CTPException {
+    acceptAll();
+    BasicAcknowledgeablePubsubMessage message1 = mock(BasicAcknowledgeablePubsubMessage.class);
+    BasicAcknowledgeablePubsubMessage message2 = mock(BasicAcknowledgeablePubsubMessage.class);
+
+    target.acceptEvent(createEvent("hash1"), message1);
+    verify(uacBatchRepo, never()).insertAll(any(), any());
+
+    target.acceptEvent(createEvent("hash2"), message2);
+    verify(uacBatchRepo).insertAll(uacsCaptor.capture(), casesCaptor.capture());
+    List<Uac> uacs = uacsCaptor.getValue();
+    assertEquals(2, uacs.size());
+    assertEquals("hash1", uacs.get(0).getUacHash());
+    assertEquals("hash2", uacs.get(1).getUacHash());
+
+    Collection<Case> skeletonCases = casesCaptor.getValue();
+    assertEquals(1, skeletonCases.size());
+    Case skeletonCase = skeletonCases.iterator().next();
+    assertEquals(UUID.fromString(CASE_ID), skeletonCase.getId());
+    assertEquals(CCStatus.PENDING, skeletonCase.getCcStatus());
+    verify(caseCache).invalidate(Set.of(UUID.fromString(CASE_ID)));
+    verify(message1).ack();
+    verify(message2).ack();
+  }
+
+  @Test
+  public void shouldAckFilteredEventWithoutWriting() throws CTPException {
+    when(eventFilter.isValidEvent(anyString(), anyString(), anyString(), anyString()))
+        .thenReturn(false);
+    BasicAcknowledgeablePubsubMessage message = mock(BasicAcknowledgeablePubsubMessage.class);
+
+    target.acceptEvent(createEvent("hash1"), message);
+    target.flush();
+
+    verify(uacBatchRepo, never()).insertAll(any(), any());
+    verify(message).ack();
+  }
+
+  @Test
+  public void shouldNackOnlyFailingUacWhenBatchFails() throws CTPException {
+    acceptAll();
+    BasicAcknowledgeablePubsubMessage message1 = mock(BasicAcknowledgeablePubsubMessage.class);
+    BasicAcknowledgeablePubsubMessage message2 = mock(BasicAcknowledgeablePubsubMessage.class);
+    doThrow(new DataIntegrityViolationException("batch"))
+        .when(uacBatchRepo)
+        .insertAll(any(), any());
+    when(uacBatchRepo.insert(any(), any()))
+        .thenReturn(true)
+        .thenThrow(new DataIntegrityViolationException("uac 2"));
+
+    target.acceptEvent(createEvent("hash1"), message1);
+    target.acceptEvent(createEvent("hash2"), message2);
+
+    verify(message1).ack();
+    verify(message1, never()).nack();
+    verify(message2).nack();
+    verify(message2, never()).ack();
+    verify(caseCache).invalidate(UUID.fromString(CASE_ID));
+  }
+}
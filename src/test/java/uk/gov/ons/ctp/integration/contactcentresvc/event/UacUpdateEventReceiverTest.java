@@ -3,11 +3,13 @@ package uk.gov.ons.ctp.integration.contactcentresvc.event;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
-import java.util.Optional;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import java.util.UUID;
 import javax.persistence.PersistenceException;
 import ma.glasnost.orika.MapperFacade;
@@ -28,8 +30,8 @@ import uk.gov.ons.ctp.integration.contactcentresvc.CCSvcBeanMapper;
 import uk.gov.ons.ctp.integration.contactcentresvc.model.CCStatus;
 import uk.gov.ons.ctp.integration.contactcentresvc.model.Case;
 import uk.gov.ons.ctp.integration.contactcentresvc.model.Uac;
-import uk.gov.ons.ctp.integration.contactcentresvc.repository.db.CaseRepository;
-import uk.gov.ons.ctp.integration.contactcentresvc.repository.db.UacRepository;
+import uk.gov.ons.ctp.integration.contactcentresvc.repository.CaseCache;
+import uk.gov.ons.ctp.integration.contactcentresvc.repository.db.UacBatchRepository;
 
 @ExtendWith(MockitoExtension.class)
 public class UacUpdateEventReceiverTest {
@@ -38,11 +40,13 @@ public class UacUpdateEventReceiverTest {
   private static final String COLLECTION_EX_ID = "bdfc0ada-2a61-11ec-8c02-4c3275913db5";
   private static final String MESSAGE_ID = "3883af91-0052-4497-9805-3238544fcf8a";
 
-  @Mock private CaseRepository caseRepo;
-  @Mock private UacRepository uacRepository;
+  @Mock private UacBatchRepository uacBatchRepo;
   @Mock private EventFilter eventFilter;
+  @Mock private MessageDeduplicator deduplicator;
+  @Mock private CaseCache caseCache;
 
   @Spy private MapperFacade mapper = new CCSvcBeanMapper();
+  @Spy private InboundEventMetrics metrics = new InboundEventMetrics(new SimpleMeterRegistry(), 0);
 
   @InjectMocks private UacUpdateEventReceiver target;
 
@@ -54,63 +58,57 @@ public class UacUpdateEventReceiverTest {
   @BeforeEach
   public void setup() {
     uacEvent = FixtureHelper.loadPackageFixtures(UacEvent[].class).get(0);
+    lenient().when(deduplicator.claim(any())).thenReturn(true);
   }
 
   @Test
   public void shouldReceiveEvent() throws CTPException {
     when(eventFilter.isValidEvent(SURVEY_ID, COLLECTION_EX_ID, CASE_ID, MESSAGE_ID))
         .thenReturn(true);
-    when(caseRepo.findById(UUID.fromString(CASE_ID))).thenReturn(Optional.of(new Case()));
 
     target.acceptEvent(uacEvent);
 
-    verify(uacRepository).saveAndFlush(uacCaptor.capture());
-    verify(caseRepo, times(0)).saveAndFlush(any());
+    verify(uacBatchRepo).insert(uacCaptor.capture(), caseCaptor.capture());
 
     UacUpdate uacUpdate = uacEvent.getPayload().getUacUpdate();
     Uac uac = uacCaptor.getValue();
     verifyMappedUac(uac, uacUpdate);
+    verifySkeletonCase(caseCaptor.getValue());
   }
 
   @Test
-  public void shouldRejectFilteredEvent() throws CTPException {
+  public void shouldDropCreatedCaseFromCache() throws CTPException {
     when(eventFilter.isValidEvent(SURVEY_ID, COLLECTION_EX_ID, CASE_ID, MESSAGE_ID))
-        .thenReturn(false);
+        .thenReturn(true);
+    when(uacBatchRepo.insert(any(), any())).thenReturn(true);
 
     target.acceptEvent(uacEvent);
 
-    verify(uacRepository, times(0)).saveAndFlush(any());
-    verify(caseRepo, times(0)).findById(any());
-    verify(caseRepo, times(0)).saveAndFlush(any());
+    verify(caseCache).invalidate(UUID.fromString(CASE_ID));
   }
 
   @Test
-  public void shouldReceiveEvent_NoExistingCase() throws CTPException {
-    when(eventFilter.isValidEvent(SURVEY_ID, COLLECTION_EX_ID, CASE_ID, MESSAGE_ID))
-        .thenReturn(true);
-    target.acceptEvent(uacEvent);
+  public void shouldSkipDuplicateEvent() throws CTPException {
+    when(deduplicator.claim(UUID.fromString(MESSAGE_ID))).thenReturn(false);
 
-    verify(uacRepository).saveAndFlush(uacCaptor.capture());
-    verify(caseRepo).saveAndFlush(caseCaptor.capture());
+    target.acceptEvent(uacEvent);
 
-    UacUpdate uacUpdate = uacEvent.getPayload().getUacUpdate();
-    Uac uac = uacCaptor.getValue();
-    verifyMappedUac(uac, uacUpdate);
-    verifySkeletonCase(caseCaptor.getValue());
+    verify(eventFilter, never()).isValidEvent(any(), any(), any(), any());
   }
 
   @Test
-  public void shouldRejectFailingSave() throws CTPException {
-    when(caseRepo.saveAndFlush(any())).thenThrow(PersistenceException.class);
+  public void shouldRejectFilteredEvent() throws CTPException {
     when(eventFilter.isValidEvent(SURVEY_ID, COLLECTION_EX_ID, CASE_ID, MESSAGE_ID))
-        .thenReturn(true);
-    assertThrows(PersistenceException.class, () -> target.acceptEvent(uacEvent));
+        .thenReturn(false);
+
+    target.acceptEvent(uacEvent);
+
+    verify(uacBatchRepo, times(0)).insert(any(), any());
   }
 
   @Test
-  public void shouldRejectFailingSaveFoundCase() throws CTPException {
-    when(caseRepo.findById(UUID.fromString(CASE_ID))).thenReturn(Optional.of(new Case()));
-    when(uacRepository.saveAndFlush(any())).thenThrow(PersistenceException.class);
+  public void shouldRejectFailingSave() throws CTPException {
+    when(uacBatchRepo.insert(any(), any())).thenThrow(PersistenceException.class);
     when(eventFilter.isValidEvent(SURVEY_ID, COLLECTION_EX_ID, CASE_ID, MESSAGE_ID))
         .thenReturn(true);
     assertThrows(PersistenceException.class, () -> target.acceptEvent(uacEvent));
@@ -0,0 +1,339 @@
+package uk.gov.ons.ctp.integration.contactcentresvc.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import uk.gov.ons.ctp.integration.contactcentresvc.event.CacheInvalidationBus;
+import uk.gov.ons.ctp.integration.contactcentresvc.event.NotificationConnectionFactory;
+import uk.gov.ons.ctp.integration.contactcentresvc.model.Case;
+import uk.gov.ons.ctp.integration.contactcentresvc.model.CollectionExercise;
+import uk.gov.ons.ctp.integration.contactcentresvc.model.Product;
+import uk.gov.ons.ctp.integration.contactcentresvc.model.Survey;
+
+public class CaseCacheTest {
+  private static final Set<Class<?>> ENTITIES =
+      Set.of(Case.class, CollectionExercise.class, Survey.class, Product.class);
+
+  private MeterRegistry meterRegistry;
+  private CacheInvalidationBus invalidationBus;
+  private CaseCache cache;
+  private AtomicInteger loads;
+
+  @BeforeEach
+  public void setup() {
+    meterRegistry = new SimpleMeterRegistry();
+    invalidationBus =
+        spy(
+            new CacheInvalidationBus(
+                mock(NotificationConnectionFactory.class), mock(JdbcTemplate.class)));
+    cache = new CaseCache(2, 60, meterRegistry, invalidationBus);
+    loads = new AtomicInteger();
+  }
+
+  @AfterEach
+  public void tearDown() {
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.clearSynchronization();
+    }
+  }
+
+  private Case createCase(String caseRef) {
+    Survey survey = Survey.builder().id(UUID.randomUUID()).build();
+    Case caze = new Case();
+    caze.setId(UUID.randomUUID());
+    caze.setCaseRef(caseRef);
+    caze.setCollectionExercise(
+        CollectionExercise.builder().id(UUID.randomUUID()).survey(survey).build());
+    caze.setSample(new HashMap<>());
+    return caze;
+  }
+
+  private Supplier<Optional<Case>> loader(Case caze) {
+    return () -> {
+      loads.incrementAndGet();
+      return Optional.ofNullable(caze);
+    };
+  }
+
+  private double gets(String result) {
+    return meterRegistry.counter("cache.gets", "cache", "case", "result", result).count();
+  }
+
+  @Test
+  public void shouldReadThroughById() {
+    Case caze = createCase("10000001");
+
+    Case first = cache.getById(caze.getId(), loader(caze)).get();
+    Case second = cache.getById(caze.getId(), loader(caze)).get();
+
+    assertEquals(caze.getId(), second.getId());
+    assertNotSame(first, second);
+    assertEquals(1, loads.get());
+    assertEquals(1, gets("hit"));
+    assertEquals(1, gets("miss"));
+  }
+
+  @Test
+  public void shouldFindCaseCachedByIdByCaseRef() {
+    Case caze = createCase("10000001");
+    cache.getById(caze.getId(), loader(caze));
+
+    assertEquals(caze.getId(), cache.getByCaseRef("10000001", loader(caze)).get().getId());
+    assertEquals(1, loads.get());
+  }
+
+  @Test
+  public void shouldNotCacheMissingCase() {
+    UUID caseId = UUID.randomUUID();
+    assertTrue(cache.getById(caseId, loader(null)).isEmpty());
+    assertTrue(cache.getById(caseId, loader(null)).isEmpty());
+    assertEquals(2, loads.get());
+  }
+
+  @Test
+  public void shouldEvictLeastRecentlyUsedCase() {
+    Case caze1 = createCase("10000001");
+    Case caze2 = createCase("10000002");
+    Case caze3 = createCase("10000003");
+    cache.getById(caze1.getId(), loader(caze1));
+    cache.getById(caze2.getId(), loader(caze2));
+    cache.getById(caze1.getId(), loader(caze1));
+    cache.getById(caze3.getId(), loader(caze3));
+
+    assertEquals(2, cache.size());
+    assertEquals(1, meterRegistry.counter("cache.evictions", "cache", "case").count());
+    cache.getByCaseRef("10000002", loader(caze2));
+    assertEquals(4, loads.get());
+  }
+
+  @Test
+  public void shouldLoadEveryTimeWhenTurnedOff() {
+    cache = new CaseCache(0, 60, meterRegistry, invalidationBus);
+    Case caze = createCase("10000001");
+    cache.getById(caze.getId(), loader(caze));
+    cache.getById(caze.getId(), loader(caze));
+    assertEquals(2, loads.get());
+  }
+
+  @Test
+  public void shouldInvalidateCaseAgainOnceTransactionCommits() {
+    Case caze = createCase("10000001");
+    TransactionSynchronizationManager.initSynchronization();
+    cache.invalidate(caze.getId());
+
+    // read before the update commits, so may be out of date
+    cache.getById(caze.getId(), loader(caze));
+    TransactionSynchronizationManager.getSynchronizations().forEach(s -> s.afterCommit());
+    cache.getById(caze.getId(), loader(caze));
+    assertEquals(2, loads.get());
+
+    cache.getByCaseRef("10000001", loader(caze));
+    assertEquals(2, loads.get());
+  }
+
+  @Test
+  public void shouldNotShareCachedCase() {
+    Case caze = createCase("10000001");
+    cache.getById(caze.getId(), loader(caze)).get().getSample().put("uprn", "1");
+    cache.getById(caze.getId(), loader(caze)).get().getCollectionExercise().setName("changed");
+
+    Case cached = cache.getById(caze.getId(), loader(caze)).get();
+    assertTrue(cached.getSample().isEmpty());
+    assertNull(cached.getCollectionExercise().getName());
+  }
+
+  @Test
+  public void shouldDropCasesOfUpdatedSurveyOrCollectionExercise() {
+    Case caze1 = createCase("10000001");
+    Case caze2 = createCase("10000002");
+    cache.getById(caze1.getId(), loader(caze1));
+    cache.getById(caze2.getId(), loader(caze2));
+
+    invalidationBus.publish(
+        CacheInvalidationBus.SURVEY, List.of(caze1.getCollectionExercise().getSurvey().getId()));
+    assertEquals(1, cache.size());
+
+    invalidationBus.publish(
+        CacheInvalidationBus.COLLECTION_EXERCISE, List.of(caze2.getCollectionExercise().getId()));
+    assertEquals(0, cache.size());
+  }
+
+  @Test
+  public void shouldPublishInvalidation() {
+    UUID caseId = UUID.randomUUID();
+    cache.invalidate(caseId);
+    verify(invalidationBus).publish(CacheInvalidationBus.CASE, List.of(caseId));
+  }
+
+  @Test
+  public void shouldDropCaseInvalidatedByAnotherInstance() {
+    ArgumentCaptor<CacheInvalidationBus.Listener> listener =
+        ArgumentCaptor.forClass(CacheInvalidationBus.Listener.class);
+    verify(invalidationBus).register(eq(CacheInvalidationBus.CASE), listener.capture());
+    Case caze1 = createCase("10000001");
+    Case caze2 = createCase("10000002");
+    cache.getById(caze1.getId(), loader(caze1));
+    cache.getById(caze2.getId(), loader(caze2));
+
+    listener.getValue().invalidate(caze1.getId().toString());
+    assertEquals(1, cache.size());
+    cache.getByCaseRef("10000001", loader(caze1));
+    assertEquals(3, loads.get());
+
+    listener.getValue().invalidateAll();
+    assertEquals(0, cache.size());
+  }
+
+  @Test
+  public void shouldNotCacheCaseInvalidatedWhileLoading() {
+    Case caze = createCase("10000001");
+    Supplier<Optional<Case>> invalidatingLoader =
+        () -> {
+          loads.incrementAndGet();
+          cache.invalidate(caze.getId());
+          return Optional.of(caze);
+        };
+
+    cache.getById(caze.getId(), invalidatingLoader);
+    assertEquals(0, cache.size());
+  }
+
+  @Test
+  public void shouldCopyEveryField() throws Exception {
+    Case caze = (Case) populate(Case.class, new ArrayDeque<>());
+    Case copy = CaseCache.copyOf(caze);
+    assertCopied(caze, copy, new ArrayDeque<>(), new ArrayDeque<>());
+  }
+
+  /** Create the entity with every field set, the entities it refers to included. */
+  private Object populate(Class<?> type, Deque<Object> parents) throws Exception {
+    Object entity = type.getDeclaredConstructor().newInstance();
+    parents.push(entity);
+    for (Field field : fields(type)) {
+      field.set(entity, valueFor(field, parents));
+    }
+    parents.pop();
+    return entity;
+  }
+
+  private Object valueFor(Field field, Deque<Object> parents) throws Exception {
+    Class<?> type = field.getType();
+    if (ENTITIES.contains(type)) {
+      return entityFor(type, parents);
+    } else if (type == List.class) {
+      Class<?> elementType =
+          (Class<?>) ((ParameterizedType) field.getGenericType()).getActualTypeArguments()[0];
+      return new ArrayList<>(List.of(entityFor(elementType, parents)));
+    } else if (type == boolean.class) {
+      return true;
+    } else if (type == int.class) {
+      return 7;
+    } else if (type == String.class) {
+      return field.getName();
+    } else if (type == UUID.class) {
+      return UUID.randomUUID();
+    } else if (type == LocalDateTime.class) {
+      return LocalDateTime.now();
+    } else if (type == Map.class) {
+      return new HashMap<>(Map.of("key", field.getName()));
+    } else if (type.isEnum()) {
+      return type.getEnumConstants()[0];
+    } else if (type == Object.class) {
+      return field.getName();
+    }
+    fail("No test value for " + field);
+    return null;
+  }
+
+  /** Refer back to the parent entity of the type, as Product does to its Survey. */
+  private Object entityFor(Class<?> type, Deque<Object> parents) throws Exception {
+    for (Object parent : parents) {
+      if (type.isInstance(parent)) {
+        return parent;
+      }
+    }
+    return populate(type, parents);
+  }
+
+  private void assertCopied(
+      Object entity, Object copy, Deque<Object> parents, Deque<Object> copyParents)
+      throws Exception {
+    assertNotSame(entity, copy);
+    parents.push(entity);
+    copyParents.push(copy);
+    for (Field field : fields(entity.getClass())) {
+      String name = entity.getClass().getSimpleName() + "." + field.getName();
+      Object value = field.get(entity);
+      Object copied = field.get(copy);
+      if (ENTITIES.contains(field.getType())) {
+        assertCopiedEntity(value, copied, parents, copyParents, name);
+      } else if (field.getType() == List.class) {
+        List<?> values = (List<?>) value;
+        List<?> copiedValues = (List<?>) copied;
+        assertEquals(values.size(), copiedValues == null ? 0 : copiedValues.size(), name);
+        for (int i = 0; i < values.size(); i++) {
+          assertCopiedEntity(values.get(i), copiedValues.get(i), parents, copyParents, name);
+        }
+      } else {
+        assertEquals(value, copied, name);
+      }
+    }
+    parents.pop();
+    copyParents.pop();
+  }
+
+  private void assertCopiedEntity(
+      Object entity, Object copy, Deque<Object> parents, Deque<Object> copyParents, String name)
+      throws Exception {
+    int parentIndex = new ArrayList<>(parents).indexOf(entity);
+    if (parentIndex >= 0) {
+      assertSame(new ArrayList<>(copyParents).get(parentIndex), copy, name);
+    } else {
+      assertNotNull(copy, name);
+      assertCopied(entity, copy, parents, copyParents);
+    }
+  }
+
+  private List<Field> fields(Class<?> type) {
+    List<Field> fields = new ArrayList<>();
+    for (Field field : type.getDeclaredFields()) {
+      if (!Modifier.isStatic(field.getModifiers()) && !field.isSynthetic()) {
+        field.setAccessible(true);
+        fields.add(field);
+      }
+    }
+    return fields;
+  }
+}
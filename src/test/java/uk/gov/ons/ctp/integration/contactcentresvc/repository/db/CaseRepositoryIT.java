@@ -2,9 +2,14 @@ package uk.gov.ons.ctp.integration.contactcentresvc.repository.db;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
+import java.util.UUID;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -16,10 +21,13 @@ import uk.gov.ons.ctp.common.event.model.CaseUpdate;
 import uk.gov.ons.ctp.integration.contactcentresvc.model.Case;
 import uk.gov.ons.ctp.integration.contactcentresvc.model.CollectionExercise;
 import uk.gov.ons.ctp.integration.contactcentresvc.model.Survey;
+import uk.gov.ons.ctp.integration.contactcentresvc.repository.CaseRepositoryClient;
+import uk.gov.ons.ctp.integration.contactcentresvc.repository.db.CaseRepository.CaseSummary;
 
 public class CaseRepositoryIT extends PostgresTestBase {
 
   @Autowired private CaseTransactionalOps txOps;
+  @Autowired private CaseBatchRepository caseBatchRepo;
 
   private Case inputCase;
 
@@ -118,6 +126,144 @@ public class CaseRepositoryIT extends PostgresTestBase {
     assertEquals(2, txOps.searchSampleAttributes(CaseUpdate.ATTRIBUTE_POSTCODE, "TE57 6DE").size());
   }
 
+  @Test
+  public void searchSampleAttributes_PartialUprn() throws Exception {
+    Case searchResult = txOps.searchSampleAttributes(CaseUpdate.ATTRIBUTE_UPRN, "49999").get(0);
+
+    verifyResult(searchResult, CaseUpdate.ATTRIBUTE_UPRN, "334999999999");
+  }
+
+  @Test
+  public void searchUprns_ExactValueIgnoringSpaces() throws Exception {
+    Map<String, List<CaseSummary>> summariesByUprn =
+        txOps.searchUprns(List.of("3349 9999 9999", "49999"));
+
+    assertEquals(inputCase.getId(), summariesByUprn.get("3349 9999 9999").get(0).getId());
+    assertTrue(summariesByUprn.get("49999").isEmpty());
+  }
+
+  @Test
+  public void searchUprns_AllUprnsInOneQuery() throws Exception {
+    Case secondaryCase = FixtureHelper.loadClassFixtures(Case[].class).get(1);
+    txOps.writeCase(secondaryCase);
+
+    Map<String, List<CaseSummary>> summariesByUprn =
+        txOps.searchUprns(List.of("334999999999", "49999"));
+
+    assertEquals(2, summariesByUprn.get("334999999999").size());
+    assertTrue(summariesByUprn.get("49999").isEmpty());
+  }
+
+  @Test
+  public void searchSummaries_IndexedAndUnindexedAttributes() throws Exception {
+    Survey survey = FixtureHelper.loadClassFixtures(Survey[].class).get(0);
+
+    for (CaseSummary summary :
+        List.of(
+            txOps.searchSummaries(CaseUpdate.ATTRIBUTE_POSTCODE, "te57 6de").get(0),
+            txOps.searchSummaries(CaseUpdate.ATTRIBUTE_TOWN_NAME, "Fake").get(0))) {
+      assertEquals(inputCase.getId(), summary.getId());
+      assertEquals(inputCase.getCaseRef(), summary.getCaseRef());
+      assertEquals("334999999999", summary.getUprn());
+      assertEquals(survey.getName(), summary.getSurveyName());
+      assertEquals(survey.getSampleDefinitionUrl(), summary.getSampleDefinitionUrl());
+    }
+  }
+
+  @Test
+  public void searchSampleAttributes_UpdatedPostcode() throws Exception {
+    inputCase.getSample().put(CaseUpdate.ATTRIBUTE_POSTCODE, "AB1 2CD");
+    txOps.writeCase(inputCase);
+
+    assertTrue(txOps.searchSampleAttributes(CaseUpdate.ATTRIBUTE_POSTCODE, "TE57 6DE").isEmpty());
+    verifyResult(
+        txOps.searchSampleAttributes(CaseUpdate.ATTRIBUTE_POSTCODE, "ab12cd").get(0),
+        CaseUpdate.ATTRIBUTE_POSTCODE,
+        "AB1 2CD");
+  }
+
+  @Test
+  public void upsertAll_InsertsNewAndUpdatesExistingCases() throws Exception {
+    Case secondaryCase = FixtureHelper.loadClassFixtures(Case[].class).get(1);
+    inputCase.setCaseRef("UPDATED");
+    inputCase.setLastUpdatedAt(inputCase.getLastUpdatedAt().plusSeconds(1));
+
+    assertEquals(0, caseBatchRepo.upsertAll(List.of(inputCase, secondaryCase)));
+
+    assertEquals("UPDATED", txOps.findCase(inputCase.getId()).getCaseRef());
+    Case inserted = txOps.findCase(secondaryCase.getId());
+    assertEquals(secondaryCase.getCaseRef(), inserted.getCaseRef());
+    assertEquals(secondaryCase.getCcStatus(), inserted.getCcStatus());
+    assertEquals(secondaryCase.getSample(), inserted.getSample());
+    assertEquals(secondaryCase.getSampleSensitive(), inserted.getSampleSensitive());
+  }
+
+  @Test
+  public void upsertAll_KeepsLatestOfRepeatedCase() throws Exception {
+    Case older = FixtureHelper.loadClassFixtures(Case[].class).get(0);
+    older.setCaseRef("OLDER");
+    older.setLastUpdatedAt(inputCase.getLastUpdatedAt().plusSeconds(1));
+    inputCase.setCaseRef("LATEST");
+    inputCase.setLastUpdatedAt(inputCase.getLastUpdatedAt().plusSeconds(2));
+
+    assertEquals(1, caseBatchRepo.upsertAll(List.of(inputCase, older)));
+
+    assertEquals("LATEST", txOps.findCase(inputCase.getId()).getCaseRef());
+  }
+
+  @Test
+  public void upsert_SkipsStaleUpdate() throws Exception {
+    LocalDateTime storedLastUpdatedAt = inputCase.getLastUpdatedAt();
+    inputCase.setCaseRef("STALE");
+    inputCase.setLastUpdatedAt(storedLastUpdatedAt.minusSeconds(1));
+
+    assertFalse(caseBatchRepo.upsert(inputCase));
+
+    Case stored = txOps.findCase(inputCase.getId());
+    assertNotEquals("STALE", stored.getCaseRef());
+    assertEquals(storedLastUpdatedAt, stored.getLastUpdatedAt());
+  }
+
+  @Test
+  public void upsert_AppliesNewerUpdate() throws Exception {
+    inputCase.setCaseRef("NEWER");
+    inputCase.setLastUpdatedAt(inputCase.getLastUpdatedAt().plusSeconds(1));
+
+    assertTrue(caseBatchRepo.upsert(inputCase));
+
+    assertEquals("NEWER", txOps.findCase(inputCase.getId()).getCaseRef());
+  }
+
+  @Test
+  public void copyAll_InsertsNewAndSkipsStaleCases() throws Exception {
+    Case secondaryCase = FixtureHelper.loadClassFixtures(Case[].class).get(1);
+    LocalDateTime storedLastUpdatedAt = inputCase.getLastUpdatedAt();
+    inputCase.setCaseRef("STALE");
+    inputCase.setLastUpdatedAt(storedLastUpdatedAt.minusSeconds(1));
+
+    assertEquals(1, caseBatchRepo.copyAll(List.of(inputCase, secondaryCase)));
+
+    assertNotEquals("STALE", txOps.findCase(inputCase.getId()).getCaseRef());
+    Case inserted = txOps.findCase(secondaryCase.getId());
+    assertEquals(secondaryCase.getCaseRef(), inserted.getCaseRef());
+    assertEquals(secondaryCase.getCcStatus(), inserted.getCcStatus());
+    assertEquals(secondaryCase.getSample(), inserted.getSample());
+    assertEquals(secondaryCase.getSampleSensitive(), inserted.getSampleSensitive());
+  }
+
+  @Test
+  public void copyAll_KeepsLatestOfRepeatedCase() throws Exception {
+    Case older = FixtureHelper.loadClassFixtures(Case[].class).get(0);
+    older.setCaseRef("OLDER");
+    older.setLastUpdatedAt(inputCase.getLastUpdatedAt().plusSeconds(1));
+    inputCase.setCaseRef("LATEST");
+    inputCase.setLastUpdatedAt(inputCase.getLastUpdatedAt().plusSeconds(2));
+
+    assertEquals(1, caseBatchRepo.copyAll(List.of(inputCase, older)));
+
+    assertEquals("LATEST", txOps.findCase(inputCase.getId()).getCaseRef());
+  }
+
   private void verifyResult(Case searchResult, String key, String actualExpectedValue) {
     assertEquals(inputCase.getId(), searchResult.getId());
     assertEquals(inputCase.getCaseRef(), searchResult.getCaseRef());
@@ -143,14 +289,17 @@ public class CaseRepositoryIT extends PostgresTestBase {
   @Transactional(propagation = Propagation.REQUIRES_NEW)
   public static class CaseTransactionalOps {
     private CaseRepository caseRepo;
+    private CaseRepositoryClient caseRepoClient;
     private CollectionExerciseRepository collectionExerciseRepository;
     private SurveyRepository surveyRepository;
 
     public CaseTransactionalOps(
         CaseRepository caseRepo,
+        CaseRepositoryClient caseRepoClient,
         CollectionExerciseRepository collectionExerciseRepository,
         SurveyRepository surveyRepository) {
       this.caseRepo = caseRepo;
+      this.caseRepoClient = caseRepoClient;
       this.collectionExerciseRepository = collectionExerciseRepository;
       this.surveyRepository = surveyRepository;
     }
@@ -173,9 +322,20 @@ public class CaseRepositoryIT extends PostgresTestBase {
       caseRepo.saveAndFlush(testCase);
     }
 
+    public Case findCase(UUID id) {
+      return caseRepo.findById(id).orElseThrow();
+    }
+
     public List<Case> searchSampleAttributes(String key, String value) {
+      return caseRepoClient.getCaseBySampleAttribute(key, value);
+    }
+
+    public Map<String, List<CaseSummary>> searchUprns(List<String> uprns) {
+      return caseRepoClient.getCaseSummariesByUprns(uprns);
+    }
 
-      return caseRepo.findBySampleContains(key, value);
+    public List<CaseSummary> searchSummaries(String key, String value) {
+      return caseRepoClient.getCaseSummariesBySampleAttribute(key, value);
     }
   }
 }
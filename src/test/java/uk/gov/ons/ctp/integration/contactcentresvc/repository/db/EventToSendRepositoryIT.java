@@ -1,6 +1,7 @@
 package uk.gov.ons.ctp.integration.contactcentresvc.repository.db;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
@@ -30,7 +31,7 @@ public class EventToSendRepositoryIT extends PostgresTestBase {
 
     AtomicInteger numProcessed = new AtomicInteger();
 
-    try (Stream<EventToSend> events = repo.findEventsToSend(3)) {
+    try (Stream<EventToSend> events = findInAllLanes(3)) {
       events.forEach(
           ev -> {
             numProcessed.incrementAndGet();
@@ -52,7 +53,7 @@ public class EventToSendRepositoryIT extends PostgresTestBase {
     txOps.createEvent(t3);
     txOps.createEvent(t4);
 
-    var items = repo.findEventsToSend(200).collect(Collectors.toList());
+    var items = findInAllLanes(200).collect(Collectors.toList());
     assertEquals(4, items.size());
 
     // verify they are received in time order
@@ -72,10 +73,52 @@ public class EventToSendRepositoryIT extends PostgresTestBase {
 
     assertEquals(10, repo.count());
 
-    var items = repo.findEventsToSend(3).collect(Collectors.toList());
+    var items = findInAllLanes(3).collect(Collectors.toList());
     assertEquals(3, items.size());
   }
 
+  @Test
+  public void shouldFindEventsInLanes() {
+    txOps.createEvent(LocalDateTime.now());
+    txOps.createEvent(LocalDateTime.now());
+
+    assertEquals(2, repo.findEventsToSendInLanes(0, 0, 10).count());
+    assertEquals(2, repo.findEventsToSendInLanes(0, Integer.MAX_VALUE, 10).count());
+    assertEquals(0, repo.findEventsToSendInLanes(1, Integer.MAX_VALUE, 10).count());
+  }
+
+  @Test
+  public void shouldNotFindRescheduledEvents() {
+    txOps.createEvent(LocalDateTime.now());
+    EventToSend event = repo.findAll().get(0);
+
+    txOps.rescheduleEvent(event.getId(), "argh");
+
+    EventToSend rescheduled = repo.findById(event.getId()).get();
+    assertEquals(1, rescheduled.getAttempts());
+    assertEquals("argh", rescheduled.getLastError());
+    assertTrue(rescheduled.getNextAttemptDateTime().isAfter(LocalDateTime.now().plusSeconds(20)));
+    assertEquals(0, repo.findEventsToSendInLanes(0, Integer.MAX_VALUE, 10).count());
+  }
+
+  @Test
+  public void shouldSummariseBacklogByType() {
+    LocalDateTime t1 = parseDateTime("2022-09-06T09:37:52.728");
+    LocalDateTime t2 = parseDateTime("2022-09-05T09:37:52.728");
+    txOps.createEvent(t1);
+    txOps.createEvent(t2);
+
+    var backlog = repo.findBacklogByType();
+    assertEquals(1, backlog.size());
+    assertEquals("EQ_LAUNCH", backlog.get(0).getType());
+    assertEquals(2, backlog.get(0).getDepth());
+    assertEquals(t2, backlog.get(0).getOldest());
+  }
+
+  private Stream<EventToSend> findInAllLanes(int limit) {
+    return repo.findEventsToSendInLanes(0, Integer.MAX_VALUE, limit);
+  }
+
   private LocalDateTime parseDateTime(String dateTime) {
     return LocalDateTime.parse(dateTime, DateTimeFormatter.ISO_LOCAL_DATE_TIME);
   }
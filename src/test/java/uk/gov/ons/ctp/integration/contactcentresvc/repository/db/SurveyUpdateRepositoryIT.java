@@ -21,6 +21,8 @@ import uk.gov.ons.ctp.common.event.model.SurveyFulfilment;
 import uk.gov.ons.ctp.common.event.model.SurveyUpdate;
 import uk.gov.ons.ctp.common.event.model.SurveyUpdateEvent;
 import uk.gov.ons.ctp.integration.contactcentresvc.CCSvcBeanMapper;
+import uk.gov.ons.ctp.integration.contactcentresvc.event.InboundEventMetrics;
+import uk.gov.ons.ctp.integration.contactcentresvc.event.ReferenceDataCache;
 import uk.gov.ons.ctp.integration.contactcentresvc.event.SurveyUpdateEventReceiver;
 import uk.gov.ons.ctp.integration.contactcentresvc.model.Product;
 import uk.gov.ons.ctp.integration.contactcentresvc.model.Survey;
@@ -101,16 +103,22 @@ public class SurveyUpdateRepositoryIT extends PostgresTestBase {
     private CollectionExerciseRepository collExRepo;
     private SurveyRepository surveyRepo;
     private CCSvcBeanMapper ccBeanMapper;
+    private ReferenceDataCache referenceDataCache;
+    private InboundEventMetrics metrics;
 
     public SurveyTransactionalOps(
         CaseRepository caseRepo,
         SurveyRepository repo,
         CollectionExerciseRepository collExRepo,
-        CCSvcBeanMapper ccBeanMapper) {
+        CCSvcBeanMapper ccBeanMapper,
+        ReferenceDataCache referenceDataCache,
+        InboundEventMetrics metrics) {
       this.surveyRepo = repo;
       this.caseRepo = caseRepo;
       this.collExRepo = collExRepo;
       this.ccBeanMapper = ccBeanMapper;
+      this.referenceDataCache = referenceDataCache;
+      this.metrics = metrics;
     }
 
     public void deleteAll() {
@@ -121,7 +129,7 @@ public class SurveyUpdateRepositoryIT extends PostgresTestBase {
 
     public void writeSurvey(SurveyUpdateEvent surveyUpdateEvent) throws Exception {
       SurveyUpdateEventReceiver surveyReceiver =
-          new SurveyUpdateEventReceiver(surveyRepo, ccBeanMapper);
+          new SurveyUpdateEventReceiver(surveyRepo, ccBeanMapper, referenceDataCache, metrics);
       surveyReceiver.acceptEvent(surveyUpdateEvent);
     }
 
@@ -22,6 +22,7 @@ import uk.gov.ons.ctp.common.event.model.CaseEvent;
 import uk.gov.ons.ctp.common.event.model.CaseUpdate;
 import uk.gov.ons.ctp.common.event.model.UacEvent;
 import uk.gov.ons.ctp.integration.contactcentresvc.event.CaseUpdateEventReceiver;
+import uk.gov.ons.ctp.integration.contactcentresvc.event.ReferenceDataCache;
 import uk.gov.ons.ctp.integration.contactcentresvc.event.UacUpdateEventReceiver;
 import uk.gov.ons.ctp.integration.contactcentresvc.model.CCStatus;
 import uk.gov.ons.ctp.integration.contactcentresvc.model.Case;
@@ -56,6 +57,7 @@ public class TransactionalOps {
   private EventToSendRepository eventToSendRepository;
   private CaseUpdateEventReceiver target;
   private UacUpdateEventReceiver uacUpdateEventReceiver;
+  private ReferenceDataCache referenceDataCache;
 
   public TransactionalOps(
       UserRepository userRepo,
@@ -70,7 +72,8 @@ public class TransactionalOps {
       SurveyRepository surveyRepository,
       EventToSendRepository eventToSendRepository,
       CaseUpdateEventReceiver target,
-      UacUpdateEventReceiver uacUpdateEventReceiver) {
+      UacUpdateEventReceiver uacUpdateEventReceiver,
+      ReferenceDataCache referenceDataCache) {
     this.userRepo = userRepo;
     this.userSurveyUsageRepository = userSurveyUsageRepository;
     this.roleRepository = roleRepository;
@@ -84,6 +87,7 @@ public class TransactionalOps {
     this.eventToSendRepository = eventToSendRepository;
     this.target = target;
     this.uacUpdateEventReceiver = uacUpdateEventReceiver;
+    this.referenceDataCache = referenceDataCache;
   }
 
   public void deleteAll() {
@@ -98,6 +102,7 @@ public class TransactionalOps {
     collectionExerciseRepository.deleteAll();
     surveyRepository.deleteAll();
     eventToSendRepository.deleteAll();
+    referenceDataCache.clear();
   }
 
   public User createSurveyUser(String name, UUID id, List<Role> userRoles, List<Role> adminRoles) {
@@ -304,6 +309,10 @@ public class TransactionalOps {
     eventToSendRepository.save(event);
   }
 
+  public void rescheduleEvent(UUID id, String error) {
+    eventToSendRepository.rescheduleEventToSend(id, error, 30, 3600);
+  }
+
   public void acceptEvent(CaseEvent event) throws CTPException {
     target.acceptEvent(event);
   }
@@ -7,12 +7,18 @@ import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
@@ -37,6 +43,7 @@ public class AddressServiceImplTest {
   @Mock AddressServiceClientServiceImpl addressClientService;
   @InjectMocks AddressService addressService;
   @Mock CaseService caseServiceImpl;
+  @Captor ArgumentCaptor<Collection<String>> uprnsCaptor;
 
   private void mockSearchByAddress(String qualifier, int expectedNumAddresses) {
     AddressIndexSearchResultsDTO results =
@@ -118,9 +125,7 @@ public class AddressServiceImplTest {
         FixtureHelper.loadClassFixtures(AddressIndexSearchResultsDTO[].class, "current").get(0);
     when(addressClientService.searchByPostcode(any())).thenReturn(addressIndexResults);
 
-    List<CaseSummaryDTO> emptyCaseSummaries = new ArrayList<CaseSummaryDTO>();
-    when(caseServiceImpl.getCaseSummaryBySampleAttribute(any(), any()))
-        .thenReturn(emptyCaseSummaries);
+    when(caseServiceImpl.getCaseSummariesByUprns(any())).thenReturn(new HashMap<>());
 
     // Run the request and verify results
     PostcodeQueryRequestDTO request = PostcodeQueryRequestDTO.create("EX2 8DD", 0, 100);
@@ -128,6 +133,26 @@ public class AddressServiceImplTest {
     verifyAddresses(results);
   }
 
+  @Test
+  public void shouldAttachCasesFoundByOneLookupForAllUprns() throws CTPException {
+    AddressIndexSearchResultsDTO addressIndexResults =
+        FixtureHelper.loadClassFixtures(AddressIndexSearchResultsDTO[].class, "current").get(0);
+    when(addressClientService.searchByPostcode(any())).thenReturn(addressIndexResults);
+
+    CaseSummaryDTO caseSummary = new CaseSummaryDTO();
+    caseSummary.setCaseRef("1000000000000001");
+    when(caseServiceImpl.getCaseSummariesByUprns(any()))
+        .thenReturn(Map.of("100041045021", List.of(caseSummary)));
+
+    PostcodeQueryRequestDTO request = PostcodeQueryRequestDTO.create("EX2 8DD", 0, 100);
+    ArrayList<AddressDTO> addresses = addressService.postcodeQuery(request).getAddresses();
+
+    verify(caseServiceImpl).getCaseSummariesByUprns(uprnsCaptor.capture());
+    assertEquals(4, uprnsCaptor.getValue().size());
+    assertTrue(addresses.get(0).getCases().isEmpty());
+    assertEquals(List.of(caseSummary), addresses.get(1).getCases());
+  }
+
   @Test
   public void testUPRNQueryProcessing() throws Exception {
     // Build results to be returned from search
@@ -2,16 +2,24 @@ package uk.gov.ons.ctp.integration.contactcentresvc.service.impl;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
-import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 import ma.glasnost.orika.MapperFacade;
+import org.hibernate.collection.internal.PersistentBag;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -19,14 +27,21 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
 import uk.gov.ons.ctp.common.FixtureHelper;
+import uk.gov.ons.ctp.common.domain.DeliveryChannel;
 import uk.gov.ons.ctp.common.error.CTPException;
 import uk.gov.ons.ctp.common.error.CTPException.Fault;
 import uk.gov.ons.ctp.common.event.model.CaseUpdate;
 import uk.gov.ons.ctp.integration.contactcentresvc.CCSvcBeanMapper;
+import uk.gov.ons.ctp.integration.contactcentresvc.event.CacheInvalidationBus;
 import uk.gov.ons.ctp.integration.contactcentresvc.model.Case;
+import uk.gov.ons.ctp.integration.contactcentresvc.model.Product;
+import uk.gov.ons.ctp.integration.contactcentresvc.repository.CaseCache;
 import uk.gov.ons.ctp.integration.contactcentresvc.repository.CaseRepositoryClient;
 import uk.gov.ons.ctp.integration.contactcentresvc.repository.db.CaseRepository;
+import uk.gov.ons.ctp.integration.contactcentresvc.repository.db.CaseRepository.CaseSummary;
+import uk.gov.ons.ctp.integration.contactcentresvc.representation.SurveyDTO;
 
 @ExtendWith(MockitoExtension.class)
 public class CaseDataClientTest {
@@ -40,8 +55,13 @@ public class CaseDataClientTest {
   private CTPException exception;
 
   @Mock private CaseRepository caseRepo;
+  @Mock private PlatformTransactionManager transactionManager;
   @Spy private MapperFacade mapper = new CCSvcBeanMapper();
 
+  @Spy
+  private CaseCache caseCache =
+      new CaseCache(100, 60, new SimpleMeterRegistry(), mock(CacheInvalidationBus.class));
+
   @InjectMocks private CaseRepositoryClient target;
 
   @BeforeEach
@@ -60,13 +80,67 @@ public class CaseDataClientTest {
   public void shouldGetCaseByUprn() throws Exception {
     List<Case> cases = new ArrayList<>();
     cases.add(caze);
-    when(caseRepo.findBySampleContains(eq(CaseUpdate.ATTRIBUTE_UPRN), anyString()))
-        .thenReturn(cases);
+    when(caseRepo.findBySampleUprnContains(anyString())).thenReturn(cases);
     resultList = target.getCaseBySampleAttribute(CaseUpdate.ATTRIBUTE_UPRN, UPRN.toString());
     assertEquals(1, resultList.size());
     assertEquals(UPRN.toString(), resultList.get(0).getSample().get(CaseUpdate.ATTRIBUTE_UPRN));
   }
 
+  @Test
+  public void shouldGetCaseByPostcodeUsingIndex() throws Exception {
+    when(caseRepo.findBySamplePostcodeContains("TE57 6DE")).thenReturn(List.of(caze));
+    resultList = target.getCaseBySampleAttribute(CaseUpdate.ATTRIBUTE_POSTCODE, "TE57 6DE");
+    assertEquals(1, resultList.size());
+    verify(caseRepo, never()).findBySampleContains(any(), any());
+  }
+
+  @Test
+  public void shouldGetCaseByUnindexedAttribute() throws Exception {
+    when(caseRepo.findBySampleContains(CaseUpdate.ATTRIBUTE_REGION, "W")).thenReturn(List.of(caze));
+    resultList = target.getCaseBySampleAttribute(CaseUpdate.ATTRIBUTE_REGION, "W");
+    assertEquals(1, resultList.size());
+  }
+
+  @Test
+  public void shouldGetCaseSummariesByPostcodeUsingIndex() throws Exception {
+    CaseSummary summary = mock(CaseSummary.class);
+    when(caseRepo.findSummariesBySamplePostcodeContains("TE57 6DE")).thenReturn(List.of(summary));
+    assertEquals(
+        List.of(summary),
+        target.getCaseSummariesBySampleAttribute(CaseUpdate.ATTRIBUTE_POSTCODE, "TE57 6DE"));
+    verify(caseRepo, never()).findSummariesBySampleContains(any(), any());
+  }
+
+  @Test
+  public void shouldGetCaseSummariesByUnindexedAttribute() throws Exception {
+    CaseSummary summary = mock(CaseSummary.class);
+    when(caseRepo.findSummariesBySampleContains(CaseUpdate.ATTRIBUTE_REGION, "W"))
+        .thenReturn(List.of(summary));
+    assertEquals(
+        List.of(summary),
+        target.getCaseSummariesBySampleAttribute(CaseUpdate.ATTRIBUTE_REGION, "W"));
+  }
+
+  @Test
+  public void shouldGetCaseSummariesByUprnsWithOneQuery() throws Exception {
+    CaseSummary summary = mock(CaseSummary.class);
+    when(summary.getUprn()).thenReturn(UPRN.toString());
+    when(caseRepo.findSummariesBySampleUprnIn(Set.of(UPRN.toString(), "123")))
+        .thenReturn(List.of(summary));
+
+    Map<String, List<CaseSummary>> summariesByUprn =
+        target.getCaseSummariesByUprns(List.of(UPRN.toString(), "1 23"));
+
+    assertEquals(List.of(summary), summariesByUprn.get(UPRN.toString()));
+    assertTrue(summariesByUprn.get("1 23").isEmpty());
+  }
+
+  @Test
+  public void shouldNotQueryForNoUprns() throws Exception {
+    assertTrue(target.getCaseSummariesByUprns(List.of()).isEmpty());
+    verify(caseRepo, never()).findSummariesBySampleUprnIn(any());
+  }
+
   @Test
   public void shouldGetCaseByRef() throws Exception {
     when(caseRepo.findByCaseRef(CASE_REF.toString())).thenReturn(Optional.of(caze));
@@ -74,6 +148,41 @@ public class CaseDataClientTest {
     assertEquals(CASE_REF.toString(), result.getCaseRef());
   }
 
+  @Test
+  public void shouldReadCaseThroughCache() throws Exception {
+    when(caseRepo.findById(ID)).thenReturn(Optional.of(caze));
+    target.getCaseById(ID);
+    result = target.getCaseByCaseRef(CASE_REF);
+    assertEquals(ID, result.getId());
+    verify(caseRepo, times(1)).findById(ID);
+    verify(caseRepo, never()).findByCaseRef(any());
+
+    caseCache.invalidate(ID);
+    target.getCaseById(ID);
+    verify(caseRepo, times(2)).findById(ID);
+  }
+
+  @Test
+  public void shouldMapSurveyOfCachedCase() throws Exception {
+    Product product =
+        Product.builder()
+            .id(UUID.randomUUID())
+            .deliveryChannel(DeliveryChannel.POST)
+            .packCode("P_TEST")
+            .build();
+    caze.getCollectionExercise().getSurvey().setAllowedFulfilments(List.of(product));
+    when(caseRepo.findById(ID)).thenReturn(Optional.of(caze));
+    target.getCaseById(ID);
+
+    // once the read has ended, the entity's lazy products can no longer be loaded
+    caze.getCollectionExercise().getSurvey().setAllowedFulfilments(new PersistentBag());
+    result = target.getCaseById(ID);
+
+    SurveyDTO survey = mapper.map(result.getCollectionExercise().getSurvey(), SurveyDTO.class);
+    assertEquals("P_TEST", survey.getAllowedFulfilments().get(0).getPackCode());
+    verify(caseRepo, times(1)).findById(ID);
+  }
+
   @Test
   public void shouldHandleCaseIdNotFound() throws Exception {
     when(caseRepo.findById(any())).thenReturn(Optional.empty());
@@ -83,8 +192,7 @@ public class CaseDataClientTest {
 
   @Test
   public void shouldHandleEmptyResultsForGetCaseByUprn() throws Exception {
-    when(caseRepo.findBySampleContains(eq(CaseUpdate.ATTRIBUTE_UPRN), anyString()))
-        .thenReturn(new ArrayList<>());
+    when(caseRepo.findBySampleUprnContains(anyString())).thenReturn(new ArrayList<>());
     resultList = target.getCaseBySampleAttribute(CaseUpdate.ATTRIBUTE_UPRN, UPRN.toString());
     assertEquals(0, resultList.size());
   }
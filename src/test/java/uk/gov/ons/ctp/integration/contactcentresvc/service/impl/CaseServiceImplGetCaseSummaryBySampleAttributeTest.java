@@ -1,8 +1,10 @@
 package uk.gov.ons.ctp.integration.contactcentresvc.service.impl;
 
+import static java.util.stream.Collectors.toList;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doThrow;
@@ -11,6 +13,7 @@ import static org.mockito.Mockito.when;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -19,12 +22,12 @@ import uk.gov.ons.ctp.common.FixtureHelper;
 import uk.gov.ons.ctp.common.domain.UniquePropertyReferenceNumber;
 import uk.gov.ons.ctp.common.error.CTPException;
 import uk.gov.ons.ctp.integration.contactcentresvc.model.Case;
-import uk.gov.ons.ctp.integration.contactcentresvc.representation.CaseQueryRequestDTO;
+import uk.gov.ons.ctp.integration.contactcentresvc.repository.db.CaseRepository.CaseSummary;
 import uk.gov.ons.ctp.integration.contactcentresvc.representation.CaseSummaryDTO;
 
 /**
- * Unit Test {@link CaseService#getCaseBySampleAttribute(String, String, CaseQueryRequestDTO)
- * getCaseBySampleAttribute}.
+ * Unit Test {@link CaseService#getCaseSummaryBySampleAttribute(String, String)
+ * getCaseSummaryBySampleAttribute}.
  */
 @ExtendWith(MockitoExtension.class)
 public class CaseServiceImplGetCaseSummaryBySampleAttributeTest extends CaseServiceImplTestBase {
@@ -32,10 +35,13 @@ public class CaseServiceImplGetCaseSummaryBySampleAttributeTest extends CaseServ
       new UniquePropertyReferenceNumber(334999999999L);
 
   List<Case> casesFromDb;
+  List<CaseSummary> summariesFromDb;
 
   @BeforeEach
   public void setup() {
     casesFromDb = FixtureHelper.loadPackageFixtures(Case[].class);
+    summariesFromDb =
+        casesFromDb.stream().map(CaseServiceImplTestBase::createCaseSummary).collect(toList());
   }
 
   @Test
@@ -56,27 +62,40 @@ public class CaseServiceImplGetCaseSummaryBySampleAttributeTest extends CaseServ
   public void testGetCaseByUprn_caseSvcUncheckedException() throws Exception {
     doThrow(new IllegalArgumentException())
         .when(caseDataClient)
-        .getCaseBySampleAttribute("uprn", String.valueOf(UPRN.getValue()));
+        .getCaseSummariesBySampleAttribute("uprn", String.valueOf(UPRN.getValue()));
 
     assertThrows(
         IllegalArgumentException.class,
         () -> target.getCaseSummaryBySampleAttribute("uprn", String.valueOf(UPRN.getValue())));
   }
 
+  @Test
+  public void testGetCaseSummariesByUprns() throws Exception {
+    String uprn = String.valueOf(UPRN.getValue());
+    when(caseDataClient.getCaseSummariesByUprns(List.of(uprn, "1")))
+        .thenReturn(Map.of(uprn, summariesFromDb, "1", new ArrayList<>()));
+
+    Map<String, List<CaseSummaryDTO>> results = target.getCaseSummariesByUprns(List.of(uprn, "1"));
+
+    assertEquals(summariesFromDb.size(), results.get(uprn).size());
+    verifyDbCase(results.get(uprn).get(0), 0);
+    assertTrue(results.get("1").isEmpty());
+  }
+
   // ---- helpers methods below ---
 
   private void mockCasesFromDb() {
-    when(caseDataClient.getCaseBySampleAttribute("uprn", String.valueOf(UPRN.getValue())))
-        .thenReturn(casesFromDb);
+    when(caseDataClient.getCaseSummariesBySampleAttribute("uprn", String.valueOf(UPRN.getValue())))
+        .thenReturn(summariesFromDb);
   }
 
   private void mockNothingInDb() throws CTPException {
-    when(caseDataClient.getCaseBySampleAttribute("uprn", String.valueOf(UPRN.getValue())))
-        .thenReturn(new ArrayList<Case>());
+    when(caseDataClient.getCaseSummariesBySampleAttribute("uprn", String.valueOf(UPRN.getValue())))
+        .thenReturn(new ArrayList<CaseSummary>());
   }
 
   private void verifyCallToGetCasesFromDb() {
-    verify(caseDataClient).getCaseBySampleAttribute(eq("uprn"), anyString());
+    verify(caseDataClient).getCaseSummariesBySampleAttribute(eq("uprn"), anyString());
   }
 
   private void verifyDbCase(CaseSummaryDTO results, int dataIndex) throws Exception {
@@ -18,6 +18,7 @@ import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
 import ma.glasnost.orika.MapperFacade;
@@ -25,6 +26,7 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Spy;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.client.HttpServerErrorException;
 import org.springframework.web.server.ResponseStatusException;
@@ -32,6 +34,7 @@ import uk.gov.ons.ctp.common.FixtureHelper;
 import uk.gov.ons.ctp.common.domain.SurveyType;
 import uk.gov.ons.ctp.common.domain.UniquePropertyReferenceNumber;
 import uk.gov.ons.ctp.common.event.TopicType;
+import uk.gov.ons.ctp.common.event.model.CaseUpdate;
 import uk.gov.ons.ctp.common.event.model.EventPayload;
 import uk.gov.ons.ctp.common.time.DateTimeUtil;
 import uk.gov.ons.ctp.integration.caseapiclient.caseservice.CaseServiceClientService;
@@ -48,6 +51,7 @@ import uk.gov.ons.ctp.integration.contactcentresvc.model.Survey;
 import uk.gov.ons.ctp.integration.contactcentresvc.model.Uac;
 import uk.gov.ons.ctp.integration.contactcentresvc.repository.CaseRepositoryClient;
 import uk.gov.ons.ctp.integration.contactcentresvc.repository.db.CaseInteractionRepository;
+import uk.gov.ons.ctp.integration.contactcentresvc.repository.db.CaseRepository.CaseSummary;
 import uk.gov.ons.ctp.integration.contactcentresvc.repository.db.UacRepository;
 import uk.gov.ons.ctp.integration.contactcentresvc.representation.CaseDTO;
 import uk.gov.ons.ctp.integration.contactcentresvc.representation.CaseInteractionDTO;
@@ -148,6 +152,17 @@ public abstract class CaseServiceImplTestBase {
     return expectedCaseResult;
   }
 
+  static CaseSummary createCaseSummary(Case caseFromDb) {
+    Survey survey = caseFromDb.getCollectionExercise().getSurvey();
+    Map<String, Object> columns = new HashMap<>();
+    columns.put("id", caseFromDb.getId().toString());
+    columns.put("caseRef", caseFromDb.getCaseRef());
+    columns.put("uprn", caseFromDb.getSample().get(CaseUpdate.ATTRIBUTE_UPRN));
+    columns.put("surveyName", survey.getName());
+    columns.put("sampleDefinitionUrl", survey.getSampleDefinitionUrl());
+    return new SpelAwareProxyProjectionFactory().createProjection(CaseSummary.class, columns);
+  }
+
   CaseSummaryDTO createExpectedCaseSummaryDTO(Case caseFromDb) {
 
     CaseSummaryDTO expectedCaseResult =
@@ -0,0 +1,114 @@
+package uk.gov.ons.ctp.integration.contactcentresvc.service.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import ma.glasnost.orika.MapperFacade;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import uk.gov.ons.ctp.common.error.CTPException;
+import uk.gov.ons.ctp.common.error.CTPException.Fault;
+import uk.gov.ons.ctp.integration.contactcentresvc.CCSvcBeanMapper;
+import uk.gov.ons.ctp.integration.contactcentresvc.model.EventDeadLetter;
+import uk.gov.ons.ctp.integration.contactcentresvc.model.EventToSend;
+import uk.gov.ons.ctp.integration.contactcentresvc.repository.db.EventDeadLetterRepository;
+import uk.gov.ons.ctp.integration.contactcentresvc.repository.db.EventToSendRepository;
+import uk.gov.ons.ctp.integration.contactcentresvc.representation.DeadLetterDTO;
+
+@ExtendWith(MockitoExtension.class)
+public class DeadLetterServiceTest {
+
+  @Mock EventDeadLetterRepository eventDeadLetterRepository;
+
+  @Mock EventToSendRepository eventToSendRepository;
+
+  @Spy private MapperFacade mapper = new CCSvcBeanMapper();
+
+  @InjectMocks private DeadLetterService deadLetterService = new DeadLetterService();
+
+  @Captor private ArgumentCaptor<EventToSend> eventCaptor;
+
+  private EventDeadLetter createDeadLetter() {
+    return EventDeadLetter.builder()
+        .id(UUID.randomUUID())
+        .type("EQ_LAUNCH")
+        .payload("{\"qid\":\"123\"}")
+        .lane(1)
+        .createdDateTime(LocalDateTime.now().minusHours(1))
+        .attempts(10)
+        .lastError("argh")
+        .deadLetterDateTime(LocalDateTime.now())
+        .build();
+  }
+
+  @Test
+  public void shouldGetDeadLetters() {
+    EventDeadLetter deadLetter = createDeadLetter();
+    when(eventDeadLetterRepository.findAllByOrderByDeadLetterDateTime())
+        .thenReturn(List.of(deadLetter));
+
+    List<DeadLetterDTO> result = deadLetterService.getDeadLetters();
+
+    assertEquals(1, result.size());
+    assertEquals(deadLetter.getId(), result.get(0).getId());
+    assertEquals("EQ_LAUNCH", result.get(0).getType());
+    assertEquals(10, result.get(0).getAttempts());
+    assertEquals("argh", result.get(0).getLastError());
+  }
+
+  @Test
+  public void shouldReplayDeadLetter() throws CTPException {
+    EventDeadLetter deadLetter = createDeadLetter();
+    when(eventDeadLetterRepository.findById(deadLetter.getId()))
+        .thenReturn(Optional.of(deadLetter));
+
+    DeadLetterDTO result = deadLetterService.replay(deadLetter.getId());
+
+    assertEquals(deadLetter.getId(), result.getId());
+    verify(eventToSendRepository).save(eventCaptor.capture());
+    EventToSend event = eventCaptor.getValue();
+    assertEquals(deadLetter.getId(), event.getId());
+    assertEquals(deadLetter.getType(), event.getType());
+    assertEquals(deadLetter.getPayload(), event.getPayload());
+    assertEquals(deadLetter.getLane(), event.getLane());
+    assertEquals(deadLetter.getCreatedDateTime(), event.getCreatedDateTime());
+    assertEquals(0, event.getAttempts());
+    verify(eventDeadLetterRepository).delete(deadLetter);
+  }
+
+  @Test
+  public void shouldRejectReplayOfUnknownDeadLetter() {
+    UUID id = UUID.randomUUID();
+    when(eventDeadLetterRepository.findById(id)).thenReturn(Optional.empty());
+
+    CTPException e = assertThrows(CTPException.class, () -> deadLetterService.replay(id));
+
+    assertEquals(Fault.RESOURCE_NOT_FOUND, e.getFault());
+    verify(eventToSendRepository, never()).save(any());
+  }
+
+  @Test
+  public void shouldReplayAllDeadLetters() {
+    when(eventDeadLetterRepository.findAll())
+        .thenReturn(List.of(createDeadLetter(), createDeadLetter()));
+
+    assertEquals(2, deadLetterService.replayAll());
+
+    verify(eventToSendRepository, times(2)).save(any());
+  }
+}
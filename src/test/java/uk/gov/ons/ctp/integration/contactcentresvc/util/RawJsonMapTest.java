@@ -0,0 +1,124 @@
+package uk.gov.ons.ctp.integration.contactcentresvc.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.databind.JsonMappingException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import uk.gov.ons.ctp.common.event.model.CaseUpdate;
+import uk.gov.ons.ctp.common.jackson.CustomObjectMapper;
+import uk.gov.ons.ctp.integration.contactcentresvc.event.CaseUpdateMixIn;
+
+public class RawJsonMapTest {
+  private CustomObjectMapper plainMapper = new CustomObjectMapper();
+  private CustomObjectMapper rawMapper = new CustomObjectMapper();
+
+  @BeforeEach
+  public void setup() {
+    rawMapper.addMixIn(CaseUpdate.class, CaseUpdateMixIn.class);
+  }
+
+  private CaseUpdate decode(String sampleJson) throws Exception {
+    return rawMapper.readValue("{\"sample\":" + sampleJson + "}", CaseUpdate.class);
+  }
+
+  @Test
+  public void shouldDecodeSampleAsRawJson() throws Exception {
+    CaseUpdate caseUpdate = new CaseUpdate();
+    caseUpdate.setCaseId("ad24e36c-2a61-11ec-aa00-4c3275913db5");
+    caseUpdate.setSample(Map.of("addressLine1", "1 Street \"A\"", "postcode", "TE57 6DE"));
+    caseUpdate.setSampleSensitive(Map.of("phoneNumber", "07700 900123"));
+    String json = plainMapper.writeValueAsString(caseUpdate);
+
+    CaseUpdate decoded = rawMapper.readValue(json, CaseUpdate.class);
+
+    assertEquals(caseUpdate.getCaseId(), decoded.getCaseId());
+    assertTrue(decoded.getSample() instanceof RawJsonMap);
+    assertTrue(decoded.getSampleSensitive() instanceof RawJsonMap);
+    assertEquals(caseUpdate.getSample(), decoded.getSample());
+    assertEquals(caseUpdate.getSampleSensitive(), decoded.getSampleSensitive());
+    assertEquals(
+        caseUpdate.getSample(),
+        plainMapper.readValue(((RawJsonMap) decoded.getSample()).getRawJson(), Map.class));
+  }
+
+  @Test
+  public void shouldConvertValuesToStrings() throws Exception {
+    CaseUpdate decoded = decode("{ \"a\" : 1, \"b\" : true, \"c\" : null, \"d\" : \"x\" }");
+
+    assertEquals(
+        "{\"a\":\"1\",\"b\":\"true\",\"c\":null,\"d\":\"x\"}",
+        ((RawJsonMap) decoded.getSample()).getRawJson());
+    assertEquals("1", decoded.getSample().get("a"));
+    assertTrue(decoded.getSample().containsKey("c"));
+  }
+
+  @Test
+  public void shouldDecodeEmptyAndNullSample() throws Exception {
+    assertEquals("{}", ((RawJsonMap) decode("{}").getSample()).getRawJson());
+    assertTrue(decode("{}").getSample().isEmpty());
+    assertNull(decode("null").getSample());
+  }
+
+  @Test
+  public void shouldRejectNestedValue() {
+    assertThrows(JsonMappingException.class, () -> decode("{\"a\":{\"b\":\"c\"}}"));
+    assertThrows(JsonMappingException.class, () -> decode("[\"a\"]"));
+  }
+
+  @Test
+  public void shouldKeepRawJsonWhenRead() {
+    RawJsonMap map = new RawJsonMap("{\"a\":\"1\"}");
+
+    assertEquals("1", map.get("a"));
+    assertEquals(1, map.size());
+    assertEquals("{\"a\":\"1\"}", map.getRawJson());
+  }
+
+  @Test
+  public void shouldDropRawJsonWhenChanged() {
+    RawJsonMap map = new RawJsonMap("{\"a\":\"1\"}");
+
+    map.put("b", "2");
+
+    assertNull(map.getRawJson());
+    assertEquals(Map.of("a", "1", "b", "2"), map);
+  }
+
+  @Test
+  public void shouldKeepRawJsonWhenIterated() {
+    RawJsonMap map = new RawJsonMap("{\"a\":\"1\",\"b\":null}");
+
+    assertEquals("{a=1, b=null}", map.toString());
+    assertEquals(new HashMap<>(map), map);
+    map.forEach((key, value) -> assertTrue(map.containsKey(key)));
+    assertEquals(List.of("a", "b"), new ArrayList<>(map.keySet()));
+
+    assertEquals("{\"a\":\"1\",\"b\":null}", map.getRawJson());
+  }
+
+  @Test
+  public void shouldDropRawJsonWhenChangedThroughEntries() {
+    RawJsonMap map = new RawJsonMap("{\"a\":\"1\",\"b\":\"2\"}");
+
+    map.entrySet().iterator().next().setValue("3");
+    assertNull(map.getRawJson());
+    assertEquals(Map.of("a", "3", "b", "2"), map);
+  }
+
+  @Test
+  public void shouldDropRawJsonWhenRemovedThroughKeys() {
+    RawJsonMap map = new RawJsonMap("{\"a\":\"1\",\"b\":\"2\"}");
+
+    map.keySet().remove("a");
+    assertNull(map.getRawJson());
+    assertEquals(Map.of("b", "2"), map);
+  }
+}
@@ -4,6 +4,7 @@
   ALTER USER ccuser WITH PASSWORD 'password';
   GRANT ALL PRIVILEGES ON DATABASE test TO ccadmin;
   CREATE SCHEMA cc_schema AUTHORIZATION ccadmin;
+  CREATE EXTENSION IF NOT EXISTS pg_trgm SCHEMA cc_schema;
   GRANT USAGE ON SCHEMA cc_schema TO ccuser;
   GRANT SELECT, UPDATE, INSERT, DELETE ON ALL TABLES IN SCHEMA cc_schema TO ccuser;
   GRANT SELECT, UPDATE ON ALL SEQUENCES IN SCHEMA cc_schema TO ccuser;